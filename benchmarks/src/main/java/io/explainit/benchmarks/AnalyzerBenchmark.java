@@ -0,0 +1,47 @@
+package io.explainit.benchmarks;
+
+import io.explainit.analyzer.*;
+import io.explainit.dto.AnalysisResult;
+import io.explainit.util.ProjectIndex;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each IProjectAnalyzer on its own, against a fresh index so file contents
+ * are read the way the first analyzer of a real analysis reads them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({
+        "FrameworkAnalyzer", "BuildInfoAnalyzer", "EntryPointAnalyzer", "ConfigFileAnalyzer",
+        "DataLayerAnalyzer", "ApiAnalyzer", "LanguageAnalyzer", "ProjectStructureAnalyzer", "SecurityAnalyzer"
+    })
+    public String analyzer;
+
+    private IProjectAnalyzer instance;
+    private ProjectIndex index;
+
+    @Setup(Level.Trial)
+    public void createAnalyzer() throws ReflectiveOperationException {
+        instance = (IProjectAnalyzer) Class.forName("io.explainit.analyzer." + analyzer)
+            .getDeclaredConstructor().newInstance();
+    }
+
+    // Invocation-level setup is fine here: every invocation takes milliseconds or more
+    @Setup(Level.Invocation)
+    public void buildIndex(ProjectState project) throws IOException {
+        index = ProjectIndex.build(project.root);
+    }
+
+    @Benchmark
+    public AnalysisResult analyze() throws Exception {
+        return instance.analyze(index);
+    }
+}
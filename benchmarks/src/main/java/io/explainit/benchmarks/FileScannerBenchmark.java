@@ -0,0 +1,36 @@
+package io.explainit.benchmarks;
+
+import io.explainit.util.FileScanner;
+import io.explainit.util.ProjectIndex;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Directory walks: a single FileScanner query against building the ProjectIndex
+ * that answers every analyzer query from one walk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileScannerBenchmark {
+
+    @Benchmark
+    public List<Path> findFilesByExtension(ProjectState project) throws IOException {
+        return FileScanner.findFilesByExtension(project.root, "java");
+    }
+
+    @Benchmark
+    public long calculateTotalSize(ProjectState project) throws IOException {
+        return FileScanner.calculateTotalSize(project.root);
+    }
+
+    @Benchmark
+    public ProjectIndex buildIndex(ProjectState project) throws IOException {
+        return ProjectIndex.build(project.root);
+    }
+}
@@ -0,0 +1,49 @@
+package io.explainit.benchmarks;
+
+import io.explainit.analyzer.ProjectAnalysisOrchestrator;
+import io.explainit.dto.ProjectMetadata;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A complete ProjectAnalysisOrchestrator.analyzeProject run, including the index walk,
+ * with analyzers run one after another or on a thread pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrchestratorBenchmark {
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private ExecutorService executor;
+    private ProjectAnalysisOrchestrator orchestrator;
+
+    @Setup(Level.Trial)
+    public void createOrchestrator() {
+        if ("parallel".equals(mode)) {
+            executor = Executors.newFixedThreadPool(8);
+            orchestrator = new ProjectAnalysisOrchestrator(executor, TimeUnit.MINUTES.toMillis(10));
+        } else {
+            orchestrator = new ProjectAnalysisOrchestrator();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public ProjectMetadata analyzeProject(ProjectState project) throws Exception {
+        return orchestrator.analyzeProject(project.root);
+    }
+}
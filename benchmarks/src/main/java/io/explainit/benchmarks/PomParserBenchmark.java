@@ -0,0 +1,40 @@
+package io.explainit.benchmarks;
+
+import io.explainit.corpus.ProjectCorpusGenerator;
+import io.explainit.util.PomParser;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DOM parsing of pom.xml content with a growing number of dependencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PomParserBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int dependencies;
+
+    private String pom;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        pom = ProjectCorpusGenerator.springBoot().dependencies(dependencies).pomXml();
+    }
+
+    @Benchmark
+    public List<PomParser.Dependency> parseDependencies() {
+        return PomParser.parsePomDependencies(pom);
+    }
+
+    @Benchmark
+    public Map<String, String> parseProperties() {
+        return PomParser.parsePomProperties(pom);
+    }
+}
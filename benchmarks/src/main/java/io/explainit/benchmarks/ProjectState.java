@@ -0,0 +1,53 @@
+package io.explainit.benchmarks;
+
+import io.explainit.corpus.ProjectCorpusGenerator;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generated project shared by the benchmarks, parameterized by kind and file count.
+ * Run a single size with e.g. -p files=1000, or another ecosystem with -p kind=NODE.
+ * Trees are written once under java.io.tmpdir and reused by later forks and runs,
+ * since generating 100k files takes longer than most benchmarks themselves.
+ */
+@State(Scope.Benchmark)
+public class ProjectState {
+
+    @Param({"SPRING_BOOT"})
+    public String kind;
+
+    @Param({"1000", "10000", "100000"})
+    public int files;
+
+    public Path root;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        Path base = Path.of(System.getProperty("java.io.tmpdir"), "explainit-bench");
+        String name = kind.toLowerCase() + "-" + files;
+        root = base.resolve(name);
+        Path marker = base.resolve(name + ".complete");
+        if (Files.exists(marker)) {
+            return;
+        }
+
+        generator(ProjectCorpusGenerator.Kind.valueOf(kind), files).writeTo(root);
+        Files.createFile(marker);
+    }
+
+    /**
+     * Proportions used for every size: 5% controllers with 5 mappings each, 5% entities.
+     */
+    static ProjectCorpusGenerator generator(ProjectCorpusGenerator.Kind kind, int files) {
+        return ProjectCorpusGenerator.of(kind)
+            .files(files)
+            .packageDepth(4)
+            .controllers(files / 20)
+            .mappingsPerController(5)
+            .entities(files / 20)
+            .dependencies(40)
+            .lockfileEntries(files / 10);
+    }
+}
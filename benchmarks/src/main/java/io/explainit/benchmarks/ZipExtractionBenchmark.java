@@ -0,0 +1,69 @@
+package io.explainit.benchmarks;
+
+import io.explainit.corpus.ProjectCorpusGenerator;
+import io.explainit.util.Cancellation;
+import io.explainit.util.ZipExtractor;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.openjdk.jmh.annotations.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracting an uploaded archive to disk: one entry after another from a stream,
+ * against inflating entries in parallel from the archive's central directory.
+ * Each extracted tree is deleted again, outside the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipExtractionBenchmark {
+
+    @Param({"SPRING_BOOT"})
+    public String kind;
+
+    @Param({"1000", "10000"})
+    public int files;
+
+    private byte[] archive;
+    private ForkJoinPool pool;
+    private Path extracted;
+
+    @Setup(Level.Trial)
+    public void createArchive() throws IOException {
+        archive = ProjectState.generator(ProjectCorpusGenerator.Kind.valueOf(kind), files).toZipBytes();
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteExtracted() throws IOException {
+        if (extracted != null) {
+            ZipExtractor.deleteDirectory(extracted);
+            extracted = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public Path streaming() throws IOException {
+        extracted = ZipExtractor.extractZip(new ByteArrayInputStream(archive));
+        return extracted;
+    }
+
+    @Benchmark
+    public Path parallel() throws IOException, InterruptedException {
+        try (ZipFile zipFile = ZipExtractor.openArchive(archive)) {
+            extracted = ZipExtractor.extractZip(zipFile, pool, Cancellation.NONE);
+        }
+        return extracted;
+    }
+}
@@ -0,0 +1,74 @@
+package io.explainit.analyzer;
+
+import io.explainit.dto.AnalysisResult;
+
+/**
+ * Receives each analyzer's result as soon as that analyzer finishes,
+ * before the orchestrator aggregates everything into ProjectMetadata.
+ * In concurrent mode it is called from analyzer threads, so implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface AnalysisListener {
+
+    AnalysisListener NONE = (analyzerName, result) -> { };
+
+    /**
+     * How an analyzer run ended.
+     */
+    enum Outcome {
+        SUCCESS, FAILURE, TIMEOUT, CANCELLED
+    }
+
+    /**
+     * @param analyzerName Simple class name of the analyzer, e.g. "FrameworkAnalyzer"
+     * @param result The analyzer's result
+     */
+    void onAnalyzerCompleted(String analyzerName, AnalysisResult result);
+
+    /**
+     * Called exactly once per analyzer with its outcome and duration, before
+     * onAnalyzerCompleted for successful runs. A timed out analyzer is measured
+     * up to the moment the orchestrator stopped waiting for it.
+     *
+     * @param analyzerName Simple class name of the analyzer
+     * @param outcome How the run ended
+     * @param durationNanos Wall-clock time of the run
+     */
+    default void onAnalyzerFinished(String analyzerName, Outcome outcome, long durationNanos) {
+    }
+
+    /**
+     * Called when the orchestrator finishes a step of its own, such as building the summary.
+     *
+     * @param phase Name of the step, e.g. "summary"
+     * @param durationNanos Wall-clock time of the step
+     */
+    default void onPhaseFinished(String phase, long durationNanos) {
+    }
+
+    /**
+     * @return A listener that notifies this listener, then the other one
+     */
+    default AnalysisListener andThen(AnalysisListener other) {
+        AnalysisListener first = this;
+        return new AnalysisListener() {
+            @Override
+            public void onAnalyzerCompleted(String analyzerName, AnalysisResult result) {
+                first.onAnalyzerCompleted(analyzerName, result);
+                other.onAnalyzerCompleted(analyzerName, result);
+            }
+
+            @Override
+            public void onAnalyzerFinished(String analyzerName, Outcome outcome, long durationNanos) {
+                first.onAnalyzerFinished(analyzerName, outcome, durationNanos);
+                other.onAnalyzerFinished(analyzerName, outcome, durationNanos);
+            }
+
+            @Override
+            public void onPhaseFinished(String phase, long durationNanos) {
+                first.onPhaseFinished(phase, durationNanos);
+                other.onPhaseFinished(phase, durationNanos);
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package io.explainit.analyzer;
+
+import io.explainit.util.ProjectIndex;
+import io.explainit.util.SignatureEngine;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Holds the single signature automaton compiled from the keywords every analyzer declares.
+ * Analyzers ask the ProjectIndex for a file's hits, so each file is scanned once per analysis
+ * and every analyzer reads the hits for the keywords it registered.
+ */
+final class AnalyzerSignatures {
+    
+    static final SignatureEngine ENGINE = SignatureEngine.builder()
+        .register(FrameworkDetector.SIGNATURES)
+        .register(DataLayerAnalyzer.SIGNATURES)
+        .register(SecurityAnalyzer.SIGNATURES)
+        .register(EntryPointAnalyzer.SIGNATURES)
+        .register(ApiAnalyzer.SIGNATURES)
+        .build();
+    
+    private AnalyzerSignatures() {
+    }
+    
+    static SignatureEngine.Hits scan(ProjectIndex index, Path file) throws IOException {
+        return index.scan(file, ENGINE);
+    }
+}
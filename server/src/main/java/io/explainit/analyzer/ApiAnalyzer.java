@@ -3,11 +3,9 @@ package io.explainit.analyzer;
 import io.explainit.dto.AnalysisResult;
 import io.explainit.dto.ApiAnalysisResult;
 import io.explainit.dto.ApiRoute;
-import io.explainit.util.FileScanner;
+import io.explainit.util.ProjectIndex;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Analyzes REST APIs: groups endpoints by HTTP method, counts controllers,
@@ -15,58 +13,69 @@ import java.util.stream.Collectors;
  */
 public class ApiAnalyzer implements IProjectAnalyzer {
     
-    private static final Pattern REST_CONTROLLER_PATTERN = Pattern.compile("@(Rest)?Controller");
-    private static final Pattern REQUEST_MAPPING_PATTERN = Pattern.compile("@(Request|Get|Post|Put|Delete|Patch)Mapping\\s*\\(\\s*[\"']([^\"']+)[\"']");
-    private static final Pattern PATH_PATTERN = Pattern.compile("@RequestMapping\\s*\\(\\s*\"([^\"]+)\"");
-    private static final Pattern SECURED_PATTERN = Pattern.compile("@(PreAuthorize|Secured|RolesAllowed)");
-    private static final Pattern HATEOAS_PATTERN = Pattern.compile("(EntityModel|CollectionModel|RepresentationModel)");
+    static final Set<String> SIGNATURES = Set.of(
+        "@RestController", "@Controller",
+        "@PreAuthorize", "@Secured", "@RolesAllowed",
+        "EntityModel", "CollectionModel", "RepresentationModel"
+    );
+    
+    private final JavaFactCache facts;
+    
+    public ApiAnalyzer() {
+        this(new JavaFactCache());
+    }
+    
+    /**
+     * @param facts Per-file facts shared with the other analyzers and later analyses
+     */
+    public ApiAnalyzer(JavaFactCache facts) {
+        this.facts = facts;
+    }
     
     @Override
-    public AnalysisResult analyze(Path projectRoot) throws Exception {
+    public Set<String> consumedExtensions() {
+        return Set.of("java");
+    }
+    
+    @Override
+    public AnalysisResult analyze(ProjectIndex index) throws Exception {
         ApiAnalysisResult result = new ApiAnalysisResult();
         List<ApiRoute> apiRoutes = new ArrayList<>();
         Map<String, Integer> endpointsByMethod = new HashMap<>();
         
-        List<Path> javaFiles = FileScanner.findFilesByExtension(projectRoot, "java");
+        List<Path> javaFiles = index.findFilesByExtension("java");
         int controllerCount = 0;
         int securedCount = 0;
         boolean hasHateoas = false;
         
         for (Path javaFile : javaFiles) {
-            String content = FileScanner.readFileAsString(javaFile);
+            JavaFileFacts file = facts.get(index, javaFile);
             
-            if (REST_CONTROLLER_PATTERN.matcher(content).find()) {
+            if (file.isController()) {
                 controllerCount++;
                 
-                String className = extractClassName(javaFile, content);
+                String className = extractClassName(javaFile);
                 
                 // Check if controller is secured
-                if (SECURED_PATTERN.matcher(content).find()) {
+                if (file.isSecured()) {
                     securedCount++;
                 }
                 
                 // Check for HATEOAS
-                if (HATEOAS_PATTERN.matcher(content).find()) {
+                if (file.usesHateoas()) {
                     hasHateoas = true;
                 }
                 
                 // Extract endpoints
-                var matcher = REQUEST_MAPPING_PATTERN.matcher(content);
-                while (matcher.find()) {
-                    String method = matcher.group(1) != null ? matcher.group(1).toUpperCase() : "GET";
-                    if ("REQUEST".equals(method)) method = "GET";
-                    String path = matcher.group(2);
-                    
+                for (JavaFileFacts.Route route : file.getRoutes()) {
                     // Count by method
-                    endpointsByMethod.put(method, endpointsByMethod.getOrDefault(method, 0) + 1);
-                    apiRoutes.add(new ApiRoute(method, path, className));
+                    endpointsByMethod.put(route.getMethod(), endpointsByMethod.getOrDefault(route.getMethod(), 0) + 1);
+                    apiRoutes.add(new ApiRoute(route.getMethod(), route.getPath(), className));
                 }
                 
-                var pathMatcher = PATH_PATTERN.matcher(content);
-                if (pathMatcher.find() && apiRoutes.isEmpty()) {
-                    String basePath = pathMatcher.group(1);
+                if (file.getBasePath() != null && apiRoutes.isEmpty()) {
                     endpointsByMethod.put("GET", endpointsByMethod.getOrDefault("GET", 0) + 1);
-                    apiRoutes.add(new ApiRoute("GET", basePath, className));
+                    apiRoutes.add(new ApiRoute("GET", file.getBasePath(), className));
                 }
             }
         }
@@ -110,19 +119,9 @@ public class ApiAnalyzer implements IProjectAnalyzer {
         return "BASIC_CRUD";
     }
     
-    private String extractClassName(Path filePath, String content) {
+    private String extractClassName(Path filePath) {
+        // Only .java files are analyzed, so the file name is the class name
         String filename = filePath.getFileName().toString();
-        if (filename.endsWith(".java")) {
-            return filename.substring(0, filename.length() - 5);
-        }
-        
-        Pattern classPattern = Pattern.compile("public\\s+class\\s+(\\w+)");
-        var matcher = classPattern.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        
-        return filename;
+        return filename.substring(0, filename.length() - 5);
     }
 }
-
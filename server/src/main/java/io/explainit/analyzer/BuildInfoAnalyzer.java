@@ -2,8 +2,8 @@ package io.explainit.analyzer;
 
 import io.explainit.dto.AnalysisResult;
 import io.explainit.dto.BuildAnalysisResult;
-import io.explainit.util.FileScanner;
 import io.explainit.util.PomParser;
+import io.explainit.util.ProjectIndex;
 import io.explainit.util.ProjectSizeCalculator;
 import java.nio.file.Path;
 import java.util.*;
@@ -20,51 +20,60 @@ public class BuildInfoAnalyzer implements IProjectAnalyzer {
     );
     
     @Override
-    public AnalysisResult analyze(Path projectRoot) throws Exception {
+    public Set<String> consumedFileNames() {
+        return Set.of(
+            "pom.xml", "build.gradle", "build.gradle.kts", "build.sbt", "package.json", "yarn.lock",
+            "Pipfile", "requirements.txt", "setup.py", "Cargo.toml", "Gemfile"
+        );
+    }
+    
+    @Override
+    public AnalysisResult analyze(ProjectIndex index) throws Exception {
         BuildAnalysisResult result = new BuildAnalysisResult();
         
         // Detect build tool
-        detectBuildTool(projectRoot, result);
+        detectBuildTool(index, result);
         
         // Calculate project size
-        long[] sizeData = ProjectSizeCalculator.calculateProjectSize(projectRoot);
+        long[] sizeData = ProjectSizeCalculator.calculateProjectSize(index);
         result.setProjectSizeKB(sizeData[0] / 1024);
         result.setProjectSizeMB(ProjectSizeCalculator.bytesToMB(sizeData[0]));
         result.setTotalFileCount(sizeData[1]);
         
-        // Count dependencies
-        result.setDependencyCount(countDependencies(projectRoot));
+        // Collect dependencies, sorted so analyses of the same project compare equal
+        Set<String> dependencies = collectDependencies(index);
+        result.setDependencies(new ArrayList<>(dependencies));
+        result.setDependencyCount(dependencies.size());
         
         // Detect multi-module
-        result.setMultiModule(isMultiModule(projectRoot));
+        result.setMultiModule(isMultiModule(index));
         if (result.isMultiModule()) {
-            result.setModuleCount(countModules(projectRoot));
+            result.setModuleCount(countModules(index));
         }
         
         result.setSuccess(true);
         return result;
     }
     
-    private void detectBuildTool(Path projectRoot, BuildAnalysisResult result) throws Exception {
+    private void detectBuildTool(ProjectIndex index, BuildAnalysisResult result) throws Exception {
         // Check for Maven
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
             result.setBuildTool("Maven");
             
-            String javaVersion = PomParser.parsePomProperties(pomPath.get())
-                .getOrDefault("java.version", 
-                    PomParser.parsePomProperties(pomPath.get())
-                        .getOrDefault("maven.compiler.source", "Unknown"));
+            Map<String, String> pomProperties = PomParser.parsePomProperties(index.readFileAsString(pomPath.get()));
+            String javaVersion = pomProperties.getOrDefault("java.version", 
+                pomProperties.getOrDefault("maven.compiler.source", "Unknown"));
             result.setJavaVersion(javaVersion);
             return;
         }
         
         // Check for Gradle
-        Optional<Path> gradlePath = FileScanner.findFile(projectRoot, "build.gradle");
+        Optional<Path> gradlePath = index.findFile("build.gradle");
         if (gradlePath.isPresent()) {
             result.setBuildTool("Gradle");
             
-            String gradleContent = FileScanner.readFileAsString(gradlePath.get());
+            String gradleContent = index.readFileAsString(gradlePath.get());
             if (gradleContent.contains("sourceCompatibility")) {
                 String[] lines = gradleContent.split("\n");
                 for (String line : lines) {
@@ -80,7 +89,7 @@ public class BuildInfoAnalyzer implements IProjectAnalyzer {
         }
         
         // Check for npm/yarn
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
             result.setBuildTool("npm");
             result.setLanguageVersion("Node.js");
@@ -90,36 +99,36 @@ public class BuildInfoAnalyzer implements IProjectAnalyzer {
         result.setBuildTool("Unknown");
     }
     
-    private int countDependencies(Path projectRoot) throws Exception {
-        Set<String> dependencies = new HashSet<>();
+    private Set<String> collectDependencies(ProjectIndex index) throws Exception {
+        Set<String> dependencies = new TreeSet<>();
         
         // Maven dependencies
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            String pomContent = FileScanner.readFileAsString(pomPath.get());
-            Matcher matcher = DEPENDENCY_PATTERN.matcher(pomContent);
+            String pomContent = index.readFileAsString(pomPath.get());
+            Matcher matcher = index.matcher(DEPENDENCY_PATTERN, pomContent);
             while (matcher.find()) {
                 dependencies.add(matcher.group(1).trim());
             }
         }
         
         // Gradle dependencies
-        Optional<Path> gradlePath = FileScanner.findFile(projectRoot, "build.gradle");
+        Optional<Path> gradlePath = index.findFile("build.gradle");
         if (gradlePath.isPresent()) {
-            String gradleContent = FileScanner.readFileAsString(gradlePath.get());
+            String gradleContent = index.readFileAsString(gradlePath.get());
             Pattern depPattern = Pattern.compile("(implementation|compile|compileOnly|testImplementation)\\s+['\\\"]([^'\\\"]+)['\\\"]");
-            Matcher matcher = depPattern.matcher(gradleContent);
+            Matcher matcher = index.matcher(depPattern, gradleContent);
             while (matcher.find()) {
                 dependencies.add(matcher.group(2).trim());
             }
         }
         
         // npm dependencies
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String pkgContent = FileScanner.readFileAsString(packageJsonPath.get());
+            String pkgContent = index.readFileAsString(packageJsonPath.get());
             Pattern depPattern = Pattern.compile("\"([^\"]+)\"\\s*:\\s*\"([^\"]+)\"");
-            Matcher matcher = depPattern.matcher(pkgContent);
+            Matcher matcher = index.matcher(depPattern, pkgContent);
             while (matcher.find()) {
                 if (!matcher.group(1).equals("version") && !matcher.group(1).equals("name")) {
                     dependencies.add(matcher.group(1));
@@ -127,29 +136,29 @@ public class BuildInfoAnalyzer implements IProjectAnalyzer {
             }
         }
 
-        Optional<Path> yarnLockPath = FileScanner.findFile(projectRoot, "yarn.lock");
+        Optional<Path> yarnLockPath = index.findFile("yarn.lock");
         if (yarnLockPath.isPresent()) {
-            String yarnContent = FileScanner.readFileAsString(yarnLockPath.get());
+            String yarnContent = index.readFileAsString(yarnLockPath.get());
             Pattern depPattern = Pattern.compile("^([^@\\s]+)@");
-            Matcher matcher = depPattern.matcher(yarnContent);
+            Matcher matcher = index.matcher(depPattern, yarnContent);
             while (matcher.find()) {
                 dependencies.add(matcher.group(1).trim());
             }
         }
 
-        Optional<Path> pipfilePath = FileScanner.findFile(projectRoot, "Pipfile");
+        Optional<Path> pipfilePath = index.findFile("Pipfile");
         if (pipfilePath.isPresent()) {
-            String pipfileContent = FileScanner.readFileAsString(pipfilePath.get());
+            String pipfileContent = index.readFileAsString(pipfilePath.get());
             Pattern depPattern = Pattern.compile("^(\\S+)\\s*=\\s*\"([^\"]+)\"", Pattern.MULTILINE);
-            Matcher matcher = depPattern.matcher(pipfileContent);
+            Matcher matcher = index.matcher(depPattern, pipfileContent);
             while (matcher.find()) {
                 dependencies.add(matcher.group(1).trim());
             }
         }
 
-        Optional<Path> requirementsPath = FileScanner.findFile(projectRoot, "requirements.txt");
+        Optional<Path> requirementsPath = index.findFile("requirements.txt");
         if (requirementsPath.isPresent()) {
-            String requirementsContent = FileScanner.readFileAsString(requirementsPath.get());
+            String requirementsContent = index.readFileAsString(requirementsPath.get());
             String[] lines = requirementsContent.split("\n");
             for (String line : lines) {
                 line = line.trim();
@@ -159,85 +168,85 @@ public class BuildInfoAnalyzer implements IProjectAnalyzer {
             }
         }
 
-        Optional<Path> setupPyPath = FileScanner.findFile(projectRoot, "setup.py");
+        Optional<Path> setupPyPath = index.findFile("setup.py");
         if (setupPyPath.isPresent()) {
-            String setupContent = FileScanner.readFileAsString(setupPyPath.get());
+            String setupContent = index.readFileAsString(setupPyPath.get());
             Pattern depPattern = Pattern.compile("install_requires\\s*=\\s*\\[(.*?)\\]", Pattern.DOTALL);
-            Matcher matcher = depPattern.matcher(setupContent);
+            Matcher matcher = index.matcher(depPattern, setupContent);
             if (matcher.find()) {
                 String depsBlock = matcher.group(1);
                 Pattern singleDepPattern = Pattern.compile("'([^']+)'");
-                Matcher singleMatcher = singleDepPattern.matcher(depsBlock);
+                Matcher singleMatcher = index.matcher(singleDepPattern, depsBlock);
                 while (singleMatcher.find()) {
                     dependencies.add(singleMatcher.group(1).trim());
                 }
             }
         }
 
-        Optional<Path> cargoTomlPath = FileScanner.findFile(projectRoot, "Cargo.toml");
+        Optional<Path> cargoTomlPath = index.findFile("Cargo.toml");
         if (cargoTomlPath.isPresent()) {
-            String cargoContent = FileScanner.readFileAsString(cargoTomlPath.get());
+            String cargoContent = index.readFileAsString(cargoTomlPath.get());
             Pattern depPattern = Pattern.compile("^([^=\\s]+)\\s*=\\s*\"([^\"]+)\"", Pattern.MULTILINE);
-            Matcher matcher = depPattern.matcher(cargoContent);
+            Matcher matcher = index.matcher(depPattern, cargoContent);
             while (matcher.find()) {
                 dependencies.add(matcher.group(1).trim());
             }
         }
 
-        Optional<Path> buildGradleKtsPath = FileScanner.findFile(projectRoot, "build.gradle.kts");
+        Optional<Path> buildGradleKtsPath = index.findFile("build.gradle.kts");
 
         if (buildGradleKtsPath.isPresent()) {
-            String gradleKtsContent = FileScanner.readFileAsString(buildGradleKtsPath.get());
+            String gradleKtsContent = index.readFileAsString(buildGradleKtsPath.get());
             Pattern depPattern = Pattern.compile("(implementation|compile|compileOnly|testImplementation)\\s*\\(\\s*['\\\"]([^'\\\"]+)['\\\"]\\s*\\)");
-            Matcher matcher = depPattern.matcher(gradleKtsContent);
+            Matcher matcher = index.matcher(depPattern, gradleKtsContent);
             while (matcher.find()) {
                 dependencies.add(matcher.group(2).trim());
             }
         }
 
-        Optional<Path> buildSbtPath = FileScanner.findFile(projectRoot, "build.sbt");   
+        Optional<Path> buildSbtPath = index.findFile("build.sbt");   
         if (buildSbtPath.isPresent()) {
-            String buildSbtContent = FileScanner.readFileAsString(buildSbtPath.get());
+            String buildSbtContent = index.readFileAsString(buildSbtPath.get());
             Pattern depPattern = Pattern.compile("libraryDependencies\\s*\\+?=\\s*\\([^)]*\\)");
-            Matcher matcher = depPattern.matcher(buildSbtContent);
+            Matcher matcher = index.matcher(depPattern, buildSbtContent);
             while (matcher.find()) {
                 String depLine = matcher.group(0);
                 Pattern singleDepPattern = Pattern.compile("'([^']+)'");
-                Matcher singleMatcher = singleDepPattern.matcher(depLine);
+                Matcher singleMatcher = index.matcher(singleDepPattern, depLine);
                 while (singleMatcher.find()) {
                     dependencies.add(singleMatcher.group(1).trim());
                 }
             }
         }
 
-        Optional<Path> gemfilePath = FileScanner.findFile(projectRoot, "Gemfile");
+        Optional<Path> gemfilePath = index.findFile("Gemfile");
         if (gemfilePath.isPresent()) {
-            String gemfileContent = FileScanner.readFileAsString(gemfilePath.get());
+            String gemfileContent = index.readFileAsString(gemfilePath.get());
             Pattern depPattern = Pattern.compile("gem\\s+['\\\"]([^'\\\"]+)['\\\"]");
-            Matcher matcher = depPattern.matcher(gemfileContent);
+            Matcher matcher = index.matcher(depPattern, gemfileContent);
             while (matcher.find()) {
                 dependencies.add(matcher.group(1).trim());
             }
         }
 
-        return dependencies.size();
+        return dependencies;
     }
     
-    private boolean isMultiModule(Path projectRoot) throws Exception {
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+    private boolean isMultiModule(ProjectIndex index) throws Exception {
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            String pomContent = FileScanner.readFileAsString(pomPath.get());
+            String pomContent = index.readFileAsString(pomPath.get());
             return pomContent.contains("<modules>") && pomContent.contains("<module>");
         }
         return false;
     }
     
-    private int countModules(Path projectRoot) throws Exception {
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+    private int countModules(ProjectIndex index) throws Exception {
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            String pomContent = FileScanner.readFileAsString(pomPath.get());
+            String pomContent = index.readFileAsString(pomPath.get());
             Pattern modulePattern = Pattern.compile("<module>([^<]+)</module>");
-            Matcher matcher = modulePattern.matcher(pomContent);
+            Matcher matcher = index.matcher(modulePattern, pomContent);
             int count = 0;
             while (matcher.find()) {
                 count++;
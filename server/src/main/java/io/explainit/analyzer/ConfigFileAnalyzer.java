@@ -3,7 +3,7 @@ package io.explainit.analyzer;
 import io.explainit.dto.AnalysisResult;
 import io.explainit.dto.ConfigAnalysisResult;
 import io.explainit.dto.ConfigFile;
-import io.explainit.util.FileScanner;
+import io.explainit.util.ProjectIndex;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -33,7 +33,7 @@ public class ConfigFileAnalyzer implements IProjectAnalyzer {
     );
     
     @Override
-    public AnalysisResult analyze(Path projectRoot) throws Exception {
+    public AnalysisResult analyze(ProjectIndex index) throws Exception {
         ConfigAnalysisResult result = new ConfigAnalysisResult();
         
         List<ConfigFile> runtimeConfigs = new ArrayList<>();
@@ -43,28 +43,28 @@ public class ConfigFileAnalyzer implements IProjectAnalyzer {
         
         // Scan for configuration files
         for (String filename : RUNTIME_CONFIGS) {
-            Optional<Path> found = FileScanner.findFile(projectRoot, filename);
+            Optional<Path> found = index.findFile(filename);
             if (found.isPresent()) {
                 runtimeConfigs.add(new ConfigFile(filename, found.get().toString(), "Runtime"));
             }
         }
         
         for (String filename : SECURITY_CONFIGS) {
-            Optional<Path> found = FileScanner.findFile(projectRoot, filename);
+            Optional<Path> found = index.findFile(filename);
             if (found.isPresent() && !runtimeConfigs.stream().anyMatch(c -> c.getFilename().equals(filename))) {
                 securityConfigs.add(new ConfigFile(filename, found.get().toString(), "Security"));
             }
         }
         
         for (String filename : BUILD_CONFIGS) {
-            Optional<Path> found = FileScanner.findFile(projectRoot, filename);
+            Optional<Path> found = index.findFile(filename);
             if (found.isPresent()) {
                 buildConfigs.add(new ConfigFile(filename, found.get().toString(), "Build"));
             }
         }
         
         for (String filename : INFRA_CONFIGS) {
-            Optional<Path> found = FileScanner.findFile(projectRoot, filename);
+            Optional<Path> found = index.findFile(filename);
             if (found.isPresent()) {
                 infraConfigs.add(new ConfigFile(filename, found.get().toString(), "Infrastructure"));
             }
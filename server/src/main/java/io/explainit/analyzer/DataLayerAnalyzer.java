@@ -3,8 +3,9 @@ package io.explainit.analyzer;
 import io.explainit.dto.AnalysisResult;
 import io.explainit.dto.DataLayerAnalysisResult;
 import io.explainit.dto.DetectionResult;
-import io.explainit.util.FileScanner;
 import io.explainit.util.PomParser;
+import io.explainit.util.ProjectIndex;
+import io.explainit.util.SignatureEngine;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
@@ -56,25 +57,72 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         Map.entry("sequelize", "Sequelize CLI")
     );
     
+    // Keywords matched through the shared signature automaton
+    static final Set<String> SIGNATURES = collectSignatures();
+    
+    private static Set<String> collectSignatures() {
+        Set<String> signatures = new LinkedHashSet<>(Arrays.asList(
+            "@Entity", "@Document", "@Repository", "extends Repository",
+            "hikari", "commons-dbcp", "pool",
+            "spring.datasource", "datasource", "spring.jpa"
+        ));
+        for (Map.Entry<String, DatabaseSignature> entry : DATABASES.entrySet()) {
+            signatures.add(entry.getKey());
+            signatures.add("\"" + entry.getKey());
+            signatures.addAll(entry.getValue().keywords);
+        }
+        for (ORMSignature orm : JAVA_ORMS.values()) signatures.addAll(orm.dependencies);
+        for (ORMSignature orm : PYTHON_ORMS.values()) signatures.addAll(orm.dependencies);
+        for (ORMSignature orm : NODE_ORMS.values()) signatures.addAll(orm.dependencies);
+        signatures.addAll(MIGRATION_TOOLS.keySet());
+        return signatures;
+    }
+    
+    private final JavaFactCache facts;
+    
+    public DataLayerAnalyzer() {
+        this(new JavaFactCache());
+    }
+    
+    /**
+     * @param facts Per-file facts shared with the other analyzers and later analyses
+     */
+    public DataLayerAnalyzer(JavaFactCache facts) {
+        this.facts = facts;
+    }
+    
+    @Override
+    public Set<String> consumedFileNames() {
+        return Set.of(
+            "pom.xml", "package.json", "requirements.txt",
+            "application.properties", "application.yml", ".env"
+        );
+    }
+    
+    @Override
+    public Set<String> consumedExtensions() {
+        return Set.of("java");
+    }
+    
     @Override
-    public AnalysisResult analyze(Path projectRoot) throws Exception {
+    public AnalysisResult analyze(ProjectIndex index) throws Exception {
         DataLayerAnalysisResult result = new DataLayerAnalysisResult();
         List<DetectionResult> detections = new ArrayList<>();
         
         // Detect databases
-        detections.addAll(detectDatabases(projectRoot));
+        detections.addAll(detectDatabases(index));
         
         // Detect ORMs
-        detections.addAll(detectORMs(projectRoot));
+        detections.addAll(detectORMs(index));
         
         // Detect connection pooling
-        detections.addAll(detectConnectionPooling(projectRoot));
+        detections.addAll(detectConnectionPooling(index));
         
         // Detect migrations
-        detections.addAll(detectMigrations(projectRoot));
+        detections.addAll(detectMigrations(index));
         
         // Check application properties
-        detections.addAll(detectFromConfig(projectRoot));
+        detections.addAll(detectFromConfig(index));
         
         // Set primary database and ORM
         for (DetectionResult d : detections) {
@@ -101,22 +149,21 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         result.setMigrationToolsDetected(migrations);
         
         // Detect entity and repository counts (simplified)
-        result.setEntityCount(countEntities(projectRoot));
-        result.setRepositoryCount(countRepositories(projectRoot));
+        result.setEntityCount(countEntities(index));
+        result.setRepositoryCount(countRepositories(index));
         
         result.setDetections(detections);
         result.setSuccess(true);
         return result;
     }
     
-    private int countEntities(Path projectRoot) throws Exception {
+    private int countEntities(ProjectIndex index) throws Exception {
         try {
             // Look for @Entity annotated classes in Java
-            List<Path> javaFiles = FileScanner.findFilesByExtension(projectRoot, "java");
+            List<Path> javaFiles = index.findFilesByExtension("java");
             int count = 0;
             for (Path file : javaFiles) {
-                String content = FileScanner.readFileAsString(file);
-                if (content.contains("@Entity") || content.contains("@Document")) {
+                if (facts.get(index, file).isEntity()) {
                     count++;
                 }
             }
@@ -126,14 +173,13 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
     }
     
-    private int countRepositories(Path projectRoot) throws Exception {
+    private int countRepositories(ProjectIndex index) throws Exception {
         try {
             // Look for @Repository annotated classes or interface extending Repository
-            List<Path> javaFiles = FileScanner.findFilesByExtension(projectRoot, "java");
+            List<Path> javaFiles = index.findFilesByExtension("java");
             int count = 0;
             for (Path file : javaFiles) {
-                String content = FileScanner.readFileAsString(file);
-                if (content.contains("@Repository") || content.contains("extends Repository")) {
+                if (facts.get(index, file).isRepository()) {
                     count++;
                 }
             }
@@ -143,17 +189,18 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
     }
     
-    private List<DetectionResult> detectDatabases(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectDatabases(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check Maven dependencies
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(pomPath.get());
+            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(index.readFileAsString(pomPath.get()));
             for (PomParser.Dependency dep : deps) {
+                SignatureEngine.Hits hits = AnalyzerSignatures.ENGINE.scanIgnoreCase(dep.artifactId);
                 for (Map.Entry<String, DatabaseSignature> entry : DATABASES.entrySet()) {
                     for (String keyword : entry.getValue().keywords) {
-                        if (dep.artifactId.toLowerCase().contains(keyword)) {
+                        if (hits.contains(keyword)) {
                             results.add(new DetectionResult(
                                 entry.getValue().name,
                                 "Database",
@@ -170,11 +217,11 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check npm dependencies
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String content = FileScanner.readFileAsString(packageJsonPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, packageJsonPath.get());
             for (String key : DATABASES.keySet()) {
-                if (content.contains("\"" + key)) {
+                if (hits.contains("\"" + key)) {
                     DatabaseSignature sig = DATABASES.get(key);
                     results.add(new DetectionResult(
                         sig.name,
@@ -188,11 +235,11 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check Python requirements
-        Optional<Path> requirementsPath = FileScanner.findFile(projectRoot, "requirements.txt");
+        Optional<Path> requirementsPath = index.findFile("requirements.txt");
         if (requirementsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(requirementsPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, requirementsPath.get());
             for (String key : DATABASES.keySet()) {
-                if (content.contains(key)) {
+                if (hits.contains(key)) {
                     DatabaseSignature sig = DATABASES.get(key);
                     results.add(new DetectionResult(
                         sig.name,
@@ -206,21 +253,21 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check config files
-        Optional<Path> appPropsPath = FileScanner.findFile(projectRoot, "application.properties");
+        Optional<Path> appPropsPath = index.findFile("application.properties");
         if (appPropsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(appPropsPath.get());
+            String content = index.readFileAsString(appPropsPath.get());
             results.addAll(detectDatabaseFromConfig(content, "application.properties"));
         }
         
-        Optional<Path> appYmlPath = FileScanner.findFile(projectRoot, "application.yml");
+        Optional<Path> appYmlPath = index.findFile("application.yml");
         if (appYmlPath.isPresent()) {
-            String content = FileScanner.readFileAsString(appYmlPath.get());
+            String content = index.readFileAsString(appYmlPath.get());
             results.addAll(detectDatabaseFromConfig(content, "application.yml"));
         }
         
-        Optional<Path> appEnvPath = FileScanner.findFile(projectRoot, ".env");
+        Optional<Path> appEnvPath = index.findFile(".env");
         if (appEnvPath.isPresent()) {
-            String content = FileScanner.readFileAsString(appEnvPath.get());
+            String content = index.readFileAsString(appEnvPath.get());
             results.addAll(detectDatabaseFromConfig(content, ".env"));
         }
         
@@ -229,10 +276,11 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
     
     private List<DetectionResult> detectDatabaseFromConfig(String content, String source) {
         List<DetectionResult> results = new ArrayList<>();
+        SignatureEngine.Hits hits = AnalyzerSignatures.ENGINE.scanIgnoreCase(content);
         
         for (Map.Entry<String, DatabaseSignature> entry : DATABASES.entrySet()) {
             for (String keyword : entry.getValue().keywords) {
-                if (content.toLowerCase().contains(keyword)) {
+                if (hits.contains(keyword)) {
                     results.add(new DetectionResult(
                         entry.getValue().name,
                         "Database",
@@ -248,17 +296,19 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         return results;
     }
     
-    private List<DetectionResult> detectORMs(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectORMs(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check Maven for Java ORMs
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(pomPath.get());
+            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(index.readFileAsString(pomPath.get()));
             for (PomParser.Dependency dep : deps) {
+                SignatureEngine.Hits artifactHits = AnalyzerSignatures.ENGINE.scan(dep.artifactId);
+                SignatureEngine.Hits groupHits = AnalyzerSignatures.ENGINE.scan(dep.groupId);
                 for (ORMSignature orm : JAVA_ORMS.values()) {
                     for (String keyword : orm.dependencies) {
-                        if (dep.artifactId.contains(keyword) || dep.groupId.contains(keyword)) {
+                        if (artifactHits.contains(keyword) || groupHits.contains(keyword)) {
                             results.add(new DetectionResult(
                                 orm.name,
                                 "ORM",
@@ -275,12 +325,12 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check npm for Node ORMs
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String content = FileScanner.readFileAsString(packageJsonPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, packageJsonPath.get());
             for (ORMSignature orm : NODE_ORMS.values()) {
                 for (String keyword : orm.dependencies) {
-                    if (content.contains(keyword)) {
+                    if (hits.contains(keyword)) {
                         results.add(new DetectionResult(
                             orm.name,
                             "ORM",
@@ -294,12 +344,12 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check Python requirements for ORMs
-        Optional<Path> requirementsPath = FileScanner.findFile(projectRoot, "requirements.txt");
+        Optional<Path> requirementsPath = index.findFile("requirements.txt");
         if (requirementsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(requirementsPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, requirementsPath.get());
             for (ORMSignature orm : PYTHON_ORMS.values()) {
                 for (String keyword : orm.dependencies) {
-                    if (content.contains(keyword)) {
+                    if (hits.contains(keyword)) {
                         results.add(new DetectionResult(
                             orm.name,
                             "ORM",
@@ -313,7 +363,7 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check for Prisma schema file
-        Optional<Path> prismaSchemaPath = FileScanner.findFile(projectRoot, "schema.prisma");
+        Optional<Path> prismaSchemaPath = index.findFile("schema.prisma");
         if (prismaSchemaPath.isPresent()) {
             results.add(new DetectionResult(
                 "Prisma",
@@ -327,15 +377,15 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         return results;
     }
     
-    private List<DetectionResult> detectConnectionPooling(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectConnectionPooling(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check for HikariCP, Tomcat Connection Pool, etc.
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            String content = FileScanner.readFileAsString(pomPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, pomPath.get());
             
-            if (content.contains("hikari")) {
+            if (hits.contains("hikari")) {
                 results.add(new DetectionResult(
                     "HikariCP",
                     "Connection Pool",
@@ -345,7 +395,7 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("commons-dbcp")) {
+            if (hits.contains("commons-dbcp")) {
                 results.add(new DetectionResult(
                     "Apache DBCP",
                     "Connection Pool",
@@ -357,10 +407,10 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check application properties for connection pool settings
-        Optional<Path> appPropsPath = FileScanner.findFile(projectRoot, "application.properties");
+        Optional<Path> appPropsPath = index.findFile("application.properties");
         if (appPropsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(appPropsPath.get());
-            if (content.contains("hikari") || content.contains("pool")) {
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, appPropsPath.get());
+            if (hits.containsAny("hikari", "pool")) {
                 results.add(new DetectionResult(
                     "Connection Pool",
                     "Connection Pool",
@@ -374,16 +424,16 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         return results;
     }
     
-    private List<DetectionResult> detectMigrations(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectMigrations(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check for migration files and tools
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            String content = FileScanner.readFileAsString(pomPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, pomPath.get());
             
             for (Map.Entry<String, String> tool : MIGRATION_TOOLS.entrySet()) {
-                if (content.contains(tool.getKey())) {
+                if (hits.contains(tool.getKey())) {
                     results.add(new DetectionResult(
                         tool.getValue(),
                         "Migration Tool",
@@ -396,7 +446,7 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check for migration directories
-        Optional<Path> migrationDir = FileScanner.findFile(projectRoot, "db");
+        Optional<Path> migrationDir = index.findFile("db");
         if (migrationDir.isPresent()) {
             results.add(new DetectionResult(
                 "Migrations",
@@ -408,7 +458,7 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check for Alembic (Python)
-        Optional<Path> alembicPath = FileScanner.findFile(projectRoot, "alembic.ini");
+        Optional<Path> alembicPath = index.findFile("alembic.ini");
         if (alembicPath.isPresent()) {
             results.add(new DetectionResult(
                 "Alembic",
@@ -420,7 +470,7 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check for Django migrations
-        Optional<Path> djangoMigPath = FileScanner.findFile(projectRoot, "migrations");
+        Optional<Path> djangoMigPath = index.findFile("migrations");
         if (djangoMigPath.isPresent()) {
             results.add(new DetectionResult(
                 "Django Migrations",
@@ -432,12 +482,12 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         }
         
         // Check package.json for migration tools
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String content = FileScanner.readFileAsString(packageJsonPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, packageJsonPath.get());
             
             for (Map.Entry<String, String> tool : MIGRATION_TOOLS.entrySet()) {
-                if (content.contains(tool.getKey())) {
+                if (hits.contains(tool.getKey())) {
                     results.add(new DetectionResult(
                         tool.getValue(),
                         "Migration Tool",
@@ -452,15 +502,15 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
         return results;
     }
     
-    private List<DetectionResult> detectFromConfig(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectFromConfig(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check configuration files for datasource info
-        Optional<Path> appPropsPath = FileScanner.findFile(projectRoot, "application.properties");
+        Optional<Path> appPropsPath = index.findFile("application.properties");
         if (appPropsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(appPropsPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, appPropsPath.get());
             
-            if (content.contains("spring.datasource") || content.contains("datasource")) {
+            if (hits.containsAny("spring.datasource", "datasource")) {
                 results.add(new DetectionResult(
                     "Datasource Configuration",
                     "Data Layer Config",
@@ -470,7 +520,7 @@ public class DataLayerAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("spring.jpa")) {
+            if (hits.contains("spring.jpa")) {
                 results.add(new DetectionResult(
                     "JPA Configuration",
                     "Data Layer Config",
@@ -3,8 +3,8 @@ package io.explainit.analyzer;
 import io.explainit.dto.AnalysisResult;
 import io.explainit.dto.FrameworkAnalysisResult;
 import io.explainit.dto.FrameworkDetectionResult;
-import io.explainit.util.FileScanner;
 import io.explainit.util.PomParser;
+import io.explainit.util.ProjectIndex;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -15,11 +15,16 @@ import java.util.*;
 public class FrameworkAnalyzer implements IProjectAnalyzer {
     
     @Override
-    public AnalysisResult analyze(Path projectRoot) throws Exception {
+    public Set<String> consumedFileNames() {
+        return FrameworkDetector.CONSUMED_FILES;
+    }
+    
+    @Override
+    public AnalysisResult analyze(ProjectIndex index) throws Exception {
         FrameworkAnalysisResult result = new FrameworkAnalysisResult();
         
         // Run framework detection
-        FrameworkDetectionResult detection = FrameworkDetector.detect(projectRoot);
+        FrameworkDetectionResult detection = FrameworkDetector.detect(index);
         
         // Set primary language and framework
         result.setPrimaryLanguage(detection.getPrimaryLanguage());
@@ -30,7 +35,7 @@ public class FrameworkAnalyzer implements IProjectAnalyzer {
         }
         
         // Detect version based on primary language
-        result.setPrimaryFrameworkVersion(detectFrameworkVersion(projectRoot, detection.getPrimaryLanguage()));
+        result.setPrimaryFrameworkVersion(detectFrameworkVersion(index, detection.getPrimaryLanguage()));
         
         // Determine ecosystem type
         result.setEcosystemType(determineEcosystem(detection.getPrimaryLanguage()));
@@ -42,13 +47,13 @@ public class FrameworkAnalyzer implements IProjectAnalyzer {
         return result;
     }
     
-    private String detectFrameworkVersion(Path projectRoot, String language) {
+    private String detectFrameworkVersion(ProjectIndex index, String language) {
         try {
             switch(language) {
                 case "Java":
-                    Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+                    Optional<Path> pomPath = index.findFile("pom.xml");
                     if (pomPath.isPresent()) {
-                        return PomParser.getSpringBootVersion(pomPath.get());
+                        return PomParser.getSpringBootVersion(index.readFileAsString(pomPath.get()));
                     }
                     return "Unknown";
                 default:
@@ -2,8 +2,9 @@ package io.explainit.analyzer;
 
 import io.explainit.dto.DetectionResult;
 import io.explainit.dto.FrameworkDetectionResult;
-import io.explainit.util.FileScanner;
 import io.explainit.util.PomParser;
+import io.explainit.util.ProjectIndex;
+import io.explainit.util.SignatureEngine;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -145,35 +146,55 @@ public class FrameworkDetector {
         ))
     );
     
+    // Keywords matched through the shared signature automaton
+    static final Set<String> SIGNATURES = collectSignatures();
+    
+    // Files whose content detect() reads
+    static final Set<String> CONSUMED_FILES = Set.of(
+        "pom.xml", "build.gradle", "pyproject.toml", ".python-version",
+        "package.json", ".nvmrc", "requirements.txt"
+    );
+    
+    private static Set<String> collectSignatures() {
+        Set<String> signatures = new LinkedHashSet<>();
+        signatures.addAll(JAVA_FRAMEWORKS.keySet());
+        signatures.addAll(PYTHON_FRAMEWORKS.keySet());
+        signatures.addAll(NODE_FRAMEWORKS.keySet());
+        for (FrameworkSignature sig : JAVA_FRAMEWORKS.values()) {
+            signatures.addAll(sig.dependencies);
+        }
+        return signatures;
+    }
+    
     /**
      * Detects frameworks and build systems in a project.
      * 
-     * @param projectRoot The root path of the project
+     * @param index The pre-built index of the project tree
      * @return A FrameworkDetectionResult with confidence scores
      * @throws IOException If an I/O error occurs
      */
-    public static FrameworkDetectionResult detect(Path projectRoot) throws IOException {
+    public static FrameworkDetectionResult detect(ProjectIndex index) throws IOException {
         // Detect languages with weights
-        String primaryLanguage = detectPrimaryLanguage(projectRoot);
-        String languageVersion = detectLanguageVersion(projectRoot, primaryLanguage);
-        List<String> allLanguages = detectAllLanguages(projectRoot);
+        String primaryLanguage = detectPrimaryLanguage(index);
+        String languageVersion = detectLanguageVersion(index, primaryLanguage);
+        List<String> allLanguages = detectAllLanguages(index);
         
         // Detect frameworks based on primary language
-        List<DetectionResult> frameworks = detectFrameworksByLanguage(projectRoot, primaryLanguage);
+        List<DetectionResult> frameworks = detectFrameworksByLanguage(index, primaryLanguage);
         
         // Detect build system
-        DetectionResult buildSystem = detectBuildSystem(projectRoot, primaryLanguage);
+        DetectionResult buildSystem = detectBuildSystem(index, primaryLanguage);
         
         return new FrameworkDetectionResult(primaryLanguage, languageVersion, frameworks, buildSystem, allLanguages);
     }
     
-    private static String detectPrimaryLanguage(Path projectRoot) throws IOException {
+    private static String detectPrimaryLanguage(ProjectIndex index) throws IOException {
         Map<String, Integer> scores = new HashMap<>();
         
-        scores.put("Java", scoreLanguage(projectRoot, JAVA_FILE_WEIGHTS));
-        scores.put("Python", scoreLanguage(projectRoot, PYTHON_FILE_WEIGHTS));
-        scores.put("TypeScript", scoreLanguage(projectRoot, TYPESCRIPT_FILE_WEIGHTS));
-        scores.put("JavaScript", scoreLanguage(projectRoot, JAVASCRIPT_FILE_WEIGHTS));
+        scores.put("Java", scoreLanguage(index, JAVA_FILE_WEIGHTS));
+        scores.put("Python", scoreLanguage(index, PYTHON_FILE_WEIGHTS));
+        scores.put("TypeScript", scoreLanguage(index, TYPESCRIPT_FILE_WEIGHTS));
+        scores.put("JavaScript", scoreLanguage(index, JAVASCRIPT_FILE_WEIGHTS));
         
         return scores.entrySet().stream()
             .max(Map.Entry.comparingByValue())
@@ -181,9 +202,9 @@ public class FrameworkDetector {
             .orElse("Unknown");
     }
     
-    private static int scoreLanguage(Path projectRoot, Map<String, Integer> weights) throws IOException {
+    private static int scoreLanguage(ProjectIndex index, Map<String, Integer> weights) throws IOException {
         int score = 0;
-        Set<String> extensions = FileScanner.getAllFileExtensions(projectRoot);
+        Set<String> extensions = index.getAllFileExtensions();
         
         for (Map.Entry<String, Integer> entry : weights.entrySet()) {
             if (extensions.contains(entry.getKey())) {
@@ -201,38 +222,38 @@ public class FrameworkDetector {
         return score;
     }
     
-    private static String detectLanguageVersion(Path projectRoot, String primaryLanguage) throws IOException {
+    private static String detectLanguageVersion(ProjectIndex index, String primaryLanguage) throws IOException {
         switch (primaryLanguage) {
             case "Java":
-                return detectJavaVersion(projectRoot);
+                return detectJavaVersion(index);
             case "Python":
-                return detectPythonVersion(projectRoot);
+                return detectPythonVersion(index);
             case "JavaScript":
             case "TypeScript":
-                return detectNodeVersion(projectRoot);
+                return detectNodeVersion(index);
             default:
                 return "Unknown";
         }
     }
     
-    private static String detectJavaVersion(Path projectRoot) throws IOException {
+    private static String detectJavaVersion(ProjectIndex index) throws IOException {
         // Check pom.xml
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            String pomContent = FileScanner.readFileAsString(pomPath.get());
+            String pomContent = index.readFileAsString(pomPath.get());
             Pattern versionPattern = Pattern.compile("<java\\.version>([^<]+)</java\\.version>");
-            var matcher = versionPattern.matcher(pomContent);
+            var matcher = index.matcher(versionPattern, pomContent);
             if (matcher.find()) {
                 return matcher.group(1);
             }
         }
         
         // Check gradle
-        Optional<Path> gradlePath = FileScanner.findFile(projectRoot, "build.gradle");
+        Optional<Path> gradlePath = index.findFile("build.gradle");
         if (gradlePath.isPresent()) {
-            String gradleContent = FileScanner.readFileAsString(gradlePath.get());
+            String gradleContent = index.readFileAsString(gradlePath.get());
             Pattern versionPattern = Pattern.compile("sourceCompatibility = '([^']+)'|sourceCompatibility = \"([^\"]+)\"");
-            var matcher = versionPattern.matcher(gradleContent);
+            var matcher = index.matcher(versionPattern, gradleContent);
             if (matcher.find()) {
                 return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
             }
@@ -241,51 +262,51 @@ public class FrameworkDetector {
         return "Unknown";
     }
     
-    private static String detectPythonVersion(Path projectRoot) throws IOException {
+    private static String detectPythonVersion(ProjectIndex index) throws IOException {
         // Check pyproject.toml
-        Optional<Path> pyprojectPath = FileScanner.findFile(projectRoot, "pyproject.toml");
+        Optional<Path> pyprojectPath = index.findFile("pyproject.toml");
         if (pyprojectPath.isPresent()) {
-            String content = FileScanner.readFileAsString(pyprojectPath.get());
+            String content = index.readFileAsString(pyprojectPath.get());
             Pattern versionPattern = Pattern.compile("python\\s*=\\s*\"([^\"]+)\"");
-            var matcher = versionPattern.matcher(content);
+            var matcher = index.matcher(versionPattern, content);
             if (matcher.find()) {
                 return matcher.group(1);
             }
         }
         
         // Check .python-version file
-        Optional<Path> pythonVersionPath = FileScanner.findFile(projectRoot, ".python-version");
+        Optional<Path> pythonVersionPath = index.findFile(".python-version");
         if (pythonVersionPath.isPresent()) {
-            String version = FileScanner.readFileAsString(pythonVersionPath.get()).trim();
+            String version = index.readFileAsString(pythonVersionPath.get()).trim();
             return version.split("\n")[0]; // First line
         }
         
         return "Unknown";
     }
     
-    private static String detectNodeVersion(Path projectRoot) throws IOException {
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+    private static String detectNodeVersion(ProjectIndex index) throws IOException {
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String content = FileScanner.readFileAsString(packageJsonPath.get());
+            String content = index.readFileAsString(packageJsonPath.get());
             Pattern versionPattern = Pattern.compile("\"engines\"\\s*:\\s*\\{\\s*\"node\"\\s*:\\s*\"([^\"]+)\"");
-            var matcher = versionPattern.matcher(content);
+            var matcher = index.matcher(versionPattern, content);
             if (matcher.find()) {
                 return matcher.group(1);
             }
         }
         
         // Check .nvmrc file
-        Optional<Path> nvmrcPath = FileScanner.findFile(projectRoot, ".nvmrc");
+        Optional<Path> nvmrcPath = index.findFile(".nvmrc");
         if (nvmrcPath.isPresent()) {
-            String version = FileScanner.readFileAsString(nvmrcPath.get()).trim();
+            String version = index.readFileAsString(nvmrcPath.get()).trim();
             return version.split("\n")[0];
         }
         
         return "Unknown";
     }
     
-    private static List<String> detectAllLanguages(Path projectRoot) throws IOException {
-        Set<String> extensions = FileScanner.getAllFileExtensions(projectRoot);
+    private static List<String> detectAllLanguages(ProjectIndex index) throws IOException {
+        Set<String> extensions = index.getAllFileExtensions();
         Set<String> languages = new LinkedHashSet<>();
         
         if (extensions.contains("java")) languages.add("Java");
@@ -301,36 +322,45 @@ public class FrameworkDetector {
         return new ArrayList<>(languages);
     }
     
-    private static List<DetectionResult> detectFrameworksByLanguage(Path projectRoot, String primaryLanguage) throws IOException {
+    private static List<DetectionResult> detectFrameworksByLanguage(ProjectIndex index, String primaryLanguage) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         switch (primaryLanguage) {
             case "Java":
-                results.addAll(detectJavaFrameworks(projectRoot));
+                results.addAll(detectJavaFrameworks(index));
                 break;
             case "Python":
-                results.addAll(detectPythonFrameworks(projectRoot));
+                results.addAll(detectPythonFrameworks(index));
                 break;
             case "JavaScript":
             case "TypeScript":
-                results.addAll(detectNodeFrameworks(projectRoot));
+                results.addAll(detectNodeFrameworks(index));
                 break;
         }
         
         return results;
     }
     
-    private static List<DetectionResult> detectJavaFrameworks(Path projectRoot) throws IOException {
+    private static List<DetectionResult> detectJavaFrameworks(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(pomPath.get());
+            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(index.readFileAsString(pomPath.get()));
+            
+            // Scan each coordinate once instead of once per framework keyword
+            List<SignatureEngine.Hits> artifactHits = new ArrayList<>();
+            List<SignatureEngine.Hits> groupHits = new ArrayList<>();
+            for (PomParser.Dependency dep : deps) {
+                artifactHits.add(AnalyzerSignatures.ENGINE.scan(dep.artifactId));
+                groupHits.add(AnalyzerSignatures.ENGINE.scan(dep.groupId));
+            }
             
             for (FrameworkSignature sig : JAVA_FRAMEWORKS.values()) {
-                for (PomParser.Dependency dep : deps) {
+                for (int i = 0; i < deps.size(); i++) {
+                    PomParser.Dependency dep = deps.get(i);
                     for (String keyword : sig.dependencies) {
-                        if (dep.artifactId.contains(keyword) || dep.groupId.contains(keyword)) {
+                        if (artifactHits.get(i).contains(keyword) || groupHits.get(i).contains(keyword)) {
                             results.add(new DetectionResult(
                                 sig.name,
                                 "Framework",
@@ -346,12 +376,12 @@ public class FrameworkDetector {
             }
         }
         
-        Optional<Path> gradlePath = FileScanner.findFile(projectRoot, "build.gradle");
+        Optional<Path> gradlePath = index.findFile("build.gradle");
         if (gradlePath.isPresent()) {
-            String gradleContent = FileScanner.readFileAsString(gradlePath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, gradlePath.get());
             
             for (String key : JAVA_FRAMEWORKS.keySet()) {
-                if (gradleContent.contains(key)) {
+                if (hits.contains(key)) {
                     FrameworkSignature sig = JAVA_FRAMEWORKS.get(key);
                     results.add(new DetectionResult(
                         sig.name,
@@ -367,15 +397,15 @@ public class FrameworkDetector {
         return results;
     }
     
-    private static List<DetectionResult> detectPythonFrameworks(Path projectRoot) throws IOException {
+    private static List<DetectionResult> detectPythonFrameworks(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
-        Optional<Path> requirementsPath = FileScanner.findFile(projectRoot, "requirements.txt");
+        Optional<Path> requirementsPath = index.findFile("requirements.txt");
         if (requirementsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(requirementsPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, requirementsPath.get());
             
             for (String key : PYTHON_FRAMEWORKS.keySet()) {
-                if (content.contains(key)) {
+                if (hits.contains(key)) {
                     FrameworkSignature sig = PYTHON_FRAMEWORKS.get(key);
                     results.add(new DetectionResult(
                         sig.name,
@@ -389,7 +419,7 @@ public class FrameworkDetector {
         }
         
         // Check for common Python framework files
-        Optional<Path> managePyPath = FileScanner.findFile(projectRoot, "manage.py");
+        Optional<Path> managePyPath = index.findFile("manage.py");
         if (managePyPath.isPresent()) {
             results.add(new DetectionResult(
                 "Django",
@@ -400,7 +430,7 @@ public class FrameworkDetector {
             ));
         }
         
-        Optional<Path> appPyPath = FileScanner.findFile(projectRoot, "app.py");
+        Optional<Path> appPyPath = index.findFile("app.py");
         if (appPyPath.isPresent()) {
             results.add(new DetectionResult(
                 "Flask",
@@ -414,15 +444,15 @@ public class FrameworkDetector {
         return results;
     }
     
-    private static List<DetectionResult> detectNodeFrameworks(Path projectRoot) throws IOException {
+    private static List<DetectionResult> detectNodeFrameworks(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String content = FileScanner.readFileAsString(packageJsonPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, packageJsonPath.get());
             
             for (String key : NODE_FRAMEWORKS.keySet()) {
-                if (content.contains(key)) {
+                if (hits.contains(key)) {
                     FrameworkSignature sig = NODE_FRAMEWORKS.get(key);
                     results.add(new DetectionResult(
                         sig.name,
@@ -438,10 +468,10 @@ public class FrameworkDetector {
         return results;
     }
     
-    private static DetectionResult detectBuildSystem(Path projectRoot, String primaryLanguage) throws IOException {
+    private static DetectionResult detectBuildSystem(ProjectIndex index, String primaryLanguage) throws IOException {
         switch (primaryLanguage) {
             case "Java":
-                if (FileScanner.fileExists(projectRoot, "pom.xml")) {
+                if (index.fileExists("pom.xml")) {
                     return new DetectionResult(
                         "Maven",
                         "Build System",
@@ -450,7 +480,7 @@ public class FrameworkDetector {
                         Arrays.asList("File: pom.xml")
                     );
                 }
-                if (FileScanner.fileExists(projectRoot, "build.gradle")) {
+                if (index.fileExists("build.gradle")) {
                     return new DetectionResult(
                         "Gradle",
                         "Build System",
@@ -462,7 +492,7 @@ public class FrameworkDetector {
                 break;
                 
             case "Python":
-                if (FileScanner.fileExists(projectRoot, "pyproject.toml")) {
+                if (index.fileExists("pyproject.toml")) {
                     return new DetectionResult(
                         "Poetry/Pip",
                         "Build System",
@@ -471,7 +501,7 @@ public class FrameworkDetector {
                         Arrays.asList("File: pyproject.toml")
                     );
                 }
-                if (FileScanner.fileExists(projectRoot, "requirements.txt")) {
+                if (index.fileExists("requirements.txt")) {
                     return new DetectionResult(
                         "Pip",
                         "Build System",
@@ -484,7 +514,7 @@ public class FrameworkDetector {
                 
             case "JavaScript":
             case "TypeScript":
-                if (FileScanner.fileExists(projectRoot, "package.json")) {
+                if (index.fileExists("package.json")) {
                     return new DetectionResult(
                         "NPM",
                         "Build System",
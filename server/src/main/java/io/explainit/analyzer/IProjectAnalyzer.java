@@ -1,7 +1,8 @@
 package io.explainit.analyzer;
 
 import io.explainit.dto.AnalysisResult;
-import java.nio.file.Path;
+import io.explainit.util.ProjectIndex;
+import java.util.Set;
 
 /**
  * Base interface for all project analyzers.
@@ -11,9 +12,25 @@ public interface IProjectAnalyzer {
     /**
      * Analyze a project and return structured results.
      * 
-     * @param projectRoot Path to the project root directory
+     * @param index Pre-built index of the project tree, shared by all analyzers
      * @return AnalysisResult containing analyzer-specific structured data
      * @throws Exception if analysis fails
      */
-    AnalysisResult analyze(Path projectRoot) throws Exception;
+    AnalysisResult analyze(ProjectIndex index) throws Exception;
+
+    /**
+     * File names whose content this analyzer reads, e.g. "pom.xml".
+     * Used to decide which archive entries are worth extracting; files that are
+     * only looked up or counted do not need to be listed.
+     */
+    default Set<String> consumedFileNames() {
+        return Set.of();
+    }
+
+    /**
+     * Extensions, without the dot, of files whose content this analyzer reads.
+     */
+    default Set<String> consumedExtensions() {
+        return Set.of();
+    }
 }
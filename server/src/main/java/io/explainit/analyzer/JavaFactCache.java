@@ -0,0 +1,351 @@
+package io.explainit.analyzer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.explainit.util.ProjectIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Facts about Java source files keyed by content hash, shared by every analysis.
+ * An unchanged file is parsed once and its facts are reused by all later analyses,
+ * so re-analyzing a project only runs the analyzers' patterns over files that changed.
+ * Entries are held in memory, evicted in least-recently-used order by count, and
+ * optionally appended to a log on disk that is replayed on first use after a restart.
+ * The lock guarding the entries is only held to read or update the map: appending to,
+ * flushing and compacting the log happen under a separate writer lock, and replaying it
+ * under a load lock, so lookups never wait on disk except for the first replay.
+ */
+public class JavaFactCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JavaFactCache.class);
+
+    // Bump when the facts extracted from a file change so stale logs are ignored
+    private static final String FORMAT_VERSION = "v1";
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private final Path logFile;
+    private final int maxEntries;
+    private final JsonMapper mapper = JsonMapper.builder()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .build();
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, JavaFileFacts> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    // Concurrent analyzers asking about the same new file wait for one extraction
+    private final Map<String, CompletableFuture<JavaFileFacts>> pending = new ConcurrentHashMap<>();
+    // Held while the log is replayed; lookups wait for that, but not for each other
+    private final Object loadLock = new Object();
+    private volatile boolean loaded;
+    // Guarded by writerLock, so disk writes never hold up lookups; taken before this, never after
+    private final Object writerLock = new Object();
+    private BufferedWriter logWriter;
+    private long logLines;
+    // Lines appended while the log is compacted, to be carried over to the compacted log; null otherwise
+    private List<String> appendedDuringCompaction;
+
+    /**
+     * Create a cache held in memory only.
+     */
+    public JavaFactCache() {
+        this(null, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param directory Where the log is kept, or null to keep facts in memory only
+     * @param maxEntries Number of files whose facts are kept
+     */
+    public JavaFactCache(Path directory, int maxEntries) {
+        this.logFile = directory == null ? null : directory.resolve("java-facts-" + FORMAT_VERSION + ".jsonl");
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Look up a file's facts by its content hash, extracting them if the content is new.
+     * An extraction given up because its own analysis was cancelled or timed out is not
+     * shared: analyses waiting on it extract the file themselves instead.
+     */
+    JavaFileFacts get(ProjectIndex index, Path javaFile) throws IOException, InterruptedException {
+        String hash = index.contentHash(javaFile);
+        while (true) {
+            JavaFileFacts facts = lookup(hash);
+            if (facts != null) {
+                index.countFactLookup(true);
+                return facts;
+            }
+
+            CompletableFuture<JavaFileFacts> extraction = new CompletableFuture<>();
+            CompletableFuture<JavaFileFacts> existing = pending.putIfAbsent(hash, extraction);
+            if (existing != null) {
+                facts = await(existing);
+                if (facts != null) {
+                    index.countFactLookup(true);
+                    return facts;
+                }
+                // Abandoned by the analysis extracting it; whoever gets here first takes over
+                continue;
+            }
+            index.countFactLookup(false);
+            try {
+                facts = JavaFileFacts.extract(index, javaFile);
+                store(hash, facts);
+                extraction.complete(facts);
+                return facts;
+            } catch (Throwable e) {
+                // Removed before completing, so waiters that retry do not find it again
+                pending.remove(hash, extraction);
+                if (abandoned(e)) {
+                    extraction.complete(null);
+                } else {
+                    extraction.completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                pending.remove(hash, extraction);
+            }
+        }
+    }
+
+    /**
+     * @return true if the extraction stopped because its analysis no longer wants it,
+     *         rather than because the file cannot be read or parsed
+     */
+    private static boolean abandoned(Throwable e) {
+        return e instanceof CancellationException || e instanceof InterruptedException
+            || e instanceof InterruptedIOException || e instanceof ClosedByInterruptException
+            || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * @return Facts extracted by another analysis, or null if it abandoned the extraction
+     */
+    private static JavaFileFacts await(CompletableFuture<JavaFileFacts> extraction)
+            throws IOException, InterruptedException {
+        try {
+            return extraction.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private JavaFileFacts lookup(String hash) {
+        if (!loaded) {
+            load();
+        }
+        synchronized (this) {
+            return entries.get(hash);
+        }
+    }
+
+    private void store(String hash, JavaFileFacts facts) {
+        synchronized (this) {
+            put(hash, facts);
+        }
+        if (logFile == null) {
+            return;
+        }
+        String line = mapper.writeValueAsString(new LogEntry(hash, facts));
+        List<Map.Entry<String, JavaFileFacts>> snapshot = null;
+        synchronized (writerLock) {
+            try {
+                append(line);
+            } catch (IOException e) {
+                log.warn("Failed to store Java file facts: {}", e.getMessage());
+                return;
+            }
+            if (appendedDuringCompaction != null) {
+                appendedDuringCompaction.add(line);
+            } else if (logLines > 2L * maxEntries) {
+                // The entry was put before its line was appended, so the snapshot covers every line so far
+                appendedDuringCompaction = new ArrayList<>();
+                snapshot = snapshot();
+            }
+        }
+        if (snapshot != null) {
+            compact(snapshot);
+        }
+    }
+
+    private synchronized List<Map.Entry<String, JavaFileFacts>> snapshot() {
+        List<Map.Entry<String, JavaFileFacts>> snapshot = new ArrayList<>(entries.size());
+        for (Map.Entry<String, JavaFileFacts> entry : entries.entrySet()) {
+            snapshot.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        return snapshot;
+    }
+
+    private void append(String line) throws IOException {
+        if (logWriter == null) {
+            Files.createDirectories(logFile.getParent());
+            logWriter = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        logWriter.write(line);
+        logWriter.newLine();
+        logLines++;
+    }
+
+    private void put(String hash, JavaFileFacts facts) {
+        entries.put(hash, facts);
+        Iterator<Map.Entry<String, JavaFileFacts>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private void load() {
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            if (logFile != null) {
+                replay();
+            }
+            loaded = true;
+        }
+    }
+
+    private void replay() {
+        long lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                LogEntry entry;
+                try {
+                    entry = mapper.readValue(line, LogEntry.class);
+                } catch (RuntimeException e) {
+                    // A line cut short by a crash; everything before it is still good
+                    entry = null;
+                }
+                lines++;
+                if (entry != null) {
+                    synchronized (this) {
+                        put(entry.hash, entry.facts);
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing stored yet
+        } catch (IOException e) {
+            log.warn("Failed to read Java file facts: {}", e.getMessage());
+        }
+        synchronized (writerLock) {
+            logLines += lines;
+        }
+    }
+
+    /**
+     * Rewrite the log with only the entries held when the snapshot was taken, dropping evicted
+     * and duplicate lines. Facts stored meanwhile keep going to the old log and are carried over.
+     */
+    private void compact(List<Map.Entry<String, JavaFileFacts>> snapshot) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(logFile.getParent(), "java-facts", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, JavaFileFacts> entry : snapshot) {
+                    writer.write(mapper.writeValueAsString(new LogEntry(entry.getKey(), entry.getValue())));
+                    writer.newLine();
+                }
+            }
+            synchronized (writerLock) {
+                if (logWriter != null) {
+                    logWriter.close();
+                    logWriter = null;
+                }
+                Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logLines = snapshot.size();
+                for (String line : appendedDuringCompaction) {
+                    append(line);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to compact Java file facts: {}", e.getMessage());
+        } finally {
+            synchronized (writerLock) {
+                appendedDuringCompaction = null;
+            }
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Left for the next compaction to replace
+                }
+            }
+        }
+    }
+
+    /**
+     * Write facts appended since the last flush to disk.
+     */
+    public void flush() {
+        synchronized (writerLock) {
+            if (logWriter == null) {
+                return;
+            }
+            try {
+                logWriter.flush();
+            } catch (IOException e) {
+                log.warn("Failed to store Java file facts: {}", e.getMessage());
+            }
+        }
+    }
+
+    public void close() {
+        synchronized (writerLock) {
+            flush();
+            if (logWriter != null) {
+                try {
+                    logWriter.close();
+                } catch (IOException e) {
+                    // Already flushed
+                }
+                logWriter = null;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class LogEntry {
+        @JsonProperty("hash")
+        private String hash;
+
+        @JsonProperty("facts")
+        private JavaFileFacts facts;
+
+        private LogEntry() {
+        }
+
+        private LogEntry(String hash, JavaFileFacts facts) {
+            this.hash = hash;
+            this.facts = facts;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package io.explainit.analyzer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.explainit.util.ProjectIndex;
+import io.explainit.util.SignatureEngine;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What the entry point, API and data layer analyzers need to know about one Java source file.
+ * Facts depend on the file's content only, never on its path, so they can be cached by content
+ * hash and reused for an unchanged file in any later analysis; the analyzers re-aggregate them
+ * in file order, deriving class names and paths from where the file sits in the project.
+ */
+public class JavaFileFacts {
+
+    private static final Pattern MAIN_METHOD_PATTERN = Pattern.compile("public\\s+static\\s+void\\s+main\\s*\\(\\s*String\\s*\\[\\s*\\]");
+    private static final Pattern APPLICATION_RUNNER_PATTERN = Pattern.compile("implements\\s+ApplicationRunner");
+    private static final Pattern COMMAND_LINE_RUNNER_PATTERN = Pattern.compile("implements\\s+CommandLineRunner");
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("package\\s+([\\w.]+)\\s*;");
+    private static final Pattern METHOD_PATTERN = Pattern.compile("public\\s+\\w+\\s+(\\w+)\\s*\\(");
+    private static final Pattern ROUTE_PATTERN = Pattern.compile("@(Request|Get|Post|Put|Delete|Patch)Mapping\\s*\\(\\s*[\"']([^\"']+)[\"']");
+    private static final Pattern BASE_PATH_PATTERN = Pattern.compile("@RequestMapping\\s*\\(\\s*\"([^\"]+)\"");
+
+    @JsonProperty("packageName")
+    private String packageName = "";
+
+    @JsonProperty("springBootApplication")
+    private boolean springBootApplication;
+
+    @JsonProperty("mainMethod")
+    private boolean mainMethod;
+
+    // "ApplicationRunner", "CommandLineRunner" or null
+    @JsonProperty("runnerKind")
+    private String runnerKind;
+
+    @JsonProperty("controller")
+    private boolean controller;
+
+    @JsonProperty("secured")
+    private boolean secured;
+
+    @JsonProperty("hateoas")
+    private boolean hateoas;
+
+    // Public methods preceded by a mapping annotation, in source order
+    @JsonProperty("endpointMethods")
+    private List<String> endpointMethods = new ArrayList<>();
+
+    @JsonProperty("routes")
+    private List<Route> routes = new ArrayList<>();
+
+    // First class-level @RequestMapping path, used when no route was found
+    @JsonProperty("basePath")
+    private String basePath;
+
+    @JsonProperty("entity")
+    private boolean entity;
+
+    @JsonProperty("repository")
+    private boolean repository;
+
+    public JavaFileFacts() {
+    }
+
+    /**
+     * Scan a file and run the patterns each analyzer would, on the files its signatures single out.
+     */
+    static JavaFileFacts extract(ProjectIndex index, Path javaFile) throws IOException {
+        JavaFileFacts facts = new JavaFileFacts();
+        SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, javaFile);
+        facts.springBootApplication = hits.contains("@SpringBootApplication");
+        facts.controller = hits.containsAny("@RestController", "@Controller");
+        facts.secured = hits.containsAny("@PreAuthorize", "@Secured", "@RolesAllowed");
+        facts.hateoas = hits.containsAny("EntityModel", "CollectionModel", "RepresentationModel");
+        facts.entity = hits.containsAny("@Entity", "@Document");
+        facts.repository = hits.containsAny("@Repository", "extends Repository");
+
+        boolean mayHaveMain = hits.contains("main");
+        boolean mayBeRunner = hits.containsAny("ApplicationRunner", "CommandLineRunner");
+        if (!mayHaveMain && !mayBeRunner && !facts.controller) {
+            // Nothing else to learn, and most files end here without being matched against anything
+            return facts;
+        }
+
+        String content = index.readFileAsString(javaFile);
+        Matcher packageMatcher = index.matcher(PACKAGE_PATTERN, content);
+        if (packageMatcher.find()) {
+            facts.packageName = packageMatcher.group(1);
+        }
+        facts.mainMethod = mayHaveMain && index.matcher(MAIN_METHOD_PATTERN, content).find();
+        if (mayBeRunner) {
+            if (index.matcher(APPLICATION_RUNNER_PATTERN, content).find()) {
+                facts.runnerKind = "ApplicationRunner";
+            } else if (index.matcher(COMMAND_LINE_RUNNER_PATTERN, content).find()) {
+                facts.runnerKind = "CommandLineRunner";
+            }
+        }
+        if (facts.controller) {
+            extractEndpoints(index, content, facts);
+        }
+        return facts;
+    }
+
+    private static void extractEndpoints(ProjectIndex index, String content, JavaFileFacts facts) {
+        Matcher methodMatcher = index.matcher(METHOD_PATTERN, content);
+        while (methodMatcher.find()) {
+            int methodStart = methodMatcher.start();
+            String beforeMethod = content.substring(Math.max(0, methodStart - 200), methodStart);
+            if (beforeMethod.contains("@GetMapping") || beforeMethod.contains("@PostMapping") ||
+                beforeMethod.contains("@PutMapping") || beforeMethod.contains("@DeleteMapping") ||
+                beforeMethod.contains("@RequestMapping")) {
+                facts.endpointMethods.add(methodMatcher.group(1));
+            }
+        }
+
+        Matcher routeMatcher = index.matcher(ROUTE_PATTERN, content);
+        while (routeMatcher.find()) {
+            String method = routeMatcher.group(1).toUpperCase();
+            if ("REQUEST".equals(method)) method = "GET";
+            facts.routes.add(new Route(method, routeMatcher.group(2)));
+        }
+
+        Matcher basePathMatcher = index.matcher(BASE_PATH_PATTERN, content);
+        if (basePathMatcher.find()) {
+            facts.basePath = basePathMatcher.group(1);
+        }
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public boolean isSpringBootApplication() {
+        return springBootApplication;
+    }
+
+    public boolean hasMainMethod() {
+        return mainMethod;
+    }
+
+    public String getRunnerKind() {
+        return runnerKind;
+    }
+
+    public boolean isController() {
+        return controller;
+    }
+
+    public boolean isSecured() {
+        return secured;
+    }
+
+    public boolean usesHateoas() {
+        return hateoas;
+    }
+
+    public List<String> getEndpointMethods() {
+        return endpointMethods;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+
+    public boolean isEntity() {
+        return entity;
+    }
+
+    public boolean isRepository() {
+        return repository;
+    }
+
+    public static class Route {
+
+        @JsonProperty("method")
+        private String method;
+
+        @JsonProperty("path")
+        private String path;
+
+        public Route() {
+        }
+
+        public Route(String method, String path) {
+            this.method = method;
+            this.path = path;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package io.explainit.analyzer;
 
 import io.explainit.dto.AnalysisResult;
-import io.explainit.util.FileScanner;
-import java.nio.file.Path;
+import io.explainit.util.ProjectIndex;
 import java.util.*;
 
 /**
@@ -25,10 +24,10 @@ public class LanguageAnalyzer implements IProjectAnalyzer {
     );
     
     @Override
-    public AnalysisResult analyze(Path projectRoot) throws Exception {
+    public AnalysisResult analyze(ProjectIndex index) throws Exception {
         AnalysisResult result = new AnalysisResult("Language");
         
-        Set<String> extensions = FileScanner.getAllFileExtensions(projectRoot);
+        Set<String> extensions = index.getAllFileExtensions();
         Set<String> languages = new LinkedHashSet<>();
         
         for (String ext : extensions) {
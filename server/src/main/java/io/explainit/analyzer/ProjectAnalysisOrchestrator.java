@@ -1,8 +1,17 @@
 package io.explainit.analyzer;
 
 import io.explainit.dto.*;
+import io.explainit.jfr.AnalyzerRunEvent;
+import io.explainit.util.Cancellation;
+import io.explainit.util.ExtractionFilter;
+import io.explainit.util.ProjectIndex;
+import io.explainit.util.SignatureEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Central orchestrator that manages all project analyzers and aggregates results.
@@ -11,15 +20,79 @@ import java.util.*;
  */
 public class ProjectAnalysisOrchestrator {
     
-    private final List<IProjectAnalyzer> analyzers = Arrays.asList(
-        new FrameworkAnalyzer(),
-        new BuildInfoAnalyzer(),
-        new EntryPointAnalyzer(),
-        new ConfigFileAnalyzer(),
-        new DataLayerAnalyzer(),
-        new ApiAnalyzer()
-        // Add other analyzers as needed
-    );
+    private static final Logger log = LoggerFactory.getLogger(ProjectAnalysisOrchestrator.class);
+    
+    // How often to check whether a queued analyzer has started, and so started its timeout
+    private static final long START_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    // How long an analysis waits for interrupted analyzers to stop before leaving them to release the index
+    private static final long RELEASE_GRACE_NANOS = TimeUnit.SECONDS.toNanos(2);
+    
+    private final List<IProjectAnalyzer> analyzers;
+    
+    // Null means analyzers run sequentially on the calling thread
+    private final ExecutorService executor;
+    private final long analyzerTimeoutMillis;
+    private final JavaFactCache factCache;
+    
+    /**
+     * Create an orchestrator that runs analyzers one after another on the calling thread.
+     */
+    public ProjectAnalysisOrchestrator() {
+        this(null, 0);
+    }
+    
+    /**
+     * Create an orchestrator that runs analyzers concurrently on the given executor.
+     * The executor is owned by the caller and is not shut down by the orchestrator.
+     *
+     * @param executor Bounded executor shared by all analyses
+     * @param analyzerTimeoutMillis Maximum time to wait for each analyzer, measured from when it starts running
+     */
+    public ProjectAnalysisOrchestrator(ExecutorService executor, long analyzerTimeoutMillis) {
+        this(executor, analyzerTimeoutMillis, new JavaFactCache());
+    }
+    
+    /**
+     * Create an orchestrator whose analyzers reuse Java file facts across analyses.
+     *
+     * @param executor Bounded executor shared by all analyses, or null to run analyzers sequentially
+     * @param analyzerTimeoutMillis Maximum time to wait for each analyzer, measured from when it starts running
+     * @param factCache Facts about Java files by content hash, possibly shared with other orchestrators
+     */
+    public ProjectAnalysisOrchestrator(ExecutorService executor, long analyzerTimeoutMillis, JavaFactCache factCache) {
+        this.executor = executor;
+        this.analyzerTimeoutMillis = analyzerTimeoutMillis;
+        this.factCache = factCache;
+        this.analyzers = Arrays.asList(
+            new FrameworkAnalyzer(),
+            new BuildInfoAnalyzer(),
+            new EntryPointAnalyzer(factCache),
+            new ConfigFileAnalyzer(),
+            new DataLayerAnalyzer(factCache),
+            new ApiAnalyzer(factCache)
+            // Add other analyzers as needed
+        );
+    }
+    
+    /**
+     * @return Filter accepting every file whose content one of the analyzers reads
+     */
+    public ExtractionFilter extractionFilter() {
+        Set<String> fileNames = new HashSet<>();
+        Set<String> extensions = new HashSet<>();
+        for (IProjectAnalyzer analyzer : analyzers) {
+            fileNames.addAll(analyzer.consumedFileNames());
+            extensions.addAll(analyzer.consumedExtensions());
+        }
+        return new ExtractionFilter(fileNames, extensions);
+    }
+    
+    /**
+     * @return The engine analyzers scan file content with, for callers that scan ahead of the analysis
+     */
+    public SignatureEngine signatureEngine() {
+        return AnalyzerSignatures.ENGINE;
+    }
     
     /**
      * Orchestrate a complete project analysis, invoking all analyzers once
@@ -30,27 +103,280 @@ public class ProjectAnalysisOrchestrator {
      * @throws Exception if any analyzer fails
      */
     public ProjectMetadata analyzeProject(Path projectRoot) throws Exception {
+        // Walk the tree once; every analyzer queries this index instead of the filesystem
+        return analyzeProject(ProjectIndex.build(projectRoot));
+    }
+    
+    /**
+     * Orchestrate a complete project analysis over an already built index.
+     *
+     * @param index The pre-built index of the project tree
+     * @return Complete ProjectMetadata with all analysis results
+     * @throws Exception if any analyzer fails
+     */
+    public ProjectMetadata analyzeProject(ProjectIndex index) throws Exception {
+        return analyzeProject(index, AnalysisListener.NONE);
+    }
+    
+    /**
+     * Orchestrate a complete project analysis, reporting each analyzer's result
+     * to the listener as soon as it is available.
+     *
+     * @param index The pre-built index of the project tree
+     * @param listener Notified of every analyzer's outcome and result, in completion order
+     * @return Complete ProjectMetadata with all analysis results
+     * @throws CancellationException if the index' cancellation signal fires; running analyzers are interrupted
+     * @throws Exception if any analyzer fails
+     */
+    public ProjectMetadata analyzeProject(ProjectIndex index, AnalysisListener listener) throws Exception {
         ProjectMetadata metadata = new ProjectMetadata();
         
         // Extract project root name
-        String projectRootName = projectRoot.getFileName().toString();
+        String projectRootName = index.getRoot().getFileName().toString();
         metadata.setProjectRootName(projectRootName);
         
         // Invoke all analyzers and aggregate results
+        if (executor == null) {
+            runSequentially(index, metadata, listener);
+        } else {
+            runConcurrently(index, metadata, listener);
+        }
+        // Facts learned from new files survive a restart from here on
+        factCache.flush();
+        
+        // Generate comprehensive summary
+        long summaryStart = System.nanoTime();
+        generateSummary(metadata);
+        try {
+            listener.onPhaseFinished("summary", System.nanoTime() - summaryStart);
+        } catch (RuntimeException e) {
+            log.warn("Analysis listener failed", e);
+        }
+        
+        return metadata;
+    }
+    
+    private void runSequentially(ProjectIndex index, ProjectMetadata metadata, AnalysisListener listener) {
         for (IProjectAnalyzer analyzer : analyzers) {
             try {
-                AnalysisResult result = analyzer.analyze(projectRoot);
+                index.getCancellation().throwIfCancelled();
+                AnalysisResult result = runAnalyzer(analyzer, index, listener, new AtomicBoolean(), new AnalyzerRunEvent());
                 aggregateResult(metadata, result);
+            } catch (CancellationException e) {
+                throw e;
             } catch (Exception e) {
                 // Log but continue with other analyzers
-                System.err.println("Analyzer failed: " + e.getMessage());
+                log.warn("Analyzer {} failed", analyzer.getClass().getSimpleName(), e);
+                metadata.setPartial(true);
             }
         }
+    }
+    
+    /**
+     * Submit every analyzer at once, then collect results in declaration order
+     * so aggregation into ProjectMetadata is the same as in sequential mode.
+     * Each analyzer's timeout starts when it starts running, so time spent queued
+     * behind other analyses does not count against it. Analyzers that time out are
+     * interrupted and given a short grace period to stop; any still running after it
+     * hold the index, so closing it only closes its resources once they return.
+     */
+    private void runConcurrently(ProjectIndex index, ProjectMetadata metadata, AnalysisListener listener)
+            throws InterruptedException {
+        List<AnalyzerRun> runs = new ArrayList<>(analyzers.size());
+        for (IProjectAnalyzer analyzer : analyzers) {
+            AnalyzerRun run = new AnalyzerRun();
+            runs.add(run);
+            // Runs and reports on the analyzer thread so fast analyzers are reported without waiting for slow ones
+            run.future = executor.submit(() -> {
+                if (!run.start() || !index.acquire()) {
+                    run.released.countDown();
+                    throw new CancellationException("Analysis finished before the analyzer started");
+                }
+                try {
+                    return runAnalyzer(analyzer, index, listener, run.reported, run.event);
+                } finally {
+                    index.release();
+                    run.released.countDown();
+                }
+            });
+        }
         
-        // Generate comprehensive summary
-        generateSummary(metadata);
+        // Cancelling interrupts the analyzers and wakes up the wait below
+        Cancellation cancellation = index.getCancellation();
+        Cancellation.Registration registration = cancellation.onCancel(() -> runs.forEach(r -> r.future.cancel(true)));
         
-        return metadata;
+        try {
+            collect(runs, index, metadata, listener);
+        } finally {
+            registration.close();
+            awaitReleased(runs);
+        }
+    }
+    
+    private void collect(List<AnalyzerRun> runs, ProjectIndex index,
+                         ProjectMetadata metadata, AnalysisListener listener) throws InterruptedException {
+        Cancellation cancellation = index.getCancellation();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(analyzerTimeoutMillis);
+        for (int i = 0; i < analyzers.size(); i++) {
+            String analyzerName = analyzers.get(i).getClass().getSimpleName();
+            AnalyzerRun run = runs.get(i);
+            try {
+                aggregateResult(metadata, await(run, timeoutNanos));
+            } catch (TimeoutException e) {
+                run.future.cancel(true);
+                reportOutcome(listener, analyzerName, index, AnalysisListener.Outcome.TIMEOUT,
+                    System.nanoTime() - run.startedAt, run.reported, run.event);
+                log.warn("Analyzer {} timed out after {} ms", analyzerName, analyzerTimeoutMillis);
+                metadata.setPartial(true);
+            } catch (ExecutionException | CancellationException e) {
+                if (cancellation.isCancelled()) {
+                    runs.forEach(r -> r.future.cancel(true));
+                    throw new CancellationException("Analysis cancelled");
+                }
+                // Log but continue with other analyzers
+                log.warn("Analyzer {} failed", analyzerName, e.getCause() != null ? e.getCause() : e);
+                metadata.setPartial(true);
+            } catch (InterruptedException e) {
+                runs.forEach(r -> r.future.cancel(true));
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Wait for an analyzer's result for up to the timeout after it started running.
+     * While it is still queued, only check back periodically whether it has started.
+     */
+    private static AnalysisResult await(AnalyzerRun run, long timeoutNanos)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        while (true) {
+            if (run.hasStarted()) {
+                long remaining = Math.max(0, run.startedAt + timeoutNanos - System.nanoTime());
+                return run.future.get(remaining, TimeUnit.NANOSECONDS);
+            }
+            try {
+                return run.future.get(START_POLL_NANOS, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Still queued, or started since; either way look again
+            }
+        }
+    }
+    
+    /**
+     * Keep analyzers that have not started from ever starting, and wait a grace period for the
+     * interrupted ones to reach their next index checkpoint and return. One stuck in a single
+     * long parse or match does not hold up the request: it keeps its hold on the index instead.
+     */
+    private static void awaitReleased(List<AnalyzerRun> runs) {
+        long deadline = System.nanoTime() + RELEASE_GRACE_NANOS;
+        int stillRunning = 0;
+        for (AnalyzerRun run : runs) {
+            run.abandon();
+            try {
+                if (!run.released.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    stillRunning++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for analyzers to stop");
+                return;
+            }
+        }
+        if (stillRunning > 0) {
+            log.warn("{} interrupted analyzers still running; they release the index when they return", stillRunning);
+        }
+    }
+    
+    /**
+     * One analyzer's run within a concurrent analysis.
+     */
+    private static final class AnalyzerRun {
+        private final AtomicBoolean reported = new AtomicBoolean();
+        // Begun on the analyzer thread; committed by whichever reports the outcome
+        private final AnalyzerRunEvent event = new AnalyzerRunEvent();
+        // Counted down once the analyzer can no longer touch the index: finished, or abandoned before it started
+        private final CountDownLatch released = new CountDownLatch(1);
+        // Set by whichever comes first, the analyzer starting or the analysis abandoning it
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile boolean started;
+        private volatile long startedAt;
+        private Future<AnalysisResult> future;
+        
+        private boolean start() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            startedAt = System.nanoTime();
+            started = true;
+            return true;
+        }
+        
+        private boolean hasStarted() {
+            return started;
+        }
+        
+        private void abandon() {
+            if (claimed.compareAndSet(false, true)) {
+                released.countDown();
+            }
+        }
+    }
+    
+    /**
+     * Run one analyzer, timing it and reporting its outcome to the listener and as a JFR event.
+     * The reported flag makes sure an analyzer that finishes after it timed out is not reported twice.
+     */
+    private AnalysisResult runAnalyzer(IProjectAnalyzer analyzer, ProjectIndex index, AnalysisListener listener,
+                                       AtomicBoolean reported, AnalyzerRunEvent event) throws Exception {
+        String analyzerName = analyzer.getClass().getSimpleName();
+        event.begin();
+        long start = System.nanoTime();
+        AnalysisResult result;
+        try {
+            result = analyzer.analyze(index);
+        } catch (Exception e) {
+            AnalysisListener.Outcome outcome = index.getCancellation().isCancelled()
+                ? AnalysisListener.Outcome.CANCELLED : AnalysisListener.Outcome.FAILURE;
+            reportOutcome(listener, analyzerName, index, outcome, System.nanoTime() - start, reported, event);
+            throw e;
+        }
+        
+        if (reportOutcome(listener, analyzerName, index, AnalysisListener.Outcome.SUCCESS,
+                System.nanoTime() - start, reported, event)) {
+            try {
+                listener.onAnalyzerCompleted(analyzerName, result);
+            } catch (RuntimeException e) {
+                // A failing listener must not discard the analyzer's result
+                log.warn("Analysis listener failed", e);
+            }
+        }
+        return result;
+    }
+    
+    private static void commitRunEvent(AnalyzerRunEvent event, String analyzerName, ProjectIndex index,
+                                       AnalysisListener.Outcome outcome) {
+        if (event.shouldCommit()) {
+            event.digest = index.getDigest();
+            event.analyzer = analyzerName;
+            event.outcome = outcome.name().toLowerCase();
+            event.fileCount = index.countAllFiles();
+            event.commit();
+        }
+    }
+    
+    private boolean reportOutcome(AnalysisListener listener, String analyzerName, ProjectIndex index,
+                                  AnalysisListener.Outcome outcome, long durationNanos, AtomicBoolean reported,
+                                  AnalyzerRunEvent event) {
+        if (!reported.compareAndSet(false, true)) {
+            return false;
+        }
+        commitRunEvent(event, analyzerName, index, outcome);
+        try {
+            listener.onAnalyzerFinished(analyzerName, outcome, durationNanos);
+        } catch (RuntimeException e) {
+            log.warn("Analysis listener failed", e);
+        }
+        return true;
     }
     
     /**
@@ -91,7 +417,7 @@ public class ProjectAnalysisOrchestrator {
         BuildInfo buildInfo = new BuildInfo();
         buildInfo.setBuildTool(result.getBuildTool());
         buildInfo.setJavaVersion(result.getJavaVersion());
-        buildInfo.setDependencies(new ArrayList<>());
+        buildInfo.setDependencies(result.getDependencies() != null ? result.getDependencies() : new ArrayList<>());
         metadata.setBuildInfo(buildInfo);
         
         // Also store size info in ProjectMetadata
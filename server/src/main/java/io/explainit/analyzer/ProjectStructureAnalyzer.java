@@ -2,8 +2,7 @@ package io.explainit.analyzer;
 
 import io.explainit.dto.AnalysisResult;
 import io.explainit.dto.ProjectStructure;
-import io.explainit.util.FileScanner;
-import java.nio.file.Path;
+import io.explainit.util.ProjectIndex;
 
 /**
  * Analyzes project structure: directory layout, file counts, sizes, and organization.
@@ -11,16 +10,29 @@ import java.nio.file.Path;
 public class ProjectStructureAnalyzer implements IProjectAnalyzer {
     
     @Override
-    public AnalysisResult analyze(Path projectRoot) throws Exception {
+    public AnalysisResult analyze(ProjectIndex index) throws Exception {
         AnalysisResult result = new AnalysisResult("ProjectStructure");
         
+        describe(index);
+        
+        result.setSuccess(true);
+        return result;
+    }
+    
+    /**
+     * Describe the layout of a project from its index alone; no file content is read.
+     *
+     * @param index The pre-built index of the project tree
+     * @return Directory layout, file counts and size
+     */
+    public static ProjectStructure describe(ProjectIndex index) {
         ProjectStructure structure = new ProjectStructure();
         
         // Detect standard source directory
         String sourceDir = "src/main/java";
-        if (projectRoot.resolve(sourceDir).toFile().exists()) {
+        if (index.isDirectory(sourceDir)) {
             structure.setSourceDirectory(sourceDir);
-        } else if (projectRoot.resolve("src").toFile().exists()) {
+        } else if (index.isDirectory("src")) {
             structure.setSourceDirectory("src");
         } else {
             structure.setSourceDirectory("unknown");
@@ -28,7 +40,7 @@ public class ProjectStructureAnalyzer implements IProjectAnalyzer {
         
         // Detect resources directory
         String resourcesDir = "src/main/resources";
-        if (projectRoot.resolve(resourcesDir).toFile().exists()) {
+        if (index.isDirectory(resourcesDir)) {
             structure.setResourcesDirectory(resourcesDir);
         } else {
             structure.setResourcesDirectory("unknown");
@@ -36,32 +48,31 @@ public class ProjectStructureAnalyzer implements IProjectAnalyzer {
         
         // Detect test directory
         String testDir = "src/test/java";
-        if (projectRoot.resolve(testDir).toFile().exists()) {
+        if (index.isDirectory(testDir)) {
             structure.setTestDirectory(testDir);
-        } else if (projectRoot.resolve("test").toFile().exists()) {
+        } else if (index.isDirectory("test")) {
             structure.setTestDirectory("test");
         } else {
             structure.setTestDirectory("unknown");
         }
         
         // Count files and calculate metrics
-        long javaClassCount = FileScanner.countFilesByExtension(projectRoot, "java");
+        long javaClassCount = index.countFilesByExtension("java");
         structure.setCurrentClasses((int) javaClassCount);
         
         // Calculate total files, size, and directory count
-        long totalFiles = FileScanner.countAllFiles(projectRoot);
+        long totalFiles = index.countAllFiles();
         structure.setFileCount((int) totalFiles);
         
-        long totalSizeBytes = FileScanner.calculateTotalSize(projectRoot);
+        long totalSizeBytes = index.calculateTotalSize();
         double totalSizeMB = totalSizeBytes / (1024.0 * 1024.0);
         structure.setTotalSizeMB(Math.round(totalSizeMB * 100.0) / 100.0);
         
-        long directoryCount = FileScanner.countDirectories(projectRoot);
+        long directoryCount = index.countDirectories();
         structure.setDirectories((int) directoryCount);
         
-        structure.setRootPath(projectRoot.toString());
+        structure.setRootPath(index.getRoot().toString());
         
-        result.setSuccess(true);
-        return result;
+        return structure;
     }
 }
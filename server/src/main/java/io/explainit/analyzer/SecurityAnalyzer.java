@@ -2,8 +2,9 @@ package io.explainit.analyzer;
 
 import io.explainit.dto.AnalysisResult;
 import io.explainit.dto.DetectionResult;
-import io.explainit.util.FileScanner;
 import io.explainit.util.PomParser;
+import io.explainit.util.ProjectIndex;
+import io.explainit.util.SignatureEngine;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
@@ -59,34 +60,58 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         ))
     );
     
+    // Keywords matched through the shared signature automaton
+    static final Set<String> SIGNATURES = collectSignatures();
+    
+    private static Set<String> collectSignatures() {
+        Set<String> signatures = new LinkedHashSet<>(Arrays.asList(
+            "jsonwebtoken", "passport", "auth0",
+            "django-rest-framework", "djangorestframework", "pyjwt", "python-jose", "python-dotenv",
+            "bcryptjs", "crypto", "bcrypt", "cryptography",
+            "cors", "helmet",
+            "security", "secret", "password"
+        ));
+        for (SecuritySignature sig : SECURITY_FRAMEWORKS.values()) {
+            signatures.addAll(sig.keywords);
+        }
+        return signatures;
+    }
+    
+    @Override
+    public Set<String> consumedFileNames() {
+        return Set.of(
+            "pom.xml", "package.json", "requirements.txt", "application.properties", "CorsConfig.java"
+        );
+    }
+    
     @Override
-    public AnalysisResult analyze(Path projectRoot) throws Exception {
+    public AnalysisResult analyze(ProjectIndex index) throws Exception {
         AnalysisResult result = new AnalysisResult("Security");
         List<DetectionResult> securityDetections = new ArrayList<>();
         
         // Detect authentication mechanisms
-        securityDetections.addAll(detectAuthentication(projectRoot));
+        securityDetections.addAll(detectAuthentication(index));
         
         // Detect encryption
-        securityDetections.addAll(detectEncryption(projectRoot));
+        securityDetections.addAll(detectEncryption(index));
         
         // Detect CORS configuration
-        securityDetections.addAll(detectCORS(projectRoot));
+        securityDetections.addAll(detectCORS(index));
         
         // Detect security configuration files
-        securityDetections.addAll(detectSecurityConfigs(projectRoot));
+        securityDetections.addAll(detectSecurityConfigs(index));
         
         result.setSuccess(true);
         return result;
     }
     
-    private List<DetectionResult> detectAuthentication(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectAuthentication(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check Maven dependencies
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(pomPath.get());
+            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(index.readFileAsString(pomPath.get()));
             
             for (PomParser.Dependency dep : deps) {
                 // Spring Security
@@ -128,11 +153,11 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         }
         
         // Check npm dependencies
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String content = FileScanner.readFileAsString(packageJsonPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, packageJsonPath.get());
             
-            if (content.contains("jsonwebtoken")) {
+            if (hits.contains("jsonwebtoken")) {
                 results.add(new DetectionResult(
                     "JWT (JSON Web Tokens)",
                     "Authentication",
@@ -142,7 +167,7 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("passport")) {
+            if (hits.contains("passport")) {
                 results.add(new DetectionResult(
                     "Passport.js",
                     "Authentication",
@@ -152,7 +177,7 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("auth0")) {
+            if (hits.contains("auth0")) {
                 results.add(new DetectionResult(
                     "Auth0",
                     "Authentication",
@@ -164,11 +189,11 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         }
         
         // Check Python requirements
-        Optional<Path> requirementsPath = FileScanner.findFile(projectRoot, "requirements.txt");
+        Optional<Path> requirementsPath = index.findFile("requirements.txt");
         if (requirementsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(requirementsPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, requirementsPath.get());
             
-            if (content.contains("django-rest-framework") || content.contains("djangorestframework")) {
+            if (hits.containsAny("django-rest-framework", "djangorestframework")) {
                 results.add(new DetectionResult(
                     "Django REST Framework Auth",
                     "Authentication",
@@ -178,7 +203,7 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("pyjwt") || content.contains("python-jose")) {
+            if (hits.containsAny("pyjwt", "python-jose")) {
                 results.add(new DetectionResult(
                     "JWT (JSON Web Tokens)",
                     "Authentication",
@@ -188,7 +213,7 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("python-dotenv")) {
+            if (hits.contains("python-dotenv")) {
                 results.add(new DetectionResult(
                     "Environment-based Configuration",
                     "Authentication",
@@ -202,13 +227,13 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         return results;
     }
     
-    private List<DetectionResult> detectEncryption(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectEncryption(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check Maven dependencies
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(pomPath.get());
+            List<PomParser.Dependency> deps = PomParser.parsePomDependencies(index.readFileAsString(pomPath.get()));
             
             for (PomParser.Dependency dep : deps) {
                 // BCrypt
@@ -238,11 +263,11 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         }
         
         // Check npm dependencies
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String content = FileScanner.readFileAsString(packageJsonPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, packageJsonPath.get());
             
-            if (content.contains("bcryptjs")) {
+            if (hits.contains("bcryptjs")) {
                 results.add(new DetectionResult(
                     "BCryptjs (Password Hashing)",
                     "Encryption",
@@ -252,7 +277,7 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("crypto")) {
+            if (hits.contains("crypto")) {
                 results.add(new DetectionResult(
                     "Node.js Crypto Module",
                     "Encryption",
@@ -264,11 +289,11 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         }
         
         // Check Python requirements
-        Optional<Path> requirementsPath = FileScanner.findFile(projectRoot, "requirements.txt");
+        Optional<Path> requirementsPath = index.findFile("requirements.txt");
         if (requirementsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(requirementsPath.get());
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, requirementsPath.get());
             
-            if (content.contains("bcrypt")) {
+            if (hits.contains("bcrypt")) {
                 results.add(new DetectionResult(
                     "BCrypt (Password Hashing)",
                     "Encryption",
@@ -278,7 +303,7 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("cryptography")) {
+            if (hits.contains("cryptography")) {
                 results.add(new DetectionResult(
                     "Cryptography Library",
                     "Encryption",
@@ -292,13 +317,13 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         return results;
     }
     
-    private List<DetectionResult> detectCORS(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectCORS(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check for CORS config files
-        Optional<Path> corsConfigPath = FileScanner.findFile(projectRoot, "CorsConfig.java");
+        Optional<Path> corsConfigPath = index.findFile("CorsConfig.java");
         if (corsConfigPath.isPresent()) {
-            String content = FileScanner.readFileAsString(corsConfigPath.get());
+            String content = index.readFileAsString(corsConfigPath.get());
             results.add(new DetectionResult(
                 "CORS Configuration",
                 "Security",
@@ -309,10 +334,10 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         }
         
         // Check Maven for CORS
-        Optional<Path> pomPath = FileScanner.findFile(projectRoot, "pom.xml");
+        Optional<Path> pomPath = index.findFile("pom.xml");
         if (pomPath.isPresent()) {
-            String content = FileScanner.readFileAsString(pomPath.get());
-            if (content.contains("cors")) {
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, pomPath.get());
+            if (hits.contains("cors")) {
                 results.add(new DetectionResult(
                     "CORS Support",
                     "Security",
@@ -324,10 +349,10 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         }
         
         // Check npm for helmet (security headers)
-        Optional<Path> packageJsonPath = FileScanner.findFile(projectRoot, "package.json");
+        Optional<Path> packageJsonPath = index.findFile("package.json");
         if (packageJsonPath.isPresent()) {
-            String content = FileScanner.readFileAsString(packageJsonPath.get());
-            if (content.contains("helmet")) {
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, packageJsonPath.get());
+            if (hits.contains("helmet")) {
                 results.add(new DetectionResult(
                     "Helmet.js (Security Headers)",
                     "Security",
@@ -337,7 +362,7 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
                 ));
             }
             
-            if (content.contains("cors")) {
+            if (hits.contains("cors")) {
                 results.add(new DetectionResult(
                     "CORS Middleware",
                     "Security",
@@ -351,11 +376,11 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         return results;
     }
     
-    private List<DetectionResult> detectSecurityConfigs(Path projectRoot) throws IOException {
+    private List<DetectionResult> detectSecurityConfigs(ProjectIndex index) throws IOException {
         List<DetectionResult> results = new ArrayList<>();
         
         // Check for environment file (.env)
-        Optional<Path> envPath = FileScanner.findFile(projectRoot, ".env");
+        Optional<Path> envPath = index.findFile(".env");
         if (envPath.isPresent()) {
             results.add(new DetectionResult(
                 "Environment-based Secrets",
@@ -367,10 +392,10 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         }
         
         // Check application properties
-        Optional<Path> appPropsPath = FileScanner.findFile(projectRoot, "application.properties");
+        Optional<Path> appPropsPath = index.findFile("application.properties");
         if (appPropsPath.isPresent()) {
-            String content = FileScanner.readFileAsString(appPropsPath.get());
-            if (content.contains("security") || content.contains("secret") || content.contains("password")) {
+            SignatureEngine.Hits hits = AnalyzerSignatures.scan(index, appPropsPath.get());
+            if (hits.containsAny("security", "secret", "password")) {
                 results.add(new DetectionResult(
                     "Security Configuration",
                     "Configuration",
@@ -382,7 +407,7 @@ public class SecurityAnalyzer implements IProjectAnalyzer {
         }
         
         // Check for KeyStore usage
-        Optional<Path> keystorePath = FileScanner.findFile(projectRoot, "keystore.jks");
+        Optional<Path> keystorePath = index.findFile("keystore.jks");
         if (keystorePath.isPresent()) {
             results.add(new DetectionResult(
                 "KeyStore (SSL/TLS)",
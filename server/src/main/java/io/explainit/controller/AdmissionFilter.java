@@ -0,0 +1,120 @@
+package io.explainit.controller;
+
+import io.explainit.service.AnalysisAdmission;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Admits requests that upload archives before their body is read, so rejected uploads
+ * never reach the heap or the temp directory. That covers the analyze, quick look and diff
+ * endpoints, job submissions, and chunk and blob uploads.
+ * The permit is exposed as a request attribute for the controller to charge
+ * the archive's entry count against, and is released when the response completes,
+ * or for asynchronous requests when the analysis completes or the client goes away.
+ */
+@Component
+class AdmissionFilter extends OncePerRequestFilter {
+
+    static final String PERMIT_ATTRIBUTE = AdmissionFilter.class.getName() + ".permit";
+
+    private static final Set<String> ADMITTED_POSTS = Set.of(
+        "/api/explain/analyze", "/api/explain/analyze/stream", "/api/explain/quick",
+        "/api/explain/diff", "/api/explain/jobs");
+    private static final List<String> ADMITTED_PUT_PREFIXES = List.of("/api/explain/uploads/", "/api/explain/blobs/");
+
+    private final AnalysisAdmission admission;
+    private final JsonMapper jsonMapper;
+
+    AdmissionFilter(AnalysisAdmission admission, JsonMapper jsonMapper) {
+        this.admission = admission;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return switch (request.getMethod()) {
+            case "POST" -> !ADMITTED_POSTS.contains(path);
+            case "PUT" -> ADMITTED_PUT_PREFIXES.stream().noneMatch(path::startsWith);
+            default -> true;
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AnalysisAdmission.Permit permit;
+        try {
+            permit = admission.admit(request.getContentLengthLong());
+        } catch (RejectedExecutionException e) {
+            reject(response, admission.getRetryAfterSeconds());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response, admission.getRetryAfterSeconds());
+            return;
+        }
+
+        boolean async = false;
+        try {
+            request.setAttribute(PERMIT_ATTRIBUTE, permit);
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                // The analysis continues on another thread; hold the budget until the response is done
+                request.getAsyncContext().addListener(new ReleasingListener(permit));
+            } else {
+                permit.close();
+            }
+        }
+    }
+
+    private static final class ReleasingListener implements AsyncListener {
+        private final AnalysisAdmission.Permit permit;
+
+        private ReleasingListener(AnalysisAdmission.Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        jsonMapper.writeValue(response.getOutputStream(),
+            AnalysisResponses.error("Too many concurrent analyses", "Retry later"));
+    }
+}
@@ -1,16 +1,37 @@
 package io.explainit.controller;
 
+import io.explainit.analyzer.AnalysisListener;
 import io.explainit.dto.ProjectMetadata;
+import io.explainit.dto.QuickLookResult;
+import io.explainit.service.AnalysisAdmission;
+import io.explainit.service.AnalysisJob;
+import io.explainit.service.AnalysisJobService;
+import io.explainit.service.AnalysisMetrics;
+import io.explainit.service.AnalysisProfile;
+import io.explainit.service.ArchiveUpload;
 import io.explainit.service.ProjectAnalysisService;
+import io.explainit.util.ArchiveLimitException;
+import io.explainit.util.Cancellation;
 import io.explainit.util.ZipExtractor;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import java.nio.file.Path;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/explain")
@@ -19,16 +40,132 @@ public class AnalysisController {
     @Autowired
     private ProjectAnalysisService projectAnalysisService;
     
+    @Autowired
+    private AnalysisJobService analysisJobService;
+    
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
+    
+    @Autowired
+    private AnalysisAdmission analysisAdmission;
+    
+    @Autowired
+    private JsonMapper jsonMapper;
+    
+    @Autowired
+    private DisconnectWatcher disconnectWatcher;
+
+    @Autowired
+    private JobEventStream jobEventStream;
+
+    @Autowired
+    private AnalysisRequestExecutor requestExecutor;
+    
+    @Value("${explainit.jobs.subscribe-timeout-seconds:600}")
+    private long streamTimeoutSeconds;
+    
+    @Value("${explainit.analysis.request-timeout-seconds:600}")
+    private long requestTimeoutSeconds;
+    
     /**
      * Analyze a project ZIP file
+     * The analysis runs off the request thread while the connection is watched; if the
+     * client disconnects, the analysis is cancelled and its temporary files removed.
      * 
      * @param file The project ZIP file to analyze
-     * @return Comprehensive project analysis
+     * @param profile Include a "profile" block with phase timings and I/O counts
+     * @return Comprehensive project analysis, or 429 with Retry-After when the server is at capacity
      */
     @PostMapping(value = "/analyze", consumes = "multipart/form-data")
-    public ResponseEntity<?> analyzeProject(
-        @RequestParam("file") MultipartFile file
+    public WebAsyncTask<ResponseEntity<?>> analyzeProject(
+        @RequestParam("file") MultipartFile file,
+        @RequestParam(value = "profile", defaultValue = "false") boolean profile,
+        HttpServletRequest request
+    ) {
+        AnalysisAdmission.Permit permit =
+            (AnalysisAdmission.Permit) request.getAttribute(AdmissionFilter.PERMIT_ATTRIBUTE);
+        Cancellation cancellation = new Cancellation();
+        
+        WebAsyncTask<ResponseEntity<?>> task = new WebAsyncTask<>(TimeUnit.SECONDS.toMillis(requestTimeoutSeconds),
+            requestExecutor.get(), () -> {
+                try (Cancellation.Registration ignored = disconnectWatcher.watch(request, cancellation)) {
+                    return analyze(file, profile, permit, cancellation);
+                }
+            });
+        task.onError(() -> {
+            // Nobody is left to read the result
+            cancellation.cancel();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+        task.onTimeout(() -> {
+            cancellation.cancel();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(AnalysisResponses.error("Analysis timed out"));
+        });
+        return task;
+    }
+    
+    /**
+     * Analyze a project ZIP sent as the raw request body rather than as a multipart form.
+     * The archive is parsed while it is still arriving and the files the analyzers read
+     * are decoded in the meantime, so on slow links the analysis is mostly done by the
+     * time the last byte lands. Responses are the same as for the multipart form.
+     * 
+     * @param profile Include a "profile" block with phase timings and I/O counts
+     * @return Comprehensive project analysis, or 429 with Retry-After when the server is at capacity
+     */
+    @PostMapping(value = "/analyze", consumes = {"application/zip", "application/octet-stream"})
+    public WebAsyncTask<ResponseEntity<?>> analyzeProjectUpload(
+        @RequestParam(value = "profile", defaultValue = "false") boolean profile,
+        HttpServletRequest request
     ) {
+        AnalysisAdmission.Permit permit =
+            (AnalysisAdmission.Permit) request.getAttribute(AdmissionFilter.PERMIT_ATTRIBUTE);
+        Cancellation cancellation = new Cancellation();
+        
+        WebAsyncTask<ResponseEntity<?>> task = new WebAsyncTask<>(TimeUnit.SECONDS.toMillis(requestTimeoutSeconds),
+            requestExecutor.get(), () -> {
+                AnalysisProfile analysisProfile = new AnalysisProfile();
+                ArchiveUpload upload;
+                try {
+                    upload = projectAnalysisService.receive(request.getInputStream(),
+                        request.getContentLengthLong(), analysisProfile, cancellation);
+                } catch (ArchiveLimitException e) {
+                    return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                        .body(AnalysisResponses.error("Archive too large", e.getMessage()));
+                } catch (IOException e) {
+                    return ResponseEntity.badRequest().body(AnalysisResponses.error("Upload failed", e.getMessage()));
+                } catch (CancellationException e) {
+                    return ResponseEntity.status(AnalysisResponses.CLIENT_CLOSED_REQUEST).build();
+                }
+                // The body has been read, so the connection can now be watched; the spooled upload goes with the request
+                try (upload; Cancellation.Registration ignored = disconnectWatcher.watch(request, cancellation)) {
+                    if (upload.getSize() == 0) {
+                        return ResponseEntity.badRequest().body(AnalysisResponses.error("File is empty"));
+                    }
+                    return respond(() -> {
+                        if (permit != null) {
+                            permit.chargeEntries(Math.max(0, upload.readEntryCount()));
+                        }
+                        return projectAnalysisService.analyzeUpload(
+                            upload, AnalysisListener.NONE, analysisProfile, cancellation);
+                    }, profile, analysisProfile);
+                }
+            });
+        task.onError(() -> {
+            cancellation.cancel();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+        task.onTimeout(() -> {
+            cancellation.cancel();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(AnalysisResponses.error("Analysis timed out"));
+        });
+        return task;
+    }
+    
+    private ResponseEntity<?> analyze(MultipartFile file, boolean profile, AnalysisAdmission.Permit permit,
+                                      Cancellation cancellation) {
         try {
             // Validate file
             if (file.isEmpty()) {
@@ -43,35 +180,60 @@ public class AnalysisController {
                 return ResponseEntity.badRequest().body(error);
             }
             
-            // Extract ZIP
-            Path extractedPath = ZipExtractor.extractZip(file.getInputStream());
+            // The upload size was charged before the body was read; add the cost of its entries
+            if (permit != null) {
+                try (var input = file.getInputStream()) {
+                    permit.chargeEntries(Math.max(0, ZipExtractor.readEntryCount(input, file.getSize())));
+                }
+            }
+            
+            // Analyze project
+            AnalysisProfile analysisProfile = new AnalysisProfile();
+            return respond(() -> projectAnalysisService.analyzeArchive(
+                file.getInputStream(), AnalysisListener.NONE, analysisProfile, cancellation), profile, analysisProfile);
+            
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(analysisAdmission.getRetryAfterSeconds()))
+                .body(AnalysisResponses.error("Too many concurrent analyses", "Retry later"));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Analysis failed");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+    
+    private ResponseEntity<?> respond(Callable<ProjectMetadata> analysis, boolean profile,
+                                      AnalysisProfile analysisProfile) {
+        try {
+            ProjectMetadata metadata = analysis.call();
+            Map<String, Object> response = AnalysisResponses.fromMetadata(metadata);
+            
+            // Serialize here rather than in the message converter so the time is measured
+            long serializationStart = System.nanoTime();
+            byte[] body = analysisMetrics.timeSerialization("analyze", metadata.getArchiveDigest(),
+                () -> jsonMapper.writeValueAsBytes(response));
             
-            try {
-                // Analyze project
-                ProjectMetadata metadata = projectAnalysisService.analyzeProject(extractedPath);
-                
-                // Wrap in response object matching frontend expectations
-                Map<String, Object> response = new HashMap<>();
-                
-                // Create nested projectMetadata object
-                Map<String, Object> projectMetadata = new HashMap<>();
-                projectMetadata.put("projectType", metadata.getProjectType());
-                projectMetadata.put("detectedLanguages", metadata.getLanguages());
-                projectMetadata.put("detectedFrameworks", metadata.getFrameworks());
-                projectMetadata.put("summary", metadata.getSummary());
-                
-                response.put("projectMetadata", projectMetadata);
-                response.put("entryPoints", metadata.getEntryPoints());
-                response.put("configFiles", metadata.getConfigFiles());
-                response.put("apiRoutes", metadata.getApiRoutes());
-                response.put("buildInfo", metadata.getBuildInfo());
-                response.put("projectStructure", metadata.getProjectStructure());
-                
-                return ResponseEntity.ok(response);
-            } finally {
-                ZipExtractor.deleteDirectory(extractedPath);
+            if (profile) {
+                // The profile cannot time its own serialization, so the analysis is serialized again with it
+                analysisProfile.onPhaseFinished("serialization", System.nanoTime() - serializationStart);
+                response.put("profile", analysisProfile.toMap());
+                body = jsonMapper.writeValueAsBytes(response);
             }
             
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+            
+        } catch (ArchiveLimitException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(AnalysisResponses.error("Archive too large", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(analysisAdmission.getRetryAfterSeconds()))
+                .body(AnalysisResponses.error("Too many concurrent analyses", "Retry later"));
+        } catch (CancellationException e) {
+            // The client went away, or the request timed out and has already been answered
+            return ResponseEntity.status(AnalysisResponses.CLIENT_CLOSED_REQUEST).build();
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Analysis failed");
@@ -80,6 +242,83 @@ public class AnalysisController {
         }
     }
     
+    /**
+     * Analyze a project ZIP file, streaming results as Server-Sent Events.
+     * Each analyzer's result is sent as an "analyzer" event as soon as it finishes,
+     * followed by a "result" event with the same body as the analyze endpoint
+     * and a final "status" event.
+     * 
+     * @param file The project ZIP file to analyze
+     * @return Event stream, or 429 with Retry-After when the analysis queue is full
+     */
+    @PostMapping(value = "/analyze/stream", consumes = "multipart/form-data", produces = "text/event-stream")
+    public ResponseEntity<?> analyzeProjectStream(
+        @RequestParam("file") MultipartFile file
+    ) {
+        try {
+            // Validate file
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body(AnalysisResponses.error("File is empty"));
+            }
+            
+            if (!file.getOriginalFilename().endsWith(".zip")) {
+                return ResponseEntity.badRequest().body(AnalysisResponses.error("Only ZIP files are accepted"));
+            }
+            
+            // Run on the job pool so this request thread is released while analyzers run
+            AnalysisJob job = analysisJobService.submit(file.getInputStream());
+            SseEmitter emitter = jobEventStream.open(job, TimeUnit.SECONDS.toMillis(streamTimeoutSeconds));
+            
+            return ResponseEntity.ok(emitter);
+            
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(analysisJobService.getRetryAfterSeconds()))
+                .body(AnalysisResponses.error("Too many queued analyses", "Retry later"));
+        } catch (ArchiveLimitException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(AnalysisResponses.error("Archive too large", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AnalysisResponses.error("Upload failed", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Take a quick look at a project ZIP file: language, build tool, framework guesses,
+     * file count, size and directory layout, read from the archive's central directory
+     * and a few small manifests. Meant for dashboards and pre-upload checks; use
+     * the analyze endpoint for entry points, APIs and the data layer.
+     * 
+     * @param file The project ZIP file to look at
+     * @return Quick-look summary of the project
+     */
+    @PostMapping(value = "/quick", consumes = "multipart/form-data")
+    public ResponseEntity<?> quickLook(
+        @RequestParam("file") MultipartFile file
+    ) {
+        try {
+            // Validate file
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body(AnalysisResponses.error("File is empty"));
+            }
+            
+            if (!file.getOriginalFilename().endsWith(".zip")) {
+                return ResponseEntity.badRequest().body(AnalysisResponses.error("Only ZIP files are accepted"));
+            }
+            
+            QuickLookResult result = projectAnalysisService.quickLook(file.getInputStream());
+            return ResponseEntity.ok(result);
+            
+        } catch (ArchiveLimitException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(AnalysisResponses.error("Archive too large", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AnalysisResponses.error("Quick look failed", e.getMessage()));
+        }
+    }
+    
     /**
      * Health check endpoint
      * Useful for verifying backend is running
@@ -0,0 +1,131 @@
+package io.explainit.controller;
+
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.service.AnalysisJob;
+import io.explainit.service.AnalysisJobService;
+import io.explainit.service.AnalysisMetrics;
+import io.explainit.util.ArchiveLimitException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job-based variant of the analyze endpoint for long-running analyses.
+ * Submitting returns a job id immediately; clients then poll the job
+ * or subscribe to its events over Server-Sent Events.
+ */
+@RestController
+@RequestMapping("/api/explain/jobs")
+public class AnalysisJobController {
+
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
+
+    @Autowired
+    private JobEventStream jobEventStream;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Value("${explainit.jobs.subscribe-timeout-seconds:600}")
+    private long subscribeTimeoutSeconds;
+
+    /**
+     * Queue a project ZIP file for analysis
+     *
+     * @param file The project ZIP file to analyze
+     * @return 202 with the job status, or 429 with Retry-After when the queue is full
+     */
+    @PostMapping(consumes = "multipart/form-data")
+    public ResponseEntity<?> submitJob(
+        @RequestParam("file") MultipartFile file
+    ) {
+        try {
+            // Validate file
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body(AnalysisResponses.error("File is empty"));
+            }
+
+            if (!file.getOriginalFilename().endsWith(".zip")) {
+                return ResponseEntity.badRequest().body(AnalysisResponses.error("Only ZIP files are accepted"));
+            }
+
+            // Spool the upload now, it is discarded when this request completes
+            AnalysisJob job = analysisJobService.submit(file.getInputStream());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/explain/jobs/" + job.getId())
+                .body(job.statusSnapshot());
+
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(analysisJobService.getRetryAfterSeconds()))
+                .body(AnalysisResponses.error("Too many queued analyses", "Retry later"));
+        } catch (ArchiveLimitException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(AnalysisResponses.error("Archive too large", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AnalysisResponses.error("Upload failed", e.getMessage()));
+        }
+    }
+
+    /**
+     * Poll a job. Once it has completed, the response includes the analysis
+     * in the same shape as the synchronous analyze endpoint.
+     *
+     * @param jobId The job id returned on submission
+     * @return Job status, plus the result when completed
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        Optional<AnalysisJob> job = analysisJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(AnalysisResponses.error("Job not found"));
+        }
+
+        Map<String, Object> response = job.get().statusSnapshot();
+        ProjectMetadata result = job.get().getResult();
+        if (result == null) {
+            return ResponseEntity.ok(response);
+        }
+
+        response.put("result", AnalysisResponses.fromMetadata(result));
+        byte[] body = analysisMetrics.timeSerialization("jobs", result.getArchiveDigest(),
+            () -> jsonMapper.writeValueAsBytes(response));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Subscribe to a job's events. Events already published are replayed first;
+     * the stream closes after the final status event.
+     *
+     * @param jobId The job id returned on submission
+     * @return Event stream of "status", "analyzer" and "result" events
+     */
+    @GetMapping(value = "/{jobId}/events", produces = "text/event-stream")
+    public ResponseEntity<?> subscribe(@PathVariable String jobId) {
+        Optional<AnalysisJob> job = analysisJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(AnalysisResponses.error("Job not found"));
+        }
+
+        SseEmitter emitter = jobEventStream.open(job.get(), TimeUnit.SECONDS.toMillis(subscribeTimeoutSeconds));
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,38 @@
+package io.explainit.controller;
+
+import io.explainit.service.AnalysisAdmission;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs synchronous analyses once their request has gone asynchronous, instead of the
+ * shared application task executor with its unbounded queue. There is a thread for every
+ * request admission lets in at once, so an admitted analysis never waits for a thread,
+ * and nothing is queued: anything beyond that has already been turned away with a 429.
+ * Not itself an Executor bean, so the application task executor is still configured as usual.
+ */
+@Component
+class AnalysisRequestExecutor {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    AnalysisRequestExecutor(AnalysisAdmission admission) {
+        executor.setCorePoolSize(admission.getMaxConcurrent());
+        executor.setMaxPoolSize(admission.getMaxConcurrent());
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("explainit-request-");
+        executor.setDaemon(true);
+        executor.initialize();
+    }
+
+    AsyncTaskExecutor get() {
+        return executor;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,53 @@
+package io.explainit.controller;
+
+import io.explainit.dto.ProjectMetadata;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the response body shapes shared by the synchronous and job endpoints.
+ */
+final class AnalysisResponses {
+
+    // Not a registered status; the one proxies such as nginx log when the client gave up first.
+    // Nobody reads it, but the access log then says why the analysis stopped
+    static final int CLIENT_CLOSED_REQUEST = 499;
+
+    private AnalysisResponses() {
+    }
+
+    /**
+     * Wrap metadata in the response object matching frontend expectations.
+     */
+    static Map<String, Object> fromMetadata(ProjectMetadata metadata) {
+        Map<String, Object> response = new HashMap<>();
+        
+        // Create nested projectMetadata object
+        Map<String, Object> projectMetadata = new HashMap<>();
+        projectMetadata.put("projectType", metadata.getProjectType());
+        projectMetadata.put("detectedLanguages", metadata.getLanguages());
+        projectMetadata.put("detectedFrameworks", metadata.getFrameworks());
+        projectMetadata.put("summary", metadata.getSummary());
+        
+        response.put("projectMetadata", projectMetadata);
+        response.put("entryPoints", metadata.getEntryPoints());
+        response.put("configFiles", metadata.getConfigFiles());
+        response.put("apiRoutes", metadata.getApiRoutes());
+        response.put("buildInfo", metadata.getBuildInfo());
+        response.put("projectStructure", metadata.getProjectStructure());
+        
+        return response;
+    }
+
+    static Map<String, String> error(String error) {
+        Map<String, String> body = new HashMap<>();
+        body.put("error", error);
+        return body;
+    }
+
+    static Map<String, String> error(String error, String message) {
+        Map<String, String> body = error(error);
+        body.put("message", message);
+        return body;
+    }
+}
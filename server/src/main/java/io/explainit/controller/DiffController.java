@@ -0,0 +1,147 @@
+package io.explainit.controller;
+
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.service.AnalysisAdmission;
+import io.explainit.service.AnalysisDiffService;
+import io.explainit.util.ArchiveLimitException;
+import io.explainit.util.Cancellation;
+import io.explainit.util.ZipExtractor;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows what changed architecturally between two builds of a project:
+ * routes and entry points added or removed, new dependencies, a different database or ORM.
+ */
+@RestController
+@RequestMapping("/api/explain/diff")
+public class DiffController {
+
+    @Autowired
+    private AnalysisDiffService analysisDiffService;
+
+    @Autowired
+    private AnalysisAdmission analysisAdmission;
+
+    @Autowired
+    private DisconnectWatcher disconnectWatcher;
+
+    @Autowired
+    private AnalysisRequestExecutor requestExecutor;
+
+    @Value("${explainit.analysis.request-timeout-seconds:600}")
+    private long requestTimeoutSeconds;
+
+    /**
+     * Compare two project ZIP files
+     * Both analyses run off the request thread while the connection is watched, and are
+     * cancelled if the client disconnects, as for the analyze endpoint.
+     *
+     * @param base The earlier build
+     * @param head The later build
+     * @return The delta from base to head, or 429 with Retry-After when the server is at capacity
+     */
+    @PostMapping(consumes = "multipart/form-data")
+    public WebAsyncTask<ResponseEntity<?>> diffArchives(
+        @RequestParam("base") MultipartFile base,
+        @RequestParam("head") MultipartFile head,
+        HttpServletRequest request
+    ) {
+        AnalysisAdmission.Permit permit =
+            (AnalysisAdmission.Permit) request.getAttribute(AdmissionFilter.PERMIT_ATTRIBUTE);
+        Cancellation cancellation = new Cancellation();
+
+        WebAsyncTask<ResponseEntity<?>> task = new WebAsyncTask<>(TimeUnit.SECONDS.toMillis(requestTimeoutSeconds),
+            requestExecutor.get(), () -> {
+                try (Cancellation.Registration ignored = disconnectWatcher.watch(request, cancellation)) {
+                    return diff(base, head, permit, cancellation);
+                }
+            });
+        task.onError(() -> {
+            // Nobody is left to read the result
+            cancellation.cancel();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+        task.onTimeout(() -> {
+            cancellation.cancel();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(AnalysisResponses.error("Diff timed out"));
+        });
+        return task;
+    }
+
+    private ResponseEntity<?> diff(MultipartFile base, MultipartFile head, AnalysisAdmission.Permit permit,
+                                   Cancellation cancellation) {
+        for (MultipartFile file : new MultipartFile[] {base, head}) {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body(AnalysisResponses.error("File is empty", file.getName()));
+            }
+            if (file.getOriginalFilename() == null || !file.getOriginalFilename().endsWith(".zip")) {
+                return ResponseEntity.badRequest()
+                    .body(AnalysisResponses.error("Only ZIP files are accepted", file.getName()));
+            }
+        }
+
+        try {
+            // The upload size was charged before the body was read; add the cost of both archives' entries
+            if (permit != null) {
+                permit.chargeEntries(entryCount(base) + entryCount(head));
+            }
+            try (InputStream baseInput = base.getInputStream(); InputStream headInput = head.getInputStream()) {
+                return ResponseEntity.ok(analysisDiffService.diff(baseInput, headInput, cancellation));
+            }
+        } catch (ArchiveLimitException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(AnalysisResponses.error("Archive too large", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(analysisAdmission.getRetryAfterSeconds()))
+                .body(AnalysisResponses.error("Too many concurrent analyses", "Retry later"));
+        } catch (CancellationException e) {
+            // The client went away, or the request timed out and has already been answered
+            return ResponseEntity.status(AnalysisResponses.CLIENT_CLOSED_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AnalysisResponses.error("Diff failed", e.getMessage()));
+        }
+    }
+
+    /**
+     * Compare two stored analyses
+     *
+     * @param base Job id or digest of the earlier analysis
+     * @param head Job id or digest of the later analysis
+     * @return The delta from base to head, or 404 if either analysis is unknown or unfinished
+     */
+    @GetMapping
+    public ResponseEntity<?> diffAnalyses(@RequestParam("base") String base, @RequestParam("head") String head) {
+        Optional<ProjectMetadata> before = analysisDiffService.findAnalysis(base);
+        if (before.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(AnalysisResponses.error("Analysis not found", base));
+        }
+        Optional<ProjectMetadata> after = analysisDiffService.findAnalysis(head);
+        if (after.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(AnalysisResponses.error("Analysis not found", head));
+        }
+        return ResponseEntity.ok(AnalysisDiffService.compare(base, before.get(), head, after.get()));
+    }
+
+    private static long entryCount(MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return Math.max(0, ZipExtractor.readEntryCount(input, file.getSize()));
+        }
+    }
+}
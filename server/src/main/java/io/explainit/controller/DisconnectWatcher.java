@@ -0,0 +1,94 @@
+package io.explainit.controller;
+
+import io.explainit.util.Cancellation;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notices clients that disconnect while their analysis is still running.
+ * The container only reports a closed connection when it reads or writes the socket,
+ * and nothing does that between the end of the upload and the response. So once the
+ * body has been read, the request's input stream is switched to non-blocking mode and
+ * polled: a connection with nothing left to send only reports data when the peer has
+ * closed it, at which point the analysis is cancelled.
+ * That relies on how Tomcat implements non-blocking reads, which the Servlet API does not
+ * promise, so on any other container requests are not watched and simply run to completion.
+ */
+@Component
+class DisconnectWatcher {
+
+    // Tomcat's request input stream; other containers are not watched
+    private static final String TOMCAT_INPUT_STREAM = "org.apache.catalina.connector.CoyoteInputStream";
+
+    private static final ReadListener IGNORE_READS = new ReadListener() {
+        @Override
+        public void onDataAvailable() {
+        }
+
+        @Override
+        public void onAllDataRead() {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+    };
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "explainit-disconnect-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long pollMillis;
+
+    DisconnectWatcher(@Value("${explainit.analysis.disconnect-poll-ms:100}") long pollMillis) {
+        this.pollMillis = pollMillis;
+    }
+
+    /**
+     * Cancel the analysis if the client goes away, until the returned registration is closed.
+     * Must be called after the request body has been fully read, on an asynchronous request.
+     */
+    Cancellation.Registration watch(HttpServletRequest request, Cancellation cancellation) {
+        ServletInputStream input;
+        try {
+            input = request.getInputStream();
+            if (!input.getClass().getName().equals(TOMCAT_INPUT_STREAM)) {
+                return () -> { };
+            }
+            input.setReadListener(IGNORE_READS);
+        } catch (IOException | IllegalStateException e) {
+            // Not in a state that can be watched; the analysis simply runs to completion
+            return () -> { };
+        }
+
+        ScheduledFuture<?> poll = poller.scheduleWithFixedDelay(() -> {
+            try {
+                // In non-blocking mode Tomcat answers available() by attempting a read from the socket.
+                // With the body already consumed, the only thing that read can find is end of stream,
+                // which Tomcat reports as one byte available so the next read surfaces it.
+                // Clients do not pipeline another request behind an analyze upload, which would also show up here
+                if (input.available() > 0) {
+                    cancellation.cancel();
+                }
+            } catch (IOException | RuntimeException e) {
+                cancellation.cancel();
+            }
+        }, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        return () -> poll.cancel(false);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdownNow();
+    }
+}
@@ -0,0 +1,118 @@
+package io.explainit.controller;
+
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.service.AnalysisJob;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Relays the events of analysis jobs to clients as Server-Sent Events.
+ * Jobs publish events on analyzer threads, and writing to a slow client blocks, so each
+ * stream only queues its events there; they are written to the client on a sender thread.
+ * A job publishes a handful of events per analyzer, so the queues stay small.
+ * A stream is closed after the job's final status event.
+ */
+@Component
+class JobEventStream {
+
+    private final ExecutorService senders;
+
+    JobEventStream(@Value("${explainit.jobs.event-sender-threads:4}") int senderThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "explainit-event-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    SseEmitter open(AnalysisJob job, long timeoutMillis) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Stream stream = new Stream(job, emitter);
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+        job.subscribe(stream);
+        return emitter;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private final class Stream implements AnalysisJob.Listener {
+        private final AnalysisJob job;
+        private final SseEmitter emitter;
+        private final Queue<AnalysisJob.Event> pending = new ConcurrentLinkedQueue<>();
+        // Set while a send task is queued or running, so at most one writes to the emitter
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Stream(AnalysisJob job, SseEmitter emitter) {
+            this.job = job;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onEvent(AnalysisJob.Event event) {
+            if (closed) {
+                return;
+            }
+            pending.add(event);
+            schedule();
+        }
+
+        private void schedule() {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    close();
+                }
+            }
+        }
+
+        private void send() {
+            try {
+                AnalysisJob.Event event;
+                while (!closed && (event = pending.poll()) != null) {
+                    Object data = event.getData() instanceof ProjectMetadata metadata
+                        ? AnalysisResponses.fromMetadata(metadata)
+                        : event.getData();
+                    emitter.send(SseEmitter.event().name(event.getName()).data(data));
+                    if (event.isLast()) {
+                        emitter.complete();
+                        close();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; stop delivering to it
+                close();
+            } finally {
+                sending.set(false);
+            }
+            // An event queued after the loop ended but before sending was cleared would otherwise wait forever
+            if (!closed && !pending.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            pending.clear();
+            job.unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.explainit.controller;
+
+import io.explainit.dto.ProjectManifest;
+import io.explainit.service.AnalysisJob;
+import io.explainit.service.AnalysisJobService;
+import io.explainit.service.BlobStore;
+import io.explainit.util.ArchiveLimitException;
+import io.explainit.util.DigestMismatchException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Uploads negotiated against the content-addressed blob store.
+ * A client posts a manifest of paths and content hashes and gets back the hashes
+ * the server does not hold, uploads only those blobs, then submits the manifest
+ * for analysis. Re-uploading a project that changed by a few files sends a few files.
+ */
+@RestController
+@RequestMapping("/api/explain")
+public class ManifestController {
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    /**
+     * Find which contents of a project still have to be uploaded
+     *
+     * @param manifest Paths and SHA-256 of every file in the project
+     * @return The manifest digest and the hashes missing from the store,
+     *         or 413 if the project is more than the store can hold
+     */
+    @PostMapping(value = "/manifests", consumes = "application/json")
+    public ResponseEntity<?> negotiate(@RequestBody ProjectManifest manifest) {
+        try {
+            return ResponseEntity.ok(negotiation(manifest, blobStore.missing(manifest)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(AnalysisResponses.error("Invalid manifest", e.getMessage()));
+        } catch (ArchiveLimitException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(AnalysisResponses.error("Project too large", e.getMessage()));
+        }
+    }
+
+    /**
+     * Upload one file's content. The body is the raw content.
+     *
+     * @param sha256 Hex SHA-256 of the content
+     * @return 201, or 422 if the content does not match the hash
+     */
+    @PutMapping(value = "/blobs/{sha256}", consumes = "application/octet-stream")
+    public ResponseEntity<?> putBlob(@PathVariable String sha256, HttpServletRequest request) {
+        try {
+            blobStore.put(sha256, request.getInputStream());
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(AnalysisResponses.error("Invalid blob", e.getMessage()));
+        } catch (DigestMismatchException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT)
+                .body(AnalysisResponses.error("Digest mismatch", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AnalysisResponses.error("Upload failed", e.getMessage()));
+        }
+    }
+
+    /**
+     * Queue a project for analysis once every blob of its manifest has been uploaded
+     *
+     * @param manifest Paths and SHA-256 of every file in the project
+     * @return 202 with the job status, 409 with the missing hashes, 413 if the project is too large,
+     *         or 429 with Retry-After when the queue is full
+     */
+    @PostMapping(value = "/manifests/analyze", consumes = "application/json")
+    public ResponseEntity<?> analyze(@RequestBody ProjectManifest manifest) {
+        try {
+            List<String> missing = blobStore.missing(manifest);
+            if (!missing.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(negotiation(manifest, missing));
+            }
+
+            BlobStore.Hold hold = blobStore.hold(manifest);
+            AnalysisJob job;
+            try {
+                job = analysisJobService.submit(BlobStore.digest(manifest), blobStore.resolve(manifest));
+            } catch (RuntimeException e) {
+                hold.close();
+                throw e;
+            }
+            // The blobs stay in the store until the analysis reading them has finished
+            job.subscribe(event -> {
+                if (event.isLast()) {
+                    hold.close();
+                }
+            });
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/explain/jobs/" + job.getId())
+                .body(job.statusSnapshot());
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(AnalysisResponses.error("Invalid manifest", e.getMessage()));
+        } catch (ArchiveLimitException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(AnalysisResponses.error("Project too large", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(analysisJobService.getRetryAfterSeconds()))
+                .body(AnalysisResponses.error("Too many queued analyses", "Retry later"));
+        }
+    }
+
+    private static Map<String, Object> negotiation(ProjectManifest manifest, List<String> missing) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("manifestDigest", BlobStore.digest(manifest));
+        response.put("files", manifest.getFiles().size());
+        response.put("missing", missing);
+        return response;
+    }
+}
@@ -0,0 +1,166 @@
+package io.explainit.controller;
+
+import io.explainit.service.AnalysisJob;
+import io.explainit.service.AnalysisJobService;
+import io.explainit.service.UploadSession;
+import io.explainit.service.UploadSessionService;
+import io.explainit.util.DigestMismatchException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Resumable uploads for archives too large for a single multipart request.
+ * A client initiates an upload with the archive's size and SHA-256, PUTs chunks at
+ * their offsets in any order and in parallel, resends whatever the status reports as
+ * missing after a failure, and finalizes the upload to queue it as an analysis job.
+ */
+@RestController
+@RequestMapping("/api/explain/uploads")
+public class UploadController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    /**
+     * Start an upload
+     *
+     * @param size Size of the archive in bytes
+     * @param sha256 Hex SHA-256 of the archive
+     * @return 201 with the upload status, or 429 with Retry-After while other uploads fill the spool budget
+     */
+    @PostMapping
+    public ResponseEntity<?> initiate(@RequestParam("size") long size, @RequestParam("sha256") String sha256) {
+        try {
+            UploadSession session = uploadSessionService.initiate(size, sha256);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .header(HttpHeaders.LOCATION, "/api/explain/uploads/" + session.getId())
+                .body(session.statusSnapshot());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(AnalysisResponses.error("Invalid upload", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(analysisJobService.getRetryAfterSeconds()))
+                .body(AnalysisResponses.error("Too many uploads in progress", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AnalysisResponses.error("Upload failed", e.getMessage()));
+        }
+    }
+
+    /**
+     * Write one chunk of an upload. The body is the raw chunk.
+     *
+     * @param uploadId The upload id returned on initiation
+     * @param offset Position of the chunk's first byte in the archive
+     * @return The upload status, including the ranges still missing
+     */
+    @PutMapping(value = "/{uploadId}", consumes = "application/octet-stream")
+    public ResponseEntity<?> writeChunk(
+        @PathVariable String uploadId,
+        @RequestParam("offset") long offset,
+        HttpServletRequest request
+    ) {
+        Optional<UploadSession> session = uploadSessionService.getSession(uploadId);
+        if (session.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(AnalysisResponses.error("Upload not found"));
+        }
+
+        try {
+            session.get().write(offset, request.getInputStream());
+            return ResponseEntity.ok(session.get().statusSnapshot());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(AnalysisResponses.error("Invalid chunk", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(AnalysisResponses.error("Invalid chunk", e.getMessage()));
+        } catch (IOException e) {
+            // Whatever arrived before the failure is kept; the status tells the client what to resend
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AnalysisResponses.error("Upload failed", e.getMessage()));
+        }
+    }
+
+    /**
+     * Check which ranges of an upload are still missing
+     *
+     * @param uploadId The upload id returned on initiation
+     * @return The upload status
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getUpload(@PathVariable String uploadId) {
+        Optional<UploadSession> session = uploadSessionService.getSession(uploadId);
+        if (session.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(AnalysisResponses.error("Upload not found"));
+        }
+        return ResponseEntity.ok(session.get().statusSnapshot());
+    }
+
+    /**
+     * Verify a complete upload against its digest and queue it for analysis.
+     * Finalizing an upload again, e.g. after a lost response, returns the same job.
+     *
+     * @param uploadId The upload id returned on initiation
+     * @return 202 with the job status, 409 while bytes are missing, 422 if the digest does not match,
+     *         or 429 with Retry-After when the queue is full
+     */
+    @PostMapping("/{uploadId}/finalize")
+    public ResponseEntity<?> finalizeUpload(@PathVariable String uploadId) {
+        Optional<UploadSession> session = uploadSessionService.getSession(uploadId);
+        if (session.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(AnalysisResponses.error("Upload not found"));
+        }
+
+        try {
+            // The job owns the spool file once submitted
+            String jobId = session.get().complete(upload -> analysisJobService.submit(upload).getId());
+            Optional<AnalysisJob> job = analysisJobService.getJob(jobId);
+            if (job.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.GONE)
+                    .body(AnalysisResponses.error("Job expired", "Upload was analyzed as job " + jobId));
+            }
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/explain/jobs/" + jobId)
+                .body(job.get().statusSnapshot());
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(AnalysisResponses.error("Upload incomplete", e.getMessage()));
+        } catch (DigestMismatchException e) {
+            // Some chunk was corrupted and there is no telling which, so the upload has to start over
+            uploadSessionService.discard(uploadId);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT)
+                .body(AnalysisResponses.error("Digest mismatch", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            // The upload stays verified, so finalizing again later does not rehash it
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(analysisJobService.getRetryAfterSeconds()))
+                .body(AnalysisResponses.error("Too many queued analyses", "Retry later"));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(AnalysisResponses.error("Upload failed", e.getMessage()));
+        }
+    }
+
+    /**
+     * Abandon an upload and delete what was received
+     *
+     * @param uploadId The upload id returned on initiation
+     * @return 204, or 404 if the upload is unknown
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> discard(@PathVariable String uploadId) {
+        if (!uploadSessionService.discard(uploadId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(AnalysisResponses.error("Upload not found"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
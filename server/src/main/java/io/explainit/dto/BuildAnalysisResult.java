@@ -1,9 +1,11 @@
 package io.explainit.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Result from BuildInfoAnalyzer with project size, dependency count, and multi-module info.
+ * Result from BuildInfoAnalyzer with project size, dependencies, and multi-module info.
  */
 public class BuildAnalysisResult extends AnalysisResult {
     @JsonProperty("buildTool")
@@ -21,6 +23,9 @@ public class BuildAnalysisResult extends AnalysisResult {
     @JsonProperty("dependencyCount")
     private int dependencyCount;
     
+    @JsonProperty("dependencies")
+    private List<String> dependencies = new ArrayList<>();
+    
     @JsonProperty("multiModule")
     private boolean multiModule;
     
@@ -77,6 +82,14 @@ public class BuildAnalysisResult extends AnalysisResult {
         this.dependencyCount = dependencyCount;
     }
     
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+    
+    public void setDependencies(List<String> dependencies) {
+        this.dependencies = dependencies;
+    }
+    
     public boolean isMultiModule() {
         return multiModule;
     }
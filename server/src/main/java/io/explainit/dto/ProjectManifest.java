@@ -0,0 +1,80 @@
+package io.explainit.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A project described by the paths of its files and the SHA-256 of each file's content,
+ * sent instead of an archive so only content the server does not hold yet is uploaded.
+ */
+public class ProjectManifest {
+
+    @JsonProperty("files")
+    private List<Entry> files = new ArrayList<>();
+
+    public ProjectManifest() {
+    }
+
+    public ProjectManifest(List<Entry> files) {
+        this.files = files;
+    }
+
+    public List<Entry> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<Entry> files) {
+        this.files = files;
+    }
+
+    public static class Entry {
+
+        @JsonProperty("path")
+        private String path;
+
+        @JsonProperty("sha256")
+        private String sha256;
+
+        // Optional; lets the server refuse a project it cannot hold before any content is sent
+        @JsonProperty("size")
+        private Long size;
+
+        public Entry() {
+        }
+
+        public Entry(String path, String sha256) {
+            this.path = path;
+            this.sha256 = sha256;
+        }
+
+        public Entry(String path, String sha256, long size) {
+            this(path, sha256);
+            this.size = size;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
+
+        public Long getSize() {
+            return size;
+        }
+
+        public void setSize(Long size) {
+            this.size = size;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.explainit.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
@@ -54,6 +55,14 @@ public class ProjectMetadata {
     
     @JsonProperty("summary")
     private String summary;
+    
+    // Set when an analyzer failed or timed out; such results are never cached
+    @JsonIgnore
+    private boolean partial;
+    
+    // SHA-256 of the uploaded archive, null for local directories
+    @JsonIgnore
+    private String archiveDigest;
 
     public ProjectMetadata() {
     }
@@ -193,4 +202,20 @@ public class ProjectMetadata {
     public void setProjectSize(ProjectSizeInfo projectSize) {
         this.projectSize = projectSize;
     }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    public String getArchiveDigest() {
+        return archiveDigest;
+    }
+
+    public void setArchiveDigest(String archiveDigest) {
+        this.archiveDigest = archiveDigest;
+    }
 }
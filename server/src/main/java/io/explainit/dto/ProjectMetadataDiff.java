@@ -0,0 +1,221 @@
+package io.explainit.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What changed architecturally between two analyses of a project: routes and entry points
+ * added or removed, dependencies, and changes to the stack such as the database or ORM.
+ * A null change means the value is the same in both analyses.
+ */
+public class ProjectMetadataDiff {
+
+    @JsonProperty("base")
+    private String base;
+
+    @JsonProperty("head")
+    private String head;
+
+    @JsonProperty("changed")
+    private boolean changed;
+
+    @JsonProperty("projectType")
+    private Change projectType;
+
+    @JsonProperty("buildTool")
+    private Change buildTool;
+
+    @JsonProperty("javaVersion")
+    private Change javaVersion;
+
+    @JsonProperty("database")
+    private Change database;
+
+    @JsonProperty("orm")
+    private Change orm;
+
+    @JsonProperty("languages")
+    private Delta<String> languages = new Delta<>();
+
+    @JsonProperty("frameworks")
+    private Delta<String> frameworks = new Delta<>();
+
+    @JsonProperty("dependencies")
+    private Delta<String> dependencies = new Delta<>();
+
+    @JsonProperty("apiRoutes")
+    private Delta<ApiRoute> apiRoutes = new Delta<>();
+
+    @JsonProperty("entryPoints")
+    private Delta<EntryPoint> entryPoints = new Delta<>();
+
+    public ProjectMetadataDiff() {
+    }
+
+    public String getBase() {
+        return base;
+    }
+
+    public void setBase(String base) {
+        this.base = base;
+    }
+
+    public String getHead() {
+        return head;
+    }
+
+    public void setHead(String head) {
+        this.head = head;
+    }
+
+    public boolean isChanged() {
+        return changed;
+    }
+
+    public void setChanged(boolean changed) {
+        this.changed = changed;
+    }
+
+    public Change getProjectType() {
+        return projectType;
+    }
+
+    public void setProjectType(Change projectType) {
+        this.projectType = projectType;
+    }
+
+    public Change getBuildTool() {
+        return buildTool;
+    }
+
+    public void setBuildTool(Change buildTool) {
+        this.buildTool = buildTool;
+    }
+
+    public Change getJavaVersion() {
+        return javaVersion;
+    }
+
+    public void setJavaVersion(Change javaVersion) {
+        this.javaVersion = javaVersion;
+    }
+
+    public Change getDatabase() {
+        return database;
+    }
+
+    public void setDatabase(Change database) {
+        this.database = database;
+    }
+
+    public Change getOrm() {
+        return orm;
+    }
+
+    public void setOrm(Change orm) {
+        this.orm = orm;
+    }
+
+    public Delta<String> getLanguages() {
+        return languages;
+    }
+
+    public void setLanguages(Delta<String> languages) {
+        this.languages = languages;
+    }
+
+    public Delta<String> getFrameworks() {
+        return frameworks;
+    }
+
+    public void setFrameworks(Delta<String> frameworks) {
+        this.frameworks = frameworks;
+    }
+
+    public Delta<String> getDependencies() {
+        return dependencies;
+    }
+
+    public void setDependencies(Delta<String> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    public Delta<ApiRoute> getApiRoutes() {
+        return apiRoutes;
+    }
+
+    public void setApiRoutes(Delta<ApiRoute> apiRoutes) {
+        this.apiRoutes = apiRoutes;
+    }
+
+    public Delta<EntryPoint> getEntryPoints() {
+        return entryPoints;
+    }
+
+    public void setEntryPoints(Delta<EntryPoint> entryPoints) {
+        this.entryPoints = entryPoints;
+    }
+
+    /**
+     * A single value that differs between the two analyses.
+     */
+    public static class Change {
+
+        @JsonProperty("before")
+        private String before;
+
+        @JsonProperty("after")
+        private String after;
+
+        public Change() {
+        }
+
+        public Change(String before, String after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        public String getBefore() {
+            return before;
+        }
+
+        public String getAfter() {
+            return after;
+        }
+    }
+
+    /**
+     * Items present in only one of the two analyses.
+     */
+    public static class Delta<T> {
+
+        @JsonProperty("added")
+        private List<T> added = new ArrayList<>();
+
+        @JsonProperty("removed")
+        private List<T> removed = new ArrayList<>();
+
+        public Delta() {
+        }
+
+        public Delta(List<T> added, List<T> removed) {
+            this.added = added;
+            this.removed = removed;
+        }
+
+        public List<T> getAdded() {
+            return added;
+        }
+
+        public List<T> getRemoved() {
+            return removed;
+        }
+
+        @JsonIgnore
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+}
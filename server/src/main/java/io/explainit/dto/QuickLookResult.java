@@ -0,0 +1,81 @@
+package io.explainit.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cheap first impression of an uploaded project, built from the ZIP central directory
+ * and a handful of small manifests instead of the full analyzer suite.
+ */
+public class QuickLookResult {
+
+    @JsonProperty("primaryLanguage")
+    private String primaryLanguage;
+
+    @JsonProperty("languageVersion")
+    private String languageVersion;
+
+    @JsonProperty("detectedLanguages")
+    private List<String> detectedLanguages = new ArrayList<>();
+
+    @JsonProperty("buildTool")
+    private String buildTool;
+
+    @JsonProperty("frameworks")
+    private List<DetectionResult> frameworks = new ArrayList<>();
+
+    @JsonProperty("projectStructure")
+    private ProjectStructure projectStructure;
+
+    public QuickLookResult() {
+    }
+
+    public String getPrimaryLanguage() {
+        return primaryLanguage;
+    }
+
+    public void setPrimaryLanguage(String primaryLanguage) {
+        this.primaryLanguage = primaryLanguage;
+    }
+
+    public String getLanguageVersion() {
+        return languageVersion;
+    }
+
+    public void setLanguageVersion(String languageVersion) {
+        this.languageVersion = languageVersion;
+    }
+
+    public List<String> getDetectedLanguages() {
+        return detectedLanguages;
+    }
+
+    public void setDetectedLanguages(List<String> detectedLanguages) {
+        this.detectedLanguages = detectedLanguages;
+    }
+
+    public String getBuildTool() {
+        return buildTool;
+    }
+
+    public void setBuildTool(String buildTool) {
+        this.buildTool = buildTool;
+    }
+
+    public List<DetectionResult> getFrameworks() {
+        return frameworks;
+    }
+
+    public void setFrameworks(List<DetectionResult> frameworks) {
+        this.frameworks = frameworks;
+    }
+
+    public ProjectStructure getProjectStructure() {
+        return projectStructure;
+    }
+
+    public void setProjectStructure(ProjectStructure projectStructure) {
+        this.projectStructure = projectStructure;
+    }
+}
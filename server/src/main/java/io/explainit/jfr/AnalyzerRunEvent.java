@@ -0,0 +1,28 @@
+package io.explainit.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One analyzer ran over a project.
+ */
+@Name("io.explainit.AnalyzerRun")
+@Label("Analyzer Run")
+@Category({"ExplainIt", "Analysis"})
+@Description("A single IProjectAnalyzer run")
+@StackTrace(false)
+public class AnalyzerRunEvent extends Event {
+
+    @Label("Project Digest")
+    public String digest;
+
+    @Label("Analyzer")
+    public String analyzer;
+
+    @Label("Outcome")
+    @Description("\"success\", \"failure\", \"timeout\" or \"cancelled\"; a timed out run ends at the timeout")
+    public String outcome;
+
+    @Label("File Count")
+    @Description("Files in the project index")
+    public long fileCount;
+}
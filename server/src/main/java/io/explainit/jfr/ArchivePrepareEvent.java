@@ -0,0 +1,28 @@
+package io.explainit.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * An archive was extracted to disk or indexed in place.
+ */
+@Name("io.explainit.ArchivePrepare")
+@Label("Archive Prepare")
+@Category({"ExplainIt", "Analysis"})
+@Description("Extracting an archive or indexing its central directory")
+@StackTrace(false)
+public class ArchivePrepareEvent extends Event {
+
+    @Label("Project Digest")
+    public String digest;
+
+    @Label("Mode")
+    @Description("\"extract\" or \"in-archive\"")
+    public String mode;
+
+    @Label("File Count")
+    public long fileCount;
+
+    @Label("Total Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,26 @@
+package io.explainit.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A file's content was loaded into the content cache.
+ * Cache hits are not recorded, since they do no I/O.
+ */
+@Name("io.explainit.FileRead")
+@Label("Project File Read")
+@Category({"ExplainIt", "I/O"})
+@Description("Loading a project file from disk or from the archive")
+@StackTrace(false)
+public class FileReadEvent extends Event {
+
+    @Label("Project Digest")
+    public String digest;
+
+    @Label("Path")
+    @Description("Path relative to the project root")
+    public String path;
+
+    @Label("Characters Read")
+    @Description("Length of the decoded content; not a byte count")
+    public long chars;
+}
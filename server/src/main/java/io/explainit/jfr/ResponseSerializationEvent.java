@@ -0,0 +1,24 @@
+package io.explainit.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * An analysis response was serialized to JSON.
+ */
+@Name("io.explainit.ResponseSerialization")
+@Label("Response Serialization")
+@Category({"ExplainIt", "Analysis"})
+@Description("Serializing an analysis response to JSON")
+@StackTrace(false)
+public class ResponseSerializationEvent extends Event {
+
+    @Label("Project Digest")
+    public String digest;
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Response Size")
+    @DataAmount
+    public long bytes;
+}
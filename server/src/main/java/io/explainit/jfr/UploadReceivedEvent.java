@@ -0,0 +1,21 @@
+package io.explainit.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * An uploaded archive was read and hashed.
+ */
+@Name("io.explainit.UploadReceived")
+@Label("Upload Received")
+@Category({"ExplainIt", "Analysis"})
+@Description("Reading and hashing an uploaded archive")
+@StackTrace(false)
+public class UploadReceivedEvent extends Event {
+
+    @Label("Project Digest")
+    public String digest;
+
+    @Label("Archive Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,179 @@
+package io.explainit.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for requests that upload archives or analyze them while the client waits.
+ * Every request is charged an estimated cost against a shared budget: its upload size
+ * up front, plus a per-entry cost once the archive's entry count is known. Requests that
+ * do not fit wait briefly in arrival order; beyond that, or when too many are already
+ * waiting, they are rejected so the node sheds load instead of running out of heap or disk.
+ * The per-entry cost is only taken if it is available right away, since a request
+ * waiting for more while holding its upload charge could deadlock with another.
+ * Costs are tracked in kilobytes. A single request is never charged more than the whole
+ * budget, so any upload can still run on an otherwise idle node. Independent of cost, at most
+ * a fixed number of requests are admitted at once, which is what the pool running admitted
+ * analyses is sized to.
+ */
+@Component
+public class AnalysisAdmission {
+
+    private final Semaphore budget;
+    private final int budgetKb;
+    private final Semaphore slots;
+    private final int maxConcurrent;
+    private final long entryCostBytes;
+    private final long unknownLengthBytes;
+    private final long queueTimeoutMillis;
+    private final int maxQueued;
+    private final long retryAfterSeconds;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejected;
+
+    /**
+     * Budget held by one admitted request; closing it returns the budget.
+     */
+    public class Permit implements AutoCloseable {
+        private int chargedKb;
+        private boolean closed;
+
+        private Permit(int chargedKb) {
+            this.chargedKb = chargedKb;
+        }
+
+        /**
+         * Charge the per-entry cost of the archive without waiting.
+         * Taking it ahead of requests queued for admission is deliberate: they wait
+         * for budget this request would otherwise hold on to while it waits itself.
+         *
+         * @param entryCount Entries in the archive's central directory
+         * @throws RejectedExecutionException if the extra cost is not available right now
+         */
+        public synchronized void chargeEntries(long entryCount) {
+            int extraKb = Math.min(toKb(entryCount * entryCostBytes), budgetKb - chargedKb);
+            if (closed || extraKb <= 0) {
+                return;
+            }
+            if (!budget.tryAcquire(extraKb)) {
+                rejected.increment();
+                throw new RejectedExecutionException("No budget left for the archive's entries");
+            }
+            chargedKb += extraKb;
+        }
+
+        public synchronized int getChargedKb() {
+            return chargedKb;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                budget.release(chargedKb);
+                slots.release();
+            }
+        }
+    }
+
+    public AnalysisAdmission(
+        MeterRegistry registry,
+        @Value("${explainit.admission.budget-mb:256}") int budgetMb,
+        @Value("${explainit.admission.max-concurrent:16}") int maxConcurrent,
+        @Value("${explainit.admission.entry-cost-kb:2}") long entryCostKb,
+        @Value("${explainit.admission.unknown-length-mb:100}") long unknownLengthMb,
+        @Value("${explainit.admission.queue-timeout-ms:2000}") long queueTimeoutMillis,
+        @Value("${explainit.admission.max-queued:8}") int maxQueued,
+        @Value("${explainit.admission.retry-after-seconds:5}") long retryAfterSeconds
+    ) {
+        this.budgetKb = budgetMb * 1024;
+        this.budget = new Semaphore(budgetKb, true);
+        this.maxConcurrent = maxConcurrent;
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.entryCostBytes = entryCostKb * 1024;
+        this.unknownLengthBytes = unknownLengthMb * 1024 * 1024;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.maxQueued = maxQueued;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("explainit.admission.budget.used", budget, b -> (budgetKb - b.availablePermits()) * 1024.0)
+            .description("Estimated cost of the analyses currently admitted")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("explainit.admission.queued", queued, AtomicInteger::get)
+            .description("Requests waiting for admission")
+            .register(registry);
+        this.rejected = Counter.builder("explainit.admission.rejected")
+            .description("Requests rejected by admission control")
+            .register(registry);
+    }
+
+    /**
+     * Admit a request based on its upload size.
+     *
+     * @param contentLength Request body size, or -1 if unknown
+     * @return The permit to close once the response is complete
+     * @throws RejectedExecutionException if the request cannot be admitted in time
+     */
+    public Permit admit(long contentLength) throws InterruptedException {
+        long cost = contentLength < 0 ? unknownLengthBytes : contentLength;
+        int costKb = Math.max(1, Math.min(toKb(cost), budgetKb));
+        // The timed form respects arrival order, plain tryAcquire would barge ahead of waiters
+        if (slots.tryAcquire(1, 0, TimeUnit.MILLISECONDS)) {
+            if (budget.tryAcquire(costKb, 0, TimeUnit.MILLISECONDS)) {
+                return new Permit(costKb);
+            }
+            slots.release();
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("Admission queue is full");
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+            if (!slots.tryAcquire(1, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Timed out waiting for admission");
+            }
+            if (!budget.tryAcquire(costKb, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                slots.release();
+                rejected.increment();
+                throw new RejectedExecutionException("Timed out waiting for admission");
+            }
+            return new Permit(costKb);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private static int toKb(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (bytes + 1023) / 1024);
+    }
+
+    /**
+     * Seconds a rejected client should wait before retrying.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * @return Most requests admitted at the same time
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getAvailableKb() {
+        return budget.availablePermits();
+    }
+}
@@ -0,0 +1,162 @@
+package io.explainit.service;
+
+import io.explainit.analyzer.AnalysisListener;
+import io.explainit.dto.ApiRoute;
+import io.explainit.dto.BuildInfo;
+import io.explainit.dto.EntryPoint;
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.dto.ProjectMetadataDiff;
+import io.explainit.util.Cancellation;
+import org.springframework.stereotype.Service;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Compares two analyses of a project to show what changed architecturally.
+ * Archives are analyzed one after the other, so the second analysis finds the facts of every
+ * Java file the two share in the fact cache and only parses the files that differ; either
+ * side may also come straight from the result cache. Stored analyses are looked up by job id
+ * or by digest, the SHA-256 of an archive or the digest returned for a manifest.
+ */
+@Service
+public class AnalysisDiffService {
+
+    private static final String DATABASE_HINT = "Database: ";
+    private static final String ORM_HINT = "ORM: ";
+
+    private final ProjectAnalysisService analysisService;
+    private final AnalysisJobService jobService;
+    private final AnalysisResultCache resultCache;
+
+    public AnalysisDiffService(ProjectAnalysisService analysisService, AnalysisJobService jobService,
+                               AnalysisResultCache resultCache) {
+        this.analysisService = analysisService;
+        this.jobService = jobService;
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Analyze two archives and compare them.
+     *
+     * @param base Stream over the earlier ZIP archive
+     * @param head Stream over the later ZIP archive
+     * @throws Exception if either archive cannot be read or analyzed
+     */
+    public ProjectMetadataDiff diff(InputStream base, InputStream head) throws Exception {
+        return diff(base, head, Cancellation.NONE);
+    }
+
+    /**
+     * Analyze two archives and compare them, giving up once cancelled.
+     *
+     * @param base Stream over the earlier ZIP archive
+     * @param head Stream over the later ZIP archive
+     * @param cancellation Stops either analysis, e.g. when the client disconnects
+     * @throws java.util.concurrent.CancellationException if cancelled before the comparison was made
+     * @throws Exception if either archive cannot be read or analyzed
+     */
+    public ProjectMetadataDiff diff(InputStream base, InputStream head, Cancellation cancellation) throws Exception {
+        ProjectMetadata before = analysisService.analyzeArchive(base, AnalysisListener.NONE, new AnalysisProfile(),
+            cancellation);
+        cancellation.throwIfCancelled();
+        ProjectMetadata after = analysisService.analyzeArchive(head, AnalysisListener.NONE, new AnalysisProfile(),
+            cancellation);
+        return compare(before.getArchiveDigest(), before, after.getArchiveDigest(), after);
+    }
+
+    /**
+     * Look up a finished analysis.
+     *
+     * @param id Id of a completed job, or the digest of an analyzed archive or manifest
+     * @return The analysis, or empty if it is unknown, unfinished or no longer cached
+     */
+    public Optional<ProjectMetadata> findAnalysis(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        // Digests name files in the result cache, so nothing else may reach it
+        String digest = id.toLowerCase(Locale.ROOT);
+        if (AnalysisResultCache.isDigest(digest)) {
+            return resultCache.get(digest);
+        }
+        return jobService.getJob(id).map(AnalysisJob::getResult);
+    }
+
+    /**
+     * Compare two analyses.
+     *
+     * @param baseId Identifies the earlier analysis in the response
+     * @param headId Identifies the later analysis in the response
+     */
+    public static ProjectMetadataDiff compare(String baseId, ProjectMetadata base, String headId, ProjectMetadata head) {
+        ProjectMetadataDiff diff = new ProjectMetadataDiff();
+        diff.setBase(baseId);
+        diff.setHead(headId);
+
+        diff.setProjectType(change(base.getProjectType(), head.getProjectType()));
+        BuildInfo baseBuild = base.getBuildInfo() != null ? base.getBuildInfo() : new BuildInfo();
+        BuildInfo headBuild = head.getBuildInfo() != null ? head.getBuildInfo() : new BuildInfo();
+        diff.setBuildTool(change(baseBuild.getBuildTool(), headBuild.getBuildTool()));
+        diff.setJavaVersion(change(baseBuild.getJavaVersion(), headBuild.getJavaVersion()));
+        diff.setDatabase(change(hint(base, DATABASE_HINT), hint(head, DATABASE_HINT)));
+        diff.setOrm(change(hint(base, ORM_HINT), hint(head, ORM_HINT)));
+
+        diff.setLanguages(delta(base.getLanguages(), head.getLanguages(), Function.identity()));
+        diff.setFrameworks(delta(base.getFrameworks(), head.getFrameworks(), Function.identity()));
+        diff.setDependencies(delta(baseBuild.getDependencies(), headBuild.getDependencies(), Function.identity()));
+        diff.setApiRoutes(delta(base.getApiRoutes(), head.getApiRoutes(),
+            route -> route.getMethod() + " " + route.getPath() + " " + route.getHandler()));
+        diff.setEntryPoints(delta(base.getEntryPoints(), head.getEntryPoints(),
+            entryPoint -> entryPoint.getClassName() + "#" + entryPoint.getMethodName() + " " + entryPoint.getType()));
+
+        diff.setChanged(diff.getProjectType() != null || diff.getBuildTool() != null
+            || diff.getJavaVersion() != null || diff.getDatabase() != null || diff.getOrm() != null
+            || !diff.getLanguages().isEmpty() || !diff.getFrameworks().isEmpty()
+            || !diff.getDependencies().isEmpty() || !diff.getApiRoutes().isEmpty()
+            || !diff.getEntryPoints().isEmpty());
+        return diff;
+    }
+
+    private static ProjectMetadataDiff.Change change(String before, String after) {
+        return Objects.equals(before, after) ? null : new ProjectMetadataDiff.Change(before, after);
+    }
+
+    private static String hint(ProjectMetadata metadata, String prefix) {
+        if (metadata.getDataLayerHints() == null) {
+            return null;
+        }
+        for (String hint : metadata.getDataLayerHints()) {
+            if (hint.startsWith(prefix)) {
+                return hint.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Items of each side whose key does not occur on the other side, in their original order.
+     */
+    private static <T> ProjectMetadataDiff.Delta<T> delta(List<T> before, List<T> after, Function<T, String> key) {
+        List<T> baseItems = before != null ? before : List.of();
+        List<T> headItems = after != null ? after : List.of();
+        Set<String> baseKeys = new HashSet<>();
+        baseItems.forEach(item -> baseKeys.add(key.apply(item)));
+        Set<String> headKeys = new HashSet<>();
+        headItems.forEach(item -> headKeys.add(key.apply(item)));
+
+        List<T> added = new ArrayList<>();
+        for (T item : headItems) {
+            if (!baseKeys.contains(key.apply(item))) {
+                added.add(item);
+            }
+        }
+        List<T> removed = new ArrayList<>();
+        for (T item : baseItems) {
+            if (!headKeys.contains(key.apply(item))) {
+                removed.add(item);
+            }
+        }
+        return new ProjectMetadataDiff.Delta<>(added, removed);
+    }
+}
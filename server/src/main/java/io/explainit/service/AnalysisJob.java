@@ -0,0 +1,255 @@
+package io.explainit.service;
+
+import io.explainit.dto.ProjectMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * A single analysis submitted through the job API.
+ * Every state change is published as a named event. Events are retained, so a
+ * subscriber that attaches late first receives everything it missed, in order.
+ * Events are recorded under the job's lock but delivered outside it, one publishing
+ * thread at a time, so a listener never holds up status queries.
+ */
+public class AnalysisJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisJob.class);
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Receives job events, in order and never concurrently. Called on the thread that published
+     * the event, often an analyzer thread, so implementations must not block for long.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    public static class Event {
+        private final String name;
+        private final Object data;
+        private final boolean last;
+
+        Event(String name, Object data, boolean last) {
+            this.name = name;
+            this.data = data;
+            this.last = last;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Object getData() {
+            return data;
+        }
+
+        /**
+         * @return true for the final status event; nothing is published after it
+         */
+        public boolean isLast() {
+            return last;
+        }
+    }
+
+    private final String id;
+    private final Instant submittedAt = Instant.now();
+    private Status status = Status.QUEUED;
+    private Instant startedAt;
+    private Instant completedAt;
+    private ProjectMetadata result;
+    private String error;
+
+    private final List<Event> events = new ArrayList<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    // Set while some thread is delivering events; guarded by this
+    private boolean delivering;
+
+    AnalysisJob(String id) {
+        this.id = id;
+        events.add(new Event("status", statusSnapshot(), false));
+    }
+
+    /**
+     * Replay every event published so far, then deliver new ones as they happen.
+     */
+    public void subscribe(Listener listener) {
+        synchronized (this) {
+            subscriptions.add(new Subscription(listener));
+        }
+        deliver();
+    }
+
+    public synchronized void unsubscribe(Listener listener) {
+        subscriptions.removeIf(subscription -> subscription.listener == listener);
+    }
+
+    void publish(String name, Object data) {
+        synchronized (this) {
+            record(new Event(name, data, false));
+        }
+        deliver();
+    }
+
+    private void record(Event event) {
+        if (!events.isEmpty() && events.get(events.size() - 1).isLast()) {
+            // An analyzer that outlived its timeout reports after the job has finished
+            return;
+        }
+        events.add(event);
+    }
+
+    void markRunning() {
+        synchronized (this) {
+            status = Status.RUNNING;
+            startedAt = Instant.now();
+            record(new Event("status", statusSnapshot(), false));
+        }
+        deliver();
+    }
+
+    void markCompleted(ProjectMetadata metadata) {
+        synchronized (this) {
+            if (isFinished()) {
+                return;
+            }
+            result = metadata;
+            record(new Event("result", metadata, false));
+            finish(Status.COMPLETED);
+        }
+        deliver();
+    }
+
+    /**
+     * Fail the job, unless it has already finished.
+     */
+    void markFailed(String message) {
+        synchronized (this) {
+            if (isFinished()) {
+                return;
+            }
+            error = message;
+            finish(Status.FAILED);
+        }
+        deliver();
+    }
+
+    private void finish(Status finalStatus) {
+        status = finalStatus;
+        completedAt = Instant.now();
+        record(new Event("status", statusSnapshot(), true));
+    }
+
+    /**
+     * Hand every subscriber the events it has not seen yet, outside the lock.
+     * Only one thread delivers at a time; a thread that finds delivery in progress
+     * leaves its events to that thread, which keeps going until nothing is pending.
+     */
+    private void deliver() {
+        synchronized (this) {
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        boolean drained = false;
+        try {
+            while (true) {
+                Map<Subscription, List<Event>> pending = new LinkedHashMap<>();
+                synchronized (this) {
+                    for (Subscription subscription : subscriptions) {
+                        if (subscription.delivered < events.size()) {
+                            pending.put(subscription, List.copyOf(events.subList(subscription.delivered, events.size())));
+                            subscription.delivered = events.size();
+                        }
+                    }
+                    if (pending.isEmpty()) {
+                        // Subscribers that received the final event have nothing more coming
+                        if (isFinished()) {
+                            subscriptions.clear();
+                        }
+                        delivering = false;
+                        drained = true;
+                        return;
+                    }
+                }
+                pending.forEach((subscription, batch) -> {
+                    try {
+                        for (Event event : batch) {
+                            subscription.listener.onEvent(event);
+                        }
+                    } catch (RuntimeException e) {
+                        // A failing subscriber must not cost the others their events
+                        log.warn("Dropping subscriber of job {}", id, e);
+                        unsubscribe(subscription.listener);
+                    }
+                });
+            }
+        } finally {
+            if (!drained) {
+                synchronized (this) {
+                    delivering = false;
+                }
+            }
+        }
+    }
+
+    private static final class Subscription {
+        private final Listener listener;
+        // Number of events handed to the listener so far; guarded by the job
+        private int delivered;
+
+        private Subscription(Listener listener) {
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * @return Status fields suitable for a JSON response, without the result
+     */
+    public synchronized Map<String, Object> statusSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("jobId", id);
+        snapshot.put("status", status);
+        snapshot.put("submittedAt", submittedAt.toString());
+        if (startedAt != null) {
+            snapshot.put("startedAt", startedAt.toString());
+        }
+        if (completedAt != null) {
+            snapshot.put("completedAt", completedAt.toString());
+        }
+        if (error != null) {
+            snapshot.put("message", error);
+        }
+        return snapshot;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public synchronized Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public synchronized ProjectMetadata getResult() {
+        return result;
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,192 @@
+package io.explainit.service;
+
+import io.explainit.analyzer.AnalysisListener;
+import io.explainit.dto.AnalysisResult;
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.util.Cancellation;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Runs analyses as background jobs so uploads do not hold a request thread
+ * for the whole analysis. Jobs run on bounded worker pools with bounded queues;
+ * when a queue is full, submissions are rejected instead of piling up.
+ * Small archives have their own lane so they are not stuck behind large ones.
+ * Finished jobs are kept for a retention period so clients can fetch the result.
+ */
+@Service
+public class AnalysisJobService {
+
+    private final ProjectAnalysisService analysisService;
+    private final LaneExecutor smallWorkers;
+    private final LaneExecutor largeWorkers;
+    private final long smallProjectBytes;
+    private final long retryAfterSeconds;
+    private final long retentionMillis;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    public AnalysisJobService(
+        ProjectAnalysisService analysisService,
+        AnalysisMetrics metrics,
+        @Value("${explainit.jobs.workers:2}") int workerCount,
+        @Value("${explainit.jobs.small-workers:1}") int smallWorkerCount,
+        @Value("${explainit.analysis.small-project-mb:1}") long smallProjectMb,
+        @Value("${explainit.jobs.queue-capacity:16}") int queueCapacity,
+        @Value("${explainit.jobs.retry-after-seconds:5}") long retryAfterSeconds,
+        @Value("${explainit.jobs.retention-minutes:30}") long retentionMinutes
+    ) {
+        this.analysisService = analysisService;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+        this.smallProjectBytes = smallProjectMb * 1024 * 1024;
+        this.smallWorkers = new LaneExecutor("job", LaneExecutor.SMALL, smallWorkerCount,
+            new ArrayBlockingQueue<>(queueCapacity), metrics);
+        this.largeWorkers = new LaneExecutor("job", LaneExecutor.LARGE, workerCount,
+            new ArrayBlockingQueue<>(queueCapacity), metrics);
+    }
+
+    /**
+     * Queue an archive for analysis. The archive is copied to a spool file first,
+     * so queued jobs do not hold their uploads in memory.
+     *
+     * @param archive Stream over the ZIP archive; the upload is gone once the request returns
+     * @return The queued job
+     * @throws io.explainit.util.ArchiveLimitException if the archive exceeds the upload limit
+     * @throws IOException if the archive cannot be spooled
+     * @throws RejectedExecutionException if the queue of the archive's lane is full
+     */
+    public AnalysisJob submit(InputStream archive) throws IOException {
+        ArchiveUpload upload = analysisService.spool(archive, new AnalysisProfile());
+        try {
+            return submit(upload);
+        } catch (RejectedExecutionException e) {
+            upload.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Queue an upload for analysis. The job takes over the upload and closes it when done;
+     * if the submission is rejected, the upload stays with the caller.
+     *
+     * @param upload The complete archive, e.g. assembled from chunks in a spool file
+     * @return The queued job
+     * @throws RejectedExecutionException if the queue of the archive's lane is full
+     */
+    public AnalysisJob submit(ArchiveUpload upload) {
+        long projectBytes;
+        try {
+            projectBytes = upload.readInflatedSize();
+        } catch (IOException e) {
+            // Not a readable archive; the analysis reports that, on whichever lane
+            projectBytes = upload.getSize();
+        }
+        return submit(projectBytes, listener -> {
+            try (upload) {
+                return analysisService.analyzeUpload(upload, listener, new AnalysisProfile(), Cancellation.NONE);
+            }
+        });
+    }
+
+    /**
+     * Queue a project assembled from content-addressed blobs for analysis.
+     *
+     * @param digest Digest of the manifest the files were resolved from
+     * @param files Blob holding each file's content, keyed by path relative to the project root
+     * @return The queued job
+     * @throws RejectedExecutionException if the queue of the project's lane is full
+     */
+    public AnalysisJob submit(String digest, Map<String, Path> files) {
+        long projectBytes = 0;
+        for (Path blob : files.values()) {
+            try {
+                projectBytes += Files.size(blob);
+            } catch (IOException e) {
+                // Reported by the analysis itself
+            }
+        }
+        return submit(projectBytes, listener ->
+            analysisService.analyzeBlobs(digest, files, listener, new AnalysisProfile(), Cancellation.NONE));
+    }
+
+    /**
+     * @param projectBytes Uncompressed size of the project, as analyses measure it when picking their lane
+     */
+    private AnalysisJob submit(long projectBytes, Analysis analysis) {
+        evictExpiredJobs();
+
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        try {
+            LaneExecutor workers = projectBytes < smallProjectBytes ? smallWorkers : largeWorkers;
+            workers.execute(() -> run(job, analysis));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    private void run(AnalysisJob job, Analysis analysis) {
+        try {
+            job.markRunning();
+            ProjectMetadata metadata = analysis.run(
+                (analyzerName, result) -> job.publish("analyzer", analyzerEvent(analyzerName, result)));
+            job.markCompleted(metadata);
+        } catch (Throwable e) {
+            // Errors too, such as running out of memory, or the job would stay RUNNING forever
+            job.markFailed(e.getMessage() != null ? e.getMessage() : e.toString());
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private interface Analysis {
+        ProjectMetadata run(AnalysisListener listener) throws Exception;
+    }
+
+    private static Map<String, Object> analyzerEvent(String analyzerName, AnalysisResult result) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("analyzer", analyzerName);
+        event.put("result", result);
+        return event;
+    }
+
+    public Optional<AnalysisJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Seconds a rejected client should wait before retrying.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public int getQueueDepth() {
+        return smallWorkers.getQueue().size() + largeWorkers.getQueue().size();
+    }
+
+    private void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minusMillis(retentionMillis);
+        jobs.values().removeIf(job -> job.isFinished() && job.getCompletedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        smallWorkers.shutdownNow();
+        largeWorkers.shutdownNow();
+    }
+}
@@ -0,0 +1,144 @@
+package io.explainit.service;
+
+import io.explainit.analyzer.AnalysisListener;
+import io.explainit.dto.AnalysisResult;
+import io.explainit.jfr.ResponseSerializationEvent;
+import io.explainit.util.FileContentCache;
+import io.explainit.util.ProjectIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the analysis pipeline, exposed through Actuator and Prometheus.
+ * <ul>
+ *   <li>explainit.analyzer.duration - per analyzer run, tagged analyzer and outcome</li>
+ *   <li>explainit.archive.prepare.duration - extracting or indexing the upload, tagged mode</li>
+ *   <li>explainit.scan.files / explainit.scan.chars - file contents read by analyzers</li>
+ *   <li>explainit.index.files - files indexed per analysis</li>
+ *   <li>explainit.response.serialization.duration - JSON serialization, tagged endpoint</li>
+ *   <li>explainit.lane.queue.wait - time queued before a worker picks a task up, tagged pool and lane</li>
+ * </ul>
+ * Tagged meters are registered on first use and kept, so recording does not go through the registry.
+ */
+@Component
+public class AnalysisMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter filesScanned;
+    private final Counter charsScanned;
+    private final Counter filesIndexed;
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+
+    private final AnalysisListener analyzerListener = new AnalysisListener() {
+        @Override
+        public void onAnalyzerCompleted(String analyzerName, AnalysisResult result) {
+        }
+
+        @Override
+        public void onAnalyzerFinished(String analyzerName, Outcome outcome, long durationNanos) {
+            String outcomeTag = outcome.name().toLowerCase();
+            timer(List.of("explainit.analyzer.duration", analyzerName, outcomeTag),
+                () -> Timer.builder("explainit.analyzer.duration")
+                    .description("Time spent in each analyzer")
+                    .tag("analyzer", analyzerName)
+                    .tag("outcome", outcomeTag))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    };
+
+    public AnalysisMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.filesScanned = Counter.builder("explainit.scan.files")
+            .description("Files read by analyzers")
+            .register(registry);
+        this.charsScanned = Counter.builder("explainit.scan.chars")
+            .description("Characters of file content read by analyzers")
+            .baseUnit("chars")
+            .register(registry);
+        this.filesIndexed = Counter.builder("explainit.index.files")
+            .description("Files listed in project indexes")
+            .register(registry);
+    }
+
+    /**
+     * @return Listener recording per-analyzer timers, to be combined with any per-request listener
+     */
+    public AnalysisListener analyzerListener() {
+        return analyzerListener;
+    }
+
+    /**
+     * Time the step that turns an upload into a ProjectIndex.
+     *
+     * @param mode "in-archive" or "extract"
+     */
+    public <T> T timePrepare(String mode, Callable<T> step) throws Exception {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return step.call();
+        } finally {
+            sample.stop(timer(List.of("explainit.archive.prepare.duration", mode),
+                () -> Timer.builder("explainit.archive.prepare.duration")
+                    .description("Time to extract or index an uploaded archive")
+                    .tag("mode", mode)));
+        }
+    }
+
+    /**
+     * Record how much of the project the analyzers read, once the analysis is done.
+     */
+    public void recordScan(ProjectIndex index) {
+        FileContentCache contentCache = index.getContentCache();
+        filesScanned.increment(contentCache.getFilesRead());
+        charsScanned.increment(contentCache.getCharsRead());
+        filesIndexed.increment(index.countAllFiles());
+    }
+
+    /**
+     * @return Timer for the time tasks wait in a lane, for the lane to keep
+     */
+    public Timer queueWaitTimer(String pool, String lane) {
+        return timer(List.of("explainit.lane.queue.wait", pool, lane),
+            () -> Timer.builder("explainit.lane.queue.wait")
+                .description("Time tasks wait in a scheduling lane before running")
+                .tag("pool", pool)
+                .tag("lane", lane));
+    }
+
+    /**
+     * Time serializing a response, also recorded as a JFR event when enabled.
+     *
+     * @param digest Digest of the analyzed archive, may be null
+     */
+    public byte[] timeSerialization(String endpoint, String digest, Supplier<byte[]> serialization) {
+        ResponseSerializationEvent event = new ResponseSerializationEvent();
+        event.begin();
+        byte[] body = timer(List.of("explainit.response.serialization.duration", endpoint),
+            () -> Timer.builder("explainit.response.serialization.duration")
+                .description("Time to serialize analysis responses to JSON")
+                .tag("endpoint", endpoint))
+            .record(serialization);
+        if (event.shouldCommit()) {
+            event.endpoint = endpoint;
+            event.digest = digest;
+            event.bytes = body.length;
+            event.commit();
+        }
+        return body;
+    }
+
+    /**
+     * @param key Meter name followed by its tag values
+     */
+    private Timer timer(List<String> key, Supplier<Timer.Builder> builder) {
+        return timers.computeIfAbsent(key, k -> builder.get().register(registry));
+    }
+}
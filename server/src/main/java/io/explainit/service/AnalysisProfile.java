@@ -0,0 +1,122 @@
+package io.explainit.service;
+
+import io.explainit.analyzer.AnalysisListener;
+import io.explainit.dto.AnalysisResult;
+import io.explainit.util.FileContentCache;
+import io.explainit.util.ProjectIndex;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Where the time and I/O of a single analysis went, returned to clients that ask for it.
+ * Phases are recorded in the order they finish; analyzers report from their own threads.
+ */
+public class AnalysisProfile implements AnalysisListener {
+
+    /**
+     * How the result was obtained.
+     */
+    public enum Source {
+        ANALYSIS, CACHE, IN_FLIGHT
+    }
+
+    private Source source = Source.ANALYSIS;
+    private String lane;
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final Map<String, Map<String, Object>> analyzers = new LinkedHashMap<>();
+    private int directoryWalks;
+    private long filesIndexed;
+    private long filesRead;
+    private long charsRead;
+    private long contentCacheHits;
+    private long filesPrefetched;
+    private long regexMatchCalls;
+    private long javaFactsReused;
+    private long javaFactsExtracted;
+    private long peakTempDiskBytes;
+
+    @Override
+    public void onAnalyzerCompleted(String analyzerName, AnalysisResult result) {
+    }
+
+    @Override
+    public synchronized void onAnalyzerFinished(String analyzerName, Outcome outcome, long durationNanos) {
+        Map<String, Object> analyzer = new LinkedHashMap<>();
+        analyzer.put("timeMs", toMillis(durationNanos));
+        analyzer.put("outcome", outcome.name().toLowerCase());
+        analyzers.put(analyzerName, analyzer);
+    }
+
+    @Override
+    public synchronized void onPhaseFinished(String phase, long durationNanos) {
+        phaseNanos.merge(phase, durationNanos, Long::sum);
+    }
+
+    public synchronized void setSource(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * @param lane Scheduling lane the analyzers ran in, "small" or "large"
+     */
+    public synchronized void setLane(String lane) {
+        this.lane = lane;
+    }
+
+    /**
+     * Record the I/O done against the index once the analyzers are finished with it.
+     */
+    public synchronized void recordIndex(ProjectIndex index) {
+        FileContentCache contentCache = index.getContentCache();
+        directoryWalks += index.getDirectoryWalks();
+        filesIndexed = index.countAllFiles();
+        filesRead += contentCache.getFilesRead();
+        charsRead += contentCache.getCharsRead();
+        contentCacheHits += contentCache.getHits();
+        regexMatchCalls += index.getRegexMatchCalls();
+        javaFactsReused += index.getFactCacheHits();
+        javaFactsExtracted += index.getFactCacheMisses();
+    }
+
+    /**
+     * @param files Files decoded and scanned while the upload was still arriving
+     */
+    public synchronized void recordPrefetched(long files) {
+        filesPrefetched += files;
+    }
+
+    public synchronized void recordTempDisk(long bytes) {
+        peakTempDiskBytes = Math.max(peakTempDiskBytes, bytes);
+    }
+
+    /**
+     * @return The profile as a JSON-ready map, with times in milliseconds
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> phases = new LinkedHashMap<>();
+        phaseNanos.forEach((phase, nanos) -> phases.put(phase, toMillis(nanos)));
+
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("source", source.name().toLowerCase());
+        if (lane != null) {
+            profile.put("lane", lane);
+        }
+        profile.put("phasesMs", phases);
+        profile.put("analyzers", new LinkedHashMap<>(analyzers));
+        profile.put("directoryWalks", directoryWalks);
+        profile.put("filesIndexed", filesIndexed);
+        profile.put("filesRead", filesRead);
+        profile.put("charsRead", charsRead);
+        profile.put("contentCacheHits", contentCacheHits);
+        profile.put("filesPrefetched", filesPrefetched);
+        profile.put("regexMatchCalls", regexMatchCalls);
+        profile.put("javaFactsReused", javaFactsReused);
+        profile.put("javaFactsExtracted", javaFactsExtracted);
+        profile.put("peakTempDiskBytes", peakTempDiskBytes);
+        return profile;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,314 @@
+package io.explainit.service;
+
+import io.explainit.dto.ProjectMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cache of finished analyses keyed by the SHA-256 digest of the uploaded archive.
+ * Results are kept as serialized JSON in two tiers: a bounded in-memory tier evicted
+ * in least-recently-used order by size, backed by a directory on disk that survives
+ * restarts. Every lookup hands out a fresh ProjectMetadata, so callers may modify it.
+ * A result that can no longer be read back, e.g. a file corrupted on disk, counts as a miss
+ * and is dropped from both tiers.
+ */
+@Component
+public class AnalysisResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisResultCache.class);
+
+    // Bump when analyzer output changes so stale results on disk are ignored
+    private static final String FORMAT_VERSION = "v2";
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+
+    private final boolean enabled;
+    private final long maxMemoryBytes;
+    private final Path diskDirectory;
+    private final long maxDiskBytes;
+    private final JsonMapper mapper = JsonMapper.builder()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .build();
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+    private final Object diskLock = new Object();
+    // Size of the disk tier, computed on first write and then kept up to date; guarded by diskLock
+    private long diskBytes = -1;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public AnalysisResultCache(
+        @Value("${explainit.analysis.result-cache.enabled:true}") boolean enabled,
+        @Value("${explainit.analysis.result-cache.memory-mb:32}") long memoryMb,
+        @Value("${explainit.analysis.result-cache.disk-dir:}") String diskDir,
+        @Value("${explainit.analysis.result-cache.disk-mb:512}") long diskMb
+    ) {
+        this.enabled = enabled;
+        this.maxMemoryBytes = memoryMb * 1024 * 1024;
+        this.diskDirectory = diskDir.isBlank() ? null : Path.of(diskDir).resolve(FORMAT_VERSION);
+        this.maxDiskBytes = diskMb * 1024 * 1024;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Whether the key is a hex-encoded SHA-256, the only keys results are stored under
+     */
+    public static boolean isDigest(String key) {
+        return key != null && DIGEST.matcher(key).matches();
+    }
+
+    /**
+     * Look up a finished analysis, checking memory first and then disk.
+     *
+     * @param digest Hex-encoded SHA-256 of the archive
+     * @return The cached metadata, or empty on a miss
+     */
+    public Optional<ProjectMetadata> get(String digest) {
+        byte[] json = getJson(digest);
+        if (json == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(mapper.readValue(json, ProjectMetadata.class));
+        } catch (JacksonException e) {
+            log.warn("Ignoring unreadable cached analysis {}: {}", digest, e.getOriginalMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Copy a result so the copy shares nothing with it, the same way a lookup hands out a fresh instance.
+     * Fields that are not serialized, whether the result is partial and its digest, are carried over.
+     */
+    public ProjectMetadata copy(ProjectMetadata metadata) {
+        ProjectMetadata copy = mapper.readValue(mapper.writeValueAsBytes(metadata), ProjectMetadata.class);
+        copy.setPartial(metadata.isPartial());
+        copy.setArchiveDigest(metadata.getArchiveDigest());
+        return copy;
+    }
+
+    /**
+     * Look up the serialized form of a finished analysis.
+     *
+     * @param digest Hex-encoded SHA-256 of the archive
+     * @return The cached JSON, or null on a miss
+     */
+    public byte[] getJson(String digest) {
+        if (!enabled || !isDigest(digest)) {
+            // Digests become file names, so anything else could name a file outside the cache
+            return null;
+        }
+
+        synchronized (this) {
+            byte[] cached = entries.get(digest);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        byte[] stored = readFromDisk(digest);
+        if (stored == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        diskHits.incrementAndGet();
+        putInMemory(digest, stored);
+        return stored;
+    }
+
+    /**
+     * Store a finished analysis in both tiers. Partial results are not cached,
+     * since a timed out analyzer may succeed on the next attempt.
+     */
+    public void put(String digest, ProjectMetadata metadata) {
+        if (!enabled || metadata.isPartial() || !isDigest(digest)) {
+            return;
+        }
+
+        byte[] json = mapper.writeValueAsBytes(metadata);
+        putInMemory(digest, json);
+        writeToDisk(digest, json);
+    }
+
+    private synchronized void putInMemory(String digest, byte[] json) {
+        if (json.length > maxMemoryBytes) {
+            return;
+        }
+
+        byte[] previous = entries.put(digest, json);
+        if (previous != null) {
+            currentBytes -= previous.length;
+        }
+        currentBytes += json.length;
+
+        Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+        while (currentBytes > maxMemoryBytes && it.hasNext()) {
+            currentBytes -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    private byte[] readFromDisk(String digest) {
+        if (diskDirectory == null) {
+            return null;
+        }
+
+        Path file = diskDirectory.resolve(digest + ".json");
+        byte[] json;
+        try {
+            json = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read cached analysis {}", digest, e);
+            return null;
+        }
+
+        try {
+            // Only results that read back go into memory, so the memory tier never holds a corrupt one
+            mapper.readValue(json, ProjectMetadata.class);
+        } catch (JacksonException e) {
+            log.warn("Dropping unreadable cached analysis {}: {}", digest, e.getOriginalMessage());
+            deleteFromDisk(file);
+            return null;
+        }
+
+        try {
+            // Touch the file so disk eviction also follows recent use
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Evicted concurrently; the result read is still good
+        }
+        return json;
+    }
+
+    private void deleteFromDisk(Path file) {
+        synchronized (diskLock) {
+            try {
+                long size = Files.size(file);
+                Files.delete(file);
+                if (diskBytes >= 0) {
+                    diskBytes -= size;
+                }
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+
+    private void writeToDisk(String digest, byte[] json) {
+        if (diskDirectory == null || json.length > maxDiskBytes) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(diskDirectory);
+            // Write to a temp file first so readers never see a half-written result
+            Path temp = Files.createTempFile(diskDirectory, digest, ".tmp");
+            try {
+                Files.write(temp, json);
+                Path file = diskDirectory.resolve(digest + ".json");
+                synchronized (diskLock) {
+                    long replaced = Files.exists(file) ? Files.size(file) : 0;
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    if (diskBytes < 0) {
+                        diskBytes = listDisk().values().stream().mapToLong(Long::longValue).sum();
+                    } else {
+                        diskBytes += json.length - replaced;
+                    }
+                    // The directory is only listed again once it has grown past the budget
+                    if (diskBytes > maxDiskBytes) {
+                        trimDisk();
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store cached analysis {}", digest, e);
+        }
+    }
+
+    // Called with diskLock held
+    private void trimDisk() throws IOException {
+        Map<Path, Long> sizes = listDisk();
+        long total = 0;
+        for (long size : sizes.values()) {
+            total += size;
+        }
+        if (total > maxDiskBytes) {
+            Map<Path, FileTime> modified = new HashMap<>();
+            for (Path file : sizes.keySet()) {
+                try {
+                    modified.put(file, Files.getLastModifiedTime(file));
+                } catch (NoSuchFileException e) {
+                    modified.put(file, FileTime.fromMillis(0));
+                }
+            }
+            List<Path> oldestFirst = new ArrayList<>(sizes.keySet());
+            oldestFirst.sort(Comparator.comparing(modified::get));
+            for (Path file : oldestFirst) {
+                if (total <= maxDiskBytes) {
+                    break;
+                }
+                Files.deleteIfExists(file);
+                total -= sizes.get(file);
+            }
+        }
+        diskBytes = total;
+    }
+
+    private Map<Path, Long> listDisk() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(diskDirectory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".json"))
+                .toList();
+        }
+
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path file : files) {
+            try {
+                sizes.put(file, Files.size(file));
+            } catch (NoSuchFileException e) {
+                // Removed concurrently
+            }
+        }
+        return sizes;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+}
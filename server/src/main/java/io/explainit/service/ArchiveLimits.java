@@ -0,0 +1,53 @@
+package io.explainit.service;
+
+import io.explainit.util.ArchiveLimitException;
+import io.explainit.util.ZipExtractor;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.InputStream;
+
+/**
+ * Limits on what an uploaded archive may cost to analyze: its upload size, its entry count,
+ * and how large its entries inflate to. Uploads are checked as they are read, archives
+ * against their central directory before anything is inflated.
+ */
+@Component
+public class ArchiveLimits {
+
+    private final long maxUploadBytes;
+    private final long maxEntries;
+    private final long maxInflatedBytes;
+
+    public ArchiveLimits(
+        @Value("${explainit.analysis.max-upload-mb:100}") long maxUploadMb,
+        @Value("${explainit.analysis.max-entries:100000}") long maxEntries,
+        @Value("${explainit.analysis.max-inflated-mb:2048}") long maxInflatedMb
+    ) {
+        this.maxUploadBytes = maxUploadMb * 1024 * 1024;
+        this.maxEntries = maxEntries;
+        this.maxInflatedBytes = maxInflatedMb * 1024 * 1024;
+    }
+
+    /**
+     * @return The upload, failing with an {@link ArchiveLimitException} once more than the maximum is read
+     */
+    public InputStream limitUpload(InputStream upload) {
+        return ZipExtractor.limit(upload, maxUploadBytes, "Upload");
+    }
+
+    /**
+     * @throws ArchiveLimitException if the archive has too many entries or inflates to too much
+     */
+    public void check(ZipFile zipFile) throws ArchiveLimitException {
+        ZipExtractor.checkLimits(zipFile, maxEntries, maxInflatedBytes);
+    }
+
+    public long getMaxUploadBytes() {
+        return maxUploadBytes;
+    }
+
+    public long getMaxInflatedBytes() {
+        return maxInflatedBytes;
+    }
+}
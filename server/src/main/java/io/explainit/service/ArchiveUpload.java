@@ -0,0 +1,340 @@
+package io.explainit.service;
+
+import io.explainit.util.ArchiveLimitException;
+import io.explainit.util.Cancellation;
+import io.explainit.util.ExtractionFilter;
+import io.explainit.util.ProjectIndex;
+import io.explainit.util.SignatureEngine;
+import io.explainit.util.ZipExtractor;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * An uploaded archive together with its digest, kept in a spool file that is deleted
+ * when the upload is closed, however it arrived: copied by {@link #spool}, received by
+ * {@link #receive}, or assembled from chunks.
+ * When received through {@link #receive}, the archive's local entries are parsed while
+ * the bytes are still arriving: every file an analyzer reads is decompressed, decoded
+ * and scanned for signatures off the receiving thread, so by the time the upload ends
+ * the analyzers find their inputs already in the index' caches.
+ */
+public class ArchiveUpload implements AutoCloseable {
+
+    private final Path spool;
+    private final long size;
+    private final String digest;
+    // Keyed by entry name, first occurrence only, as the index resolves duplicates
+    private final Map<String, CompletableFuture<Prefetched>> prefetched;
+
+    /**
+     * @param spool Complete archive on disk, owned by the upload from now on
+     * @param digest Verified SHA-256 of the spool file
+     */
+    ArchiveUpload(Path spool, long size, String digest) {
+        this(spool, size, digest, Map.of());
+    }
+
+    private ArchiveUpload(Path spool, long size, String digest,
+                          Map<String, CompletableFuture<Prefetched>> prefetched) {
+        this.spool = spool;
+        this.size = size;
+        this.digest = digest;
+        this.prefetched = prefetched;
+    }
+
+    /**
+     * Copy an upload to a spool file, hashing it on the way, so the archive is never held in memory.
+     *
+     * @param upload Stream over the ZIP archive, already limited to the maximum upload size
+     * @throws IOException if the upload cannot be read or written; the spool file is removed
+     */
+    static ArchiveUpload spool(InputStream upload) throws IOException {
+        Path spool = Files.createTempFile("explainit-upload-", ".zip");
+        try {
+            MessageDigest sha256 = sha256();
+            long size;
+            try (InputStream input = new DigestInputStream(upload, sha256);
+                 OutputStream output = Files.newOutputStream(spool)) {
+                size = input.transferTo(output);
+            }
+            return new ArchiveUpload(spool, size, HexFormat.of().formatHex(sha256.digest()));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+    }
+
+    /**
+     * Read an upload to the end, copying it to a spool file and decoding the entries accepted
+     * by the filter as they arrive.
+     * The archive is parsed from its local headers, so entries the streaming parser cannot
+     * handle are simply left to the analysis, which always indexes from the central directory.
+     * Decoded entries are held until the analysis takes them over into its content cache, so
+     * together they are kept within that cache's budget; entries beyond it are left to the analysis.
+     *
+     * @param upload Stream over the ZIP archive as it arrives, already limited to the maximum upload size
+     * @param expectedLength Content length if known, or -1
+     * @param filter Entries worth decoding ahead of the analysis
+     * @param engine Signature engine the analyzers scan files with
+     * @param executor Decodes and scans entries while the upload continues
+     * @param maxInflatedBytes Most bytes entries may inflate to in total, as for an analysis
+     * @param prefetchBytes Budget for decoded entries, the analysis' content cache size
+     * @throws ArchiveLimitException if the entries inflate past the limit, or past their declared sizes
+     * @throws IOException if the upload cannot be read or written; the spool file is removed
+     * @throws java.util.concurrent.CancellationException if cancelled before the upload was read
+     */
+    static ArchiveUpload receive(InputStream upload, long expectedLength, ExtractionFilter filter,
+                                 SignatureEngine engine, Executor executor, Cancellation cancellation,
+                                 long maxInflatedBytes, long prefetchBytes) throws IOException {
+        MessageDigest sha256 = sha256();
+        Map<String, CompletableFuture<Prefetched>> prefetched = new LinkedHashMap<>();
+        Path spool = Files.createTempFile("explainit-upload-", ".zip");
+        try (OutputStream output = Files.newOutputStream(spool)) {
+            // Not closed: the stream belongs to the caller, e.g. a request that is watched for disconnects afterwards
+            InputStream raw = new CopyingInputStream(new DigestInputStream(upload, sha256), output);
+            try {
+                ZipArchiveInputStream entries = new ZipArchiveInputStream(raw, "UTF-8", true, true);
+                ZipArchiveEntry entry;
+                long inflated = 0;
+                long prefetchRemaining = prefetchBytes;
+                while ((entry = entries.getNextEntry()) != null) {
+                    cancellation.throwIfCancelled();
+                    String name = entry.getName();
+                    long declared = entry.getSize();
+                    if (entry.isDirectory() || prefetched.containsKey(name) || !accepts(filter, name)
+                            || declared > prefetchRemaining) {
+                        continue;
+                    }
+                    // Inflating has to happen on this thread, in stream order; decoding and scanning need not.
+                    // At most one byte past the budget is read, enough to tell the entry does not fit
+                    long cap = declared >= 0 ? declared : prefetchRemaining;
+                    InputStream input = declared >= 0 ? ZipExtractor.limit(entries, declared, name) : entries;
+                    byte[] content = input.readNBytes((int) Math.min(cap + 1, Integer.MAX_VALUE - 8));
+                    inflated += content.length;
+                    if (inflated > maxInflatedBytes) {
+                        throw new ArchiveLimitException("Archive inflates to more than " + maxInflatedBytes + " bytes");
+                    }
+                    if (content.length > prefetchRemaining) {
+                        // Larger than the budget left; the analysis reads it itself
+                        continue;
+                    }
+                    // Decoded text has at most one char per byte, so the bytes bound what is held
+                    prefetchRemaining -= content.length;
+                    prefetched.put(name, CompletableFuture.supplyAsync(() -> {
+                        String text = new String(content);
+                        return new Prefetched(text, ProjectIndex.sha256(content), engine.scan(text));
+                    }, executor));
+                }
+            } catch (ArchiveLimitException e) {
+                throw e;
+            } catch (IOException e) {
+                // Not parseable as a stream; anything left is read below and analyzed from the central directory
+            }
+            // The central directory follows the last entry
+            raw.transferTo(OutputStream.nullOutputStream());
+            output.close();
+            return new ArchiveUpload(spool, Files.size(spool), HexFormat.of().formatHex(sha256.digest()), prefetched);
+        } catch (UncheckedIOException e) {
+            discard(prefetched);
+            Files.deleteIfExists(spool);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            discard(prefetched);
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+    }
+
+    private static boolean accepts(ExtractionFilter filter, String name) {
+        try {
+            Path path = Path.of(name).normalize();
+            return !path.startsWith("..") && path.getFileName() != null && filter.accepts(path);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Open the archive for random access, reading its central directory from the spool file.
+     */
+    public ZipFile openArchive() throws IOException {
+        return ZipFile.builder().setPath(spool).get();
+    }
+
+    /**
+     * @return Entry count from the end of central directory record, or -1 if unknown
+     */
+    public long readEntryCount() throws IOException {
+        try (InputStream input = Files.newInputStream(spool)) {
+            return ZipExtractor.readEntryCount(input, size);
+        }
+    }
+
+    /**
+     * @return Total uncompressed size of the files in the archive, as declared by its central directory
+     */
+    public long readInflatedSize() throws IOException {
+        try (ZipFile zipFile = openArchive()) {
+            long inflated = 0;
+            for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+                if (!entry.isDirectory()) {
+                    inflated += Math.max(0, entry.getSize());
+                }
+            }
+            return inflated;
+        }
+    }
+
+    /**
+     * @return Size of the archive in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * @return Number of entries decoded while the upload was arriving
+     */
+    public int getPrefetchedCount() {
+        return prefetched.size();
+    }
+
+    /**
+     * Hand everything decoded during the upload to an index built from this archive,
+     * waiting for decoding that is still in progress.
+     *
+     * @return Number of files primed
+     */
+    int prime(ProjectIndex index, SignatureEngine engine) throws InterruptedException {
+        int primed = 0;
+        for (Map.Entry<String, CompletableFuture<Prefetched>> entry : prefetched.entrySet()) {
+            Path file = index.getRoot().resolve(entry.getKey()).normalize();
+            try {
+                Prefetched decoded = entry.getValue().get();
+                if (index.prime(file, decoded.content, decoded.hash, engine, decoded.hits)) {
+                    primed++;
+                }
+            } catch (ExecutionException e) {
+                // Left for the analyzers to read themselves
+            }
+        }
+        return primed;
+    }
+
+    /**
+     * Drop whatever was decoded during the upload, cancelling decoding still in progress.
+     * Called once the analysis no longer needs it, or when its result came from the cache.
+     */
+    void discardPrefetched() {
+        discard(prefetched);
+    }
+
+    private static void discard(Map<String, CompletableFuture<Prefetched>> prefetched) {
+        if (!prefetched.isEmpty()) {
+            prefetched.values().forEach(decoding -> decoding.cancel(false));
+            prefetched.clear();
+        }
+    }
+
+    /**
+     * Delete the spool file.
+     */
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(spool);
+    }
+
+    private static final class Prefetched {
+        private final String content;
+        private final String hash;
+        private final SignatureEngine.Hits hits;
+
+        private Prefetched(String content, String hash, SignatureEngine.Hits hits) {
+            this.content = content;
+            this.hash = hash;
+            this.hits = hits;
+        }
+    }
+
+    /**
+     * Copies every byte read through it, so the archive can be kept whole
+     * while the ZIP parser consumes it. A failure to write the copy is not a
+     * parse error, so it surfaces as an UncheckedIOException the parser does not swallow.
+     */
+    private static final class CopyingInputStream extends FilterInputStream {
+        private final OutputStream copy;
+
+        private CopyingInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                write(() -> copy.write(b));
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                write(() -> copy.write(b, off, n));
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes must still be copied
+            byte[] discard = new byte[(int) Math.min(n, 8192)];
+            int read = read(discard, 0, discard.length);
+            return Math.max(read, 0);
+        }
+
+        private static void write(IoAction action) {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
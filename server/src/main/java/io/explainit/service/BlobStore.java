@@ -0,0 +1,283 @@
+package io.explainit.service;
+
+import io.explainit.dto.ProjectManifest;
+import io.explainit.util.ArchiveLimitException;
+import io.explainit.util.DigestMismatchException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of file contents, keyed by their SHA-256.
+ * Clients negotiate uploads against it with a manifest, so only content the server
+ * has never seen is sent; a project is then analyzed straight from its blobs.
+ * Once the store grows past its budget, the blobs least recently referenced
+ * by a manifest are deleted first, except those of manifests negotiated within
+ * the pin window or still being analyzed.
+ */
+@Component
+public class BlobStore {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Keeps a manifest's blobs in the store until closed.
+     */
+    public interface Hold extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private record Pin(Set<String> hashes, long expiresAtMillis) {
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxBlobBytes;
+    private final long pinMillis;
+    // Computed on first write, then kept up to date
+    private long currentBytes = -1;
+    // Blobs trimming must leave alone: keyed by manifest digest while a negotiation is in its
+    // pin window, and by a hold of its own while a manifest is analyzed
+    private final Map<Object, Pin> pins = new ConcurrentHashMap<>();
+
+    public BlobStore(
+        @Value("${explainit.blobs.dir:${java.io.tmpdir}/explainit-blobs}") String directory,
+        @Value("${explainit.blobs.max-mb:2048}") long maxMb,
+        @Value("${explainit.blobs.max-blob-mb:100}") long maxBlobMb,
+        @Value("${explainit.blobs.pin-minutes:60}") long pinMinutes
+    ) {
+        this.directory = Path.of(directory);
+        this.maxBytes = maxMb * 1024 * 1024;
+        this.maxBlobBytes = maxBlobMb * 1024 * 1024;
+        this.pinMillis = TimeUnit.MINUTES.toMillis(pinMinutes);
+    }
+
+    /**
+     * Find the content a manifest refers to that is not in the store. The manifest's blobs
+     * are pinned for the pin window, so the ones present are not evicted while the client
+     * uploads the rest.
+     *
+     * @return Distinct hashes to upload, in manifest order
+     * @throws IllegalArgumentException if the manifest is malformed
+     * @throws ArchiveLimitException if the manifest's content is more than the store can hold
+     */
+    public List<String> missing(ProjectManifest manifest) throws ArchiveLimitException {
+        validate(manifest);
+        Set<String> hashes = new LinkedHashSet<>();
+        List<String> missing = new ArrayList<>();
+        // Blobs present count at their size, missing ones at the size the client declared, if any
+        long totalBytes = 0;
+        for (ProjectManifest.Entry entry : manifest.getFiles()) {
+            String hash = entry.getSha256();
+            if (!hashes.add(hash)) {
+                continue;
+            }
+            Path blob = blobPath(hash);
+            try {
+                Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+                totalBytes += Files.size(blob);
+            } catch (IOException e) {
+                // Usually NoSuchFileException; a blob that cannot be touched is treated as absent
+                missing.add(hash);
+                totalBytes += entry.getSize() != null ? Math.max(0, entry.getSize()) : 0;
+            }
+        }
+        if (totalBytes > maxBytes) {
+            throw new ArchiveLimitException("Manifest content of " + totalBytes + " bytes exceeds the "
+                + maxBytes + " bytes the store holds");
+        }
+        pins.put(digest(manifest), new Pin(hashes, System.currentTimeMillis() + pinMillis));
+        return missing;
+    }
+
+    /**
+     * Keep every blob of a manifest in the store until the returned hold is closed,
+     * e.g. once the analysis reading them has finished.
+     */
+    public Hold hold(ProjectManifest manifest) {
+        Set<String> hashes = new HashSet<>();
+        for (ProjectManifest.Entry entry : manifest.getFiles()) {
+            hashes.add(entry.getSha256());
+        }
+        Object key = new Object();
+        pins.put(key, new Pin(hashes, Long.MAX_VALUE));
+        return () -> pins.remove(key);
+    }
+
+    /**
+     * Store a blob, verifying that its content matches the hash it is stored under.
+     *
+     * @throws IllegalArgumentException if the hash is malformed or the blob is too large
+     * @throws DigestMismatchException if the content does not match the hash
+     * @throws IOException if the blob cannot be read or written
+     */
+    public void put(String sha256, InputStream content) throws IOException {
+        if (!SHA256.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("sha256 must be 64 lowercase hex characters");
+        }
+        Path blob = blobPath(sha256);
+        Files.createDirectories(blob.getParent());
+
+        // Written under a temporary name so readers never see a partial blob
+        Path temp = Files.createTempFile(directory, sha256, ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (OutputStream output = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                size = copyLimited(content, output);
+            }
+            String actual = HexFormat.of().formatHex(digest.digest());
+            if (!actual.equals(sha256)) {
+                throw new DigestMismatchException(sha256, actual);
+            }
+            try {
+                // Linking fails if the blob exists, so of concurrent uploads of the same content
+                // exactly one adds it and counts its size
+                Files.createLink(blob, temp);
+            } catch (FileAlreadyExistsException e) {
+                Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+                return;
+            }
+            recordAdded(size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private long copyLimited(InputStream content, OutputStream output) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long size = 0;
+        int n;
+        while ((n = content.read(buffer)) > 0) {
+            size += n;
+            if (size > maxBlobBytes) {
+                throw new IllegalArgumentException("Blob exceeds " + maxBlobBytes + " bytes");
+            }
+            output.write(buffer, 0, n);
+        }
+        return size;
+    }
+
+    /**
+     * Map every path of a manifest to the blob holding its content, in manifest order.
+     *
+     * @throws IllegalArgumentException if the manifest is malformed
+     */
+    public Map<String, Path> resolve(ProjectManifest manifest) {
+        validate(manifest);
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (ProjectManifest.Entry entry : manifest.getFiles()) {
+            files.putIfAbsent(entry.getPath(), blobPath(entry.getSha256()));
+        }
+        return files;
+    }
+
+    /**
+     * Digest identifying a manifest's project: the same paths with the same contents
+     * always produce the same digest, whatever order they are listed in.
+     */
+    public static String digest(ProjectManifest manifest) {
+        List<ProjectManifest.Entry> entries = new ArrayList<>(manifest.getFiles());
+        entries.sort(Comparator.comparing(ProjectManifest.Entry::getPath));
+        MessageDigest digest = sha256();
+        for (ProjectManifest.Entry entry : entries) {
+            digest.update((entry.getPath() + '\0' + entry.getSha256() + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void validate(ProjectManifest manifest) {
+        if (manifest == null || manifest.getFiles() == null || manifest.getFiles().isEmpty()) {
+            throw new IllegalArgumentException("Manifest lists no files");
+        }
+        for (ProjectManifest.Entry entry : manifest.getFiles()) {
+            if (entry.getPath() == null || entry.getPath().isBlank()) {
+                throw new IllegalArgumentException("Manifest entry without a path");
+            }
+            if (entry.getSha256() == null || !SHA256.matcher(entry.getSha256()).matches()) {
+                throw new IllegalArgumentException("Invalid sha256 for " + entry.getPath());
+            }
+        }
+    }
+
+    private Path blobPath(String sha256) {
+        // Fan out over subdirectories so no single directory holds every blob
+        return directory.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized void recordAdded(long size) throws IOException {
+        if (currentBytes < 0) {
+            currentBytes = 0;
+            for (Map.Entry<Path, BasicFileAttributes> blob : listBlobs().entrySet()) {
+                currentBytes += blob.getValue().size();
+            }
+        } else {
+            currentBytes += size;
+        }
+        if (currentBytes > maxBytes) {
+            trim();
+        }
+    }
+
+    private void trim() throws IOException {
+        long now = System.currentTimeMillis();
+        pins.values().removeIf(pin -> pin.expiresAtMillis() <= now);
+        Set<String> pinned = new HashSet<>();
+        for (Pin pin : pins.values()) {
+            pinned.addAll(pin.hashes());
+        }
+
+        Map<Path, BasicFileAttributes> blobs = listBlobs();
+        List<Path> oldestFirst = new ArrayList<>(blobs.keySet());
+        oldestFirst.sort(Comparator.comparing(blob -> blobs.get(blob).lastModifiedTime()));
+        for (Path blob : oldestFirst) {
+            if (currentBytes <= maxBytes) {
+                break;
+            }
+            if (pinned.contains(blob.getFileName().toString())) {
+                // Pinned blobs may keep the store over its budget until they are released
+                continue;
+            }
+            Files.deleteIfExists(blob);
+            currentBytes -= blobs.get(blob).size();
+        }
+    }
+
+    private Map<Path, BasicFileAttributes> listBlobs() throws IOException {
+        Map<Path, BasicFileAttributes> blobs = new HashMap<>();
+        try (Stream<Path> stream = Files.find(directory, 2,
+                (path, attrs) -> attrs.isRegularFile() && SHA256.matcher(path.getFileName().toString()).matches())) {
+            for (Path blob : (Iterable<Path>) stream::iterator) {
+                try {
+                    blobs.put(blob, Files.readAttributes(blob, BasicFileAttributes.class));
+                } catch (NoSuchFileException e) {
+                    // Removed concurrently
+                }
+            }
+        }
+        return blobs;
+    }
+}
@@ -0,0 +1,77 @@
+package io.explainit.service;
+
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size pool serving one scheduling lane. Work is routed to a lane by the
+ * estimated size of the project, so small projects never queue behind large ones.
+ * The time each task spends waiting in the queue is reported to the metrics, tagged by lane.
+ */
+class LaneExecutor extends ThreadPoolExecutor {
+
+    static final String SMALL = "small";
+    static final String LARGE = "large";
+
+    private final String lane;
+    private final Timer queueWait;
+
+    /**
+     * @param pool Name of the pool the lane belongs to, e.g. "analyzer"; also used for thread names
+     * @param lane SMALL or LARGE
+     * @param queue Work queue; bounded queues reject with RejectedExecutionException when full
+     */
+    LaneExecutor(String pool, String lane, int threads, BlockingQueue<Runnable> queue, AnalysisMetrics metrics) {
+        this(pool, lane, threads, queue, metrics, new AbortPolicy());
+    }
+
+    /**
+     * @param overflow Decides what happens to tasks a full queue does not take
+     */
+    LaneExecutor(String pool, String lane, int threads, BlockingQueue<Runnable> queue, AnalysisMetrics metrics,
+                 RejectedExecutionHandler overflow) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, threadFactory(pool, lane), overflow);
+        this.lane = lane;
+        this.queueWait = metrics.queueWaitTimer(pool, lane);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new QueuedTask(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        if (runnable instanceof QueuedTask task) {
+            queueWait.record(System.nanoTime() - task.queuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    String getLane() {
+        return lane;
+    }
+
+    private static final class QueuedTask implements Runnable {
+        private final Runnable delegate;
+        private final long queuedAt = System.nanoTime();
+
+        private QueuedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    private static ThreadFactory threadFactory(String pool, String lane) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "explainit-" + pool + "-" + lane + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
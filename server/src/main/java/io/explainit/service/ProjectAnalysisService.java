@@ -1,9 +1,35 @@
 package io.explainit.service;
 
 import io.explainit.analyzer.*;
+import io.explainit.dto.FrameworkDetectionResult;
 import io.explainit.dto.ProjectMetadata;
+import io.explainit.dto.QuickLookResult;
+import io.explainit.jfr.ArchivePrepareEvent;
+import io.explainit.jfr.UploadReceivedEvent;
+import io.explainit.util.Cancellation;
+import io.explainit.util.ExtractionFilter;
+import io.explainit.util.ProjectIndex;
+import io.explainit.util.ZipExtractor;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service layer for project analysis.
@@ -11,9 +37,86 @@ import java.nio.file.Path;
  */
 @Service
 public class ProjectAnalysisService {
-    
-    private final ProjectAnalysisOrchestrator orchestrator = new ProjectAnalysisOrchestrator();
-    
+
+    // Virtual root for archive entries; nothing is ever created under it
+    private static final Path ARCHIVE_ROOT = Path.of("/explainit-archive");
+
+    // Null means analyzers run sequentially on the calling thread
+    private final LaneExecutor smallLane;
+    private final LaneExecutor largeLane;
+    private final ProjectAnalysisOrchestrator smallOrchestrator;
+    private final ProjectAnalysisOrchestrator largeOrchestrator;
+    // Inflates archive entries in parallel when extracting, and decodes entries of pipelined uploads
+    private final ForkJoinPool extractPool;
+    // Files some analyzer reads, the only ones worth extracting or decoding ahead of time
+    private final ExtractionFilter consumedFiles;
+    private final long smallProjectBytes;
+    private final long contentCacheBytes;
+    private final boolean inArchive;
+    // Longest a request waits for an identical analysis started by another request
+    private final long inFlightWaitSeconds;
+    private final AnalysisResultCache resultCache;
+    private final AnalysisMetrics metrics;
+    private final ArchiveLimits limits;
+    // Facts about Java files by content hash, shared by both lanes and kept across analyses
+    private final JavaFactCache factCache;
+    private final Map<String, CompletableFuture<ProjectMetadata>> inFlight = new ConcurrentHashMap<>();
+
+    public ProjectAnalysisService(
+        AnalysisResultCache resultCache,
+        AnalysisMetrics metrics,
+        ArchiveLimits limits,
+        @Value("${explainit.analysis.parallel:true}") boolean parallel,
+        @Value("${explainit.analysis.threads:8}") int threads,
+        @Value("${explainit.analysis.analyzer-timeout-seconds:60}") long analyzerTimeoutSeconds,
+        @Value("${explainit.analysis.content-cache-mb:64}") long contentCacheMb,
+        @Value("${explainit.analysis.in-archive:true}") boolean inArchive,
+        @Value("${explainit.analysis.small-project-mb:1}") long smallProjectMb,
+        @Value("${explainit.analysis.small-lane-threads:2}") int smallLaneThreads,
+        @Value("${explainit.analysis.small-lane-queue:32}") int smallLaneQueue,
+        @Value("${explainit.analysis.extract-threads:0}") int extractThreads,
+        @Value("${explainit.analysis.fact-cache.dir:}") String factCacheDir,
+        @Value("${explainit.analysis.fact-cache.max-entries:100000}") int factCacheEntries,
+        @Value("${explainit.analysis.request-timeout-seconds:600}") long requestTimeoutSeconds
+    ) {
+        this.inFlightWaitSeconds = requestTimeoutSeconds;
+        this.contentCacheBytes = contentCacheMb * 1024 * 1024;
+        this.smallProjectBytes = smallProjectMb * 1024 * 1024;
+        this.inArchive = inArchive;
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+        this.limits = limits;
+        this.factCache = new JavaFactCache(factCacheDir.isBlank() ? null : Path.of(factCacheDir), factCacheEntries);
+        if (parallel) {
+            // Small projects get their own threads so they never queue behind a large project's analyzers.
+            // Their queue is short, so a burst of small projects does not wait there either;
+            // analyzers that do not fit run on the large lane
+            long timeoutMillis = TimeUnit.SECONDS.toMillis(analyzerTimeoutSeconds);
+            LaneExecutor large = new LaneExecutor("analyzer", LaneExecutor.LARGE, threads,
+                new LinkedBlockingQueue<>(), metrics);
+            this.largeLane = large;
+            this.smallLane = new LaneExecutor("analyzer", LaneExecutor.SMALL, smallLaneThreads,
+                new ArrayBlockingQueue<>(smallLaneQueue), metrics, (task, lane) -> large.execute(task));
+            this.smallOrchestrator = new ProjectAnalysisOrchestrator(smallLane, timeoutMillis, factCache);
+            this.largeOrchestrator = new ProjectAnalysisOrchestrator(largeLane, timeoutMillis, factCache);
+        } else {
+            this.smallLane = null;
+            this.largeLane = null;
+            this.smallOrchestrator = new ProjectAnalysisOrchestrator(null, 0, factCache);
+            this.largeOrchestrator = smallOrchestrator;
+        }
+        this.consumedFiles = largeOrchestrator.extractionFilter();
+        this.extractPool = new ForkJoinPool(
+            extractThreads > 0 ? extractThreads : Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("explainit-extract-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null, false);
+    }
+
     /**
      * Analyze a project and return comprehensive metadata.
      * Uses the ProjectAnalysisOrchestrator to invoke all analyzers
@@ -24,6 +127,394 @@ public class ProjectAnalysisService {
      * @throws Exception if analysis fails
      */
     public ProjectMetadata analyzeProject(Path projectRoot) throws Exception {
-        return orchestrator.analyzeProject(projectRoot);
+        return analyzeIndex(ProjectIndex.build(projectRoot, contentCacheBytes), AnalysisListener.NONE,
+            new AnalysisProfile());
+    }
+
+    /**
+     * Analyze a project uploaded as a ZIP archive.
+     * The archive is hashed while it is copied to a spool file, and a previous result for the same
+     * digest is returned from the result cache without touching the archive again.
+     * Concurrent requests for the same digest share a single in-flight analysis.
+     * In in-archive mode the archive is indexed from its central directory and
+     * entries are decompressed on demand, so nothing is written to disk.
+     * Otherwise the files the analyzers read are extracted, entries in parallel, to a temporary
+     * directory that is removed afterwards.
+     *
+     * @param archive Stream over the ZIP archive
+     * @return Complete ProjectMetadata with all analysis results
+     * @throws Exception if the archive cannot be read or analysis fails
+     */
+    public ProjectMetadata analyzeArchive(InputStream archive) throws Exception {
+        return analyzeArchive(archive, AnalysisListener.NONE);
+    }
+
+    /**
+     * Analyze a project uploaded as a ZIP archive, reporting each analyzer's result
+     * as soon as it finishes. Results served from the cache or shared with an
+     * identical in-flight analysis produce no per-analyzer notifications.
+     *
+     * @param archive Stream over the ZIP archive
+     * @param listener Notified once per successful analyzer
+     * @return Complete ProjectMetadata with all analysis results
+     * @throws Exception if the archive cannot be read or analysis fails
+     */
+    public ProjectMetadata analyzeArchive(InputStream archive, AnalysisListener listener) throws Exception {
+        return analyzeArchive(archive, listener, new AnalysisProfile());
+    }
+
+    /**
+     * Analyze a project uploaded as a ZIP archive, recording where the time went.
+     *
+     * @param archive Stream over the ZIP archive
+     * @param listener Notified once per successful analyzer
+     * @param profile Receives phase timings and I/O counts for this request
+     * @return Complete ProjectMetadata with all analysis results
+     * @throws Exception if the archive cannot be read or analysis fails
+     */
+    public ProjectMetadata analyzeArchive(InputStream archive, AnalysisListener listener, AnalysisProfile profile)
+            throws Exception {
+        return analyzeArchive(archive, listener, profile, Cancellation.NONE);
+    }
+
+    /**
+     * Analyze a project uploaded as a ZIP archive on behalf of a client that may go away.
+     * The archive is spooled to disk rather than read into memory, and rejected as soon as it
+     * exceeds the upload limit. Once cancelled, extraction and the analyzers stop at their next checkpoint and any
+     * temporary directory is removed. A request waiting on an identical in-flight analysis
+     * stops waiting; if instead the analysis it was waiting on is cancelled, it takes over.
+     *
+     * @param archive Stream over the ZIP archive
+     * @param listener Notified once per successful analyzer
+     * @param profile Receives phase timings and I/O counts for this request
+     * @param cancellation Signalled when the result is no longer wanted
+     * @return Complete ProjectMetadata with all analysis results
+     * @throws CancellationException if cancelled before the analysis finished
+     * @throws io.explainit.util.ArchiveLimitException if the archive exceeds the configured limits
+     * @throws Exception if the archive cannot be read or analysis fails
+     */
+    public ProjectMetadata analyzeArchive(InputStream archive, AnalysisListener listener, AnalysisProfile profile,
+                                          Cancellation cancellation) throws Exception {
+        try (ArchiveUpload upload = spool(archive, profile)) {
+            return analyzeUpload(upload, listener, profile, cancellation);
+        }
+    }
+
+    /**
+     * Copy an archive to a spool file, within the upload limit.
+     *
+     * @throws io.explainit.util.ArchiveLimitException if the archive exceeds the upload limit
+     */
+    ArchiveUpload spool(InputStream archive, AnalysisProfile profile) throws IOException {
+        UploadReceivedEvent uploadEvent = new UploadReceivedEvent();
+        uploadEvent.begin();
+        long uploadStart = System.nanoTime();
+        ArchiveUpload upload;
+        try (InputStream input = limits.limitUpload(archive)) {
+            upload = ArchiveUpload.spool(input);
+        }
+        profile.onPhaseFinished("upload", System.nanoTime() - uploadStart);
+        commitUploadEvent(uploadEvent, upload);
+        return upload;
+    }
+
+    /**
+     * Receive a ZIP archive while it is still arriving, for a later {@link #analyzeUpload}.
+     * Entries are parsed as their bytes come in and every file an analyzer reads is decoded
+     * and scanned in the background, so the analysis overlaps with the network transfer
+     * instead of starting after it.
+     *
+     * @param archive Stream over the ZIP archive as it arrives; not closed
+     * @param expectedLength Content length if known, or -1
+     * @param profile Receives the upload time
+     * @param cancellation Signalled when the result is no longer wanted
+     * @return The complete archive, with whatever was decoded while it arrived
+     * @throws CancellationException if cancelled before the upload was read
+     * @throws io.explainit.util.ArchiveLimitException if the upload or its entries exceed the archive limits
+     * @throws Exception if the upload cannot be read
+     */
+    public ArchiveUpload receive(InputStream archive, long expectedLength, AnalysisProfile profile,
+                                 Cancellation cancellation) throws Exception {
+        UploadReceivedEvent uploadEvent = new UploadReceivedEvent();
+        uploadEvent.begin();
+        long uploadStart = System.nanoTime();
+        ArchiveUpload upload = ArchiveUpload.receive(limits.limitUpload(archive), expectedLength, consumedFiles,
+            largeOrchestrator.signatureEngine(), extractPool, cancellation,
+            limits.getMaxInflatedBytes(), contentCacheBytes);
+        profile.onPhaseFinished("upload", System.nanoTime() - uploadStart);
+        commitUploadEvent(uploadEvent, upload);
+        return upload;
+    }
+
+    private static void commitUploadEvent(UploadReceivedEvent event, ArchiveUpload upload) {
+        if (event.shouldCommit()) {
+            event.digest = upload.getDigest();
+            event.bytes = upload.getSize();
+            event.commit();
+        }
+    }
+
+    /**
+     * Analyze an archive that has been received in full.
+     * A previous result for the same digest is returned from the result cache, and
+     * concurrent requests for the same digest share a single in-flight analysis.
+     * Every request gets its own copy of the result, so callers may modify it.
+     *
+     * @param upload The received archive
+     * @param listener Notified once per successful analyzer
+     * @param profile Receives phase timings and I/O counts for this request
+     * @param cancellation Signalled when the result is no longer wanted
+     * @return Complete ProjectMetadata with all analysis results
+     * @throws CancellationException if cancelled before the analysis finished
+     * @throws Exception if the archive cannot be read or analysis fails
+     */
+    public ProjectMetadata analyzeUpload(ArchiveUpload upload, AnalysisListener listener, AnalysisProfile profile,
+                                         Cancellation cancellation) throws Exception {
+        try {
+            return analyzeCached(upload.getDigest(), profile, cancellation,
+                () -> analyzeArchiveData(upload, listener, profile, cancellation));
+        } finally {
+            // Already primed into the index, or unused because the result came from the cache
+            upload.discardPrefetched();
+        }
+    }
+
+    /**
+     * Analyze a project assembled from content-addressed blobs, as negotiated through a manifest.
+     * Nothing is copied: each path is read straight from its blob. Results are cached and shared
+     * like archive analyses, keyed by the manifest digest instead of an archive digest.
+     *
+     * @param digest Digest of the manifest, covering every path and content hash
+     * @param files Blob holding each file's content, keyed by path relative to the project root
+     * @param listener Notified once per successful analyzer
+     * @param profile Receives phase timings and I/O counts for this request
+     * @param cancellation Signalled when the result is no longer wanted
+     * @return Complete ProjectMetadata with all analysis results
+     * @throws CancellationException if cancelled before the analysis finished
+     * @throws Exception if a blob cannot be read or analysis fails
+     */
+    public ProjectMetadata analyzeBlobs(String digest, Map<String, Path> files, AnalysisListener listener,
+                                        AnalysisProfile profile, Cancellation cancellation) throws Exception {
+        return analyzeCached(digest, profile, cancellation, () -> {
+            ArchivePrepareEvent prepareEvent = new ArchivePrepareEvent();
+            prepareEvent.begin();
+            long start = System.nanoTime();
+            ProjectIndex index = metrics.timePrepare("blobs",
+                () -> ProjectIndex.build(files, ARCHIVE_ROOT, contentCacheBytes));
+            profile.onPhaseFinished("index", System.nanoTime() - start);
+            commitPrepareEvent(prepareEvent, "blobs", digest, index);
+            index.setCancellation(cancellation);
+            return analyzeIndex(index, listener, profile);
+        });
+    }
+
+    private ProjectMetadata analyzeCached(String digest, AnalysisProfile profile, Cancellation cancellation,
+                                          Callable<ProjectMetadata> analysis) throws Exception {
+        Optional<ProjectMetadata> cached = resultCache.get(digest);
+        if (cached.isPresent()) {
+            profile.setSource(AnalysisProfile.Source.CACHE);
+            return withDigest(cached.get(), digest);
+        }
+
+        // Identical concurrent uploads wait for the first one instead of analyzing again
+        CompletableFuture<ProjectMetadata> flight = new CompletableFuture<>();
+        CompletableFuture<ProjectMetadata> existing;
+        while ((existing = inFlight.putIfAbsent(digest, flight)) != null) {
+            try {
+                profile.setSource(AnalysisProfile.Source.IN_FLIGHT);
+                return withDigest(resultCache.copy(awaitInFlight(existing, cancellation)), digest);
+            } catch (CancellationException e) {
+                if (cancellation.isCancelled()) {
+                    throw e;
+                }
+                // The client that started the flight went away; this request takes over
+                inFlight.remove(digest, existing);
+            }
+        }
+        profile.setSource(AnalysisProfile.Source.ANALYSIS);
+
+        try {
+            // The previous flight may have finished between the cache check and putIfAbsent
+            ProjectMetadata metadata = resultCache.get(digest).orElse(null);
+            if (metadata == null) {
+                metadata = analysis.call();
+                resultCache.put(digest, metadata);
+            } else {
+                profile.setSource(AnalysisProfile.Source.CACHE);
+            }
+            withDigest(metadata, digest);
+            // Waiters copy from a snapshot of their own, never from the instance handed to this caller
+            flight.complete(resultCache.copy(metadata));
+            return metadata;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(digest, flight);
+        }
+    }
+
+    /**
+     * Take a quick look at a project uploaded as a ZIP archive, without running the analyzers.
+     * Language, build tool, framework guesses and layout come from the central directory and
+     * the few small manifests FrameworkDetector reads, such as pom.xml and package.json;
+     * no other entry is decompressed. Quick looks are neither cached nor shared.
+     *
+     * @param archive Stream over the ZIP archive
+     * @return Summary of the project
+     * @throws Exception if the archive cannot be read
+     */
+    public QuickLookResult quickLook(InputStream archive) throws Exception {
+        try (ArchiveUpload upload = spool(archive, new AnalysisProfile());
+             ZipFile zipFile = upload.openArchive()) {
+            limits.check(zipFile);
+            ProjectIndex index = metrics.timePrepare("quick",
+                () -> ProjectIndex.build(zipFile, ARCHIVE_ROOT, contentCacheBytes));
+            FrameworkDetectionResult detection = FrameworkDetector.detect(index);
+
+            QuickLookResult result = new QuickLookResult();
+            result.setPrimaryLanguage(detection.getPrimaryLanguage());
+            result.setLanguageVersion(detection.getLanguageVersion());
+            result.setDetectedLanguages(detection.getAllDetectedLanguages());
+            result.setBuildTool(detection.getBuildSystem().getName());
+            result.setFrameworks(detection.getFrameworks());
+            result.setProjectStructure(ProjectStructureAnalyzer.describe(index));
+            return result;
+        }
+    }
+
+    /**
+     * @throws TimeoutException if the analysis did not finish within the request timeout
+     */
+    private ProjectMetadata awaitInFlight(CompletableFuture<ProjectMetadata> flight,
+                                          Cancellation cancellation) throws Exception {
+        // Wait on a copy, so a cancelled waiter stops waiting without cancelling the shared flight
+        CompletableFuture<ProjectMetadata> wait = flight.copy();
+        try (Cancellation.Registration ignored = cancellation.onCancel(() -> wait.cancel(false))) {
+            return wait.get(inFlightWaitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static ProjectMetadata withDigest(ProjectMetadata metadata, String digest) {
+        metadata.setArchiveDigest(digest);
+        return metadata;
+    }
+
+    private ProjectMetadata analyzeArchiveData(ArchiveUpload upload, AnalysisListener listener,
+                                               AnalysisProfile profile, Cancellation cancellation) throws Exception {
+        String digest = upload.getDigest();
+        ArchivePrepareEvent prepareEvent = new ArchivePrepareEvent();
+        prepareEvent.begin();
+        long start = System.nanoTime();
+
+        // Extracting does strictly more work up front than indexing in place, but each file is inflated
+        // once: in place, a file evicted from the content cache is inflated again on every later read,
+        // which costs more for projects whose analyzed files far exceed content-cache-mb. It is also
+        // the reference the in-archive index is tested against
+        // Closing the index closes the archive, and deletes what was extracted, once the last
+        // analyzer reading them has returned; one stuck past its timeout does not hold up the request
+        if (!inArchive) {
+            ZipFile zipFile = upload.openArchive();
+            ProjectIndex built;
+            long indexStart;
+            Path extractedPath = null;
+            try {
+                limits.check(zipFile);
+                // Only files some analyzer reads are written out; the rest stay in the archive
+                extractedPath = metrics.timePrepare("extract",
+                    () -> ZipExtractor.extractZip(zipFile, consumedFiles, extractPool, cancellation));
+                profile.onPhaseFinished("extract", System.nanoTime() - start);
+                indexStart = System.nanoTime();
+                // Sizes and counts come from the central directory, not from what was extracted
+                built = ProjectIndex.build(zipFile, extractedPath, contentCacheBytes, consumedFiles);
+                Path extracted = extractedPath;
+                built.closeWhenReleased(zipFile);
+                built.closeWhenReleased(() -> ZipExtractor.deleteDirectory(extracted));
+            } catch (Throwable e) {
+                if (extractedPath != null) {
+                    ZipExtractor.deleteDirectory(extractedPath);
+                }
+                zipFile.close();
+                throw e;
+            }
+            try (ProjectIndex index = built) {
+                profile.recordPrefetched(upload.prime(index, largeOrchestrator.signatureEngine()));
+                profile.onPhaseFinished("index", System.nanoTime() - indexStart);
+                // Everything extracted stays on disk until the analysis is done
+                profile.recordTempDisk(extractedSize(index, consumedFiles));
+                commitPrepareEvent(prepareEvent, "extract", digest, index);
+                index.setCancellation(cancellation);
+                return analyzeIndex(index, listener, profile);
+            }
+        }
+
+        ZipFile zipFile = upload.openArchive();
+        ProjectIndex built;
+        try {
+            limits.check(zipFile);
+            built = metrics.timePrepare("in-archive",
+                () -> ProjectIndex.build(zipFile, ARCHIVE_ROOT, contentCacheBytes));
+        } catch (Throwable e) {
+            zipFile.close();
+            throw e;
+        }
+        try (ProjectIndex index = built) {
+            index.closeWhenReleased(zipFile);
+            // Waits for entries of a pipelined upload that are still being decoded
+            profile.recordPrefetched(upload.prime(index, largeOrchestrator.signatureEngine()));
+            profile.onPhaseFinished("index", System.nanoTime() - start);
+            commitPrepareEvent(prepareEvent, "in-archive", digest, index);
+            index.setCancellation(cancellation);
+            return analyzeIndex(index, listener, profile);
+        }
+    }
+
+    private static long extractedSize(ProjectIndex index, ExtractionFilter filter) {
+        long bytes = 0;
+        for (Path file : index.getFiles()) {
+            if (filter.accepts(index.getRoot().relativize(file))) {
+                bytes += index.getFileSize(file);
+            }
+        }
+        return bytes;
+    }
+
+    private static void commitPrepareEvent(ArchivePrepareEvent event, String mode, String digest, ProjectIndex index) {
+        index.setDigest(digest);
+        if (event.shouldCommit()) {
+            event.digest = digest;
+            event.mode = mode;
+            event.fileCount = index.countAllFiles();
+            event.bytes = index.calculateTotalSize();
+            event.commit();
+        }
+    }
+
+    private ProjectMetadata analyzeIndex(ProjectIndex index, AnalysisListener listener, AnalysisProfile profile)
+            throws Exception {
+        // Uncompressed size from the index, known before any content is read
+        boolean small = index.calculateTotalSize() < smallProjectBytes;
+        ProjectAnalysisOrchestrator orchestrator = small ? smallOrchestrator : largeOrchestrator;
+        profile.setLane(small ? LaneExecutor.SMALL : LaneExecutor.LARGE);
+        ProjectMetadata metadata = orchestrator.analyzeProject(index,
+            metrics.analyzerListener().andThen(profile).andThen(listener));
+        metrics.recordScan(index);
+        profile.recordIndex(index);
+        return metadata;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (smallLane != null) {
+            smallLane.shutdownNow();
+            largeLane.shutdownNow();
+        }
+        extractPool.shutdownNow();
+        factCache.close();
     }
 }
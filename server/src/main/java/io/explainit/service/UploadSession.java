@@ -0,0 +1,274 @@
+package io.explainit.service;
+
+import io.explainit.util.DigestMismatchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * A resumable upload assembled from chunks sent in any order, possibly in parallel.
+ * Each chunk is written at its offset into a spool file with positional writes, and the
+ * ranges received so far are tracked, so a client that lost its connection only resends
+ * what is missing. Once every byte has arrived, the spool file is checked against the
+ * digest announced when the upload was initiated and handed over, once, to whatever
+ * analyzes it; finalizing again returns the same job.
+ */
+public class UploadSession {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSession.class);
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Takes over a verified upload, e.g. by queueing it as a job.
+     */
+    @FunctionalInterface
+    public interface Handover {
+        /**
+         * @return Id of whatever took the upload over, returned again when the upload is finalized again
+         * @throws java.util.concurrent.RejectedExecutionException if the upload cannot be taken over now;
+         *         it stays verified, so it is not hashed again next time
+         */
+        String accept(ArchiveUpload upload) throws IOException;
+    }
+
+    private final String id;
+    private final long size;
+    private final String expectedDigest;
+    private final Path spool;
+    private final FileChannel channel;
+    private final Instant createdAt = Instant.now();
+    // Start offset to end offset (exclusive) of each received range, merged and non-overlapping
+    private final TreeMap<Long, Long> received = new TreeMap<>();
+    private long receivedBytes;
+    private int activeWrites;
+    // Set while the spool file is hashed and handed over; no chunk may be written meanwhile
+    private boolean finalizing;
+    private boolean verified;
+    private String handedOverTo;
+    private Instant lastActivity = createdAt;
+
+    UploadSession(String id, long size, String expectedDigest, Path spool) throws IOException {
+        this.id = id;
+        this.size = size;
+        this.expectedDigest = expectedDigest;
+        this.spool = spool;
+        this.channel = FileChannel.open(spool, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    }
+
+    /**
+     * Write a chunk at the given offset. Bytes that arrived before a failure are kept,
+     * so the client can resume from the first missing byte.
+     *
+     * @return Number of bytes written
+     * @throws IllegalArgumentException if the chunk does not fit within the announced size
+     * @throws IllegalStateException if the upload has already been verified
+     * @throws IOException if the chunk cannot be read or written
+     */
+    public long write(long offset, InputStream chunk) throws IOException {
+        if (offset < 0 || offset >= size) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside the upload of " + size + " bytes");
+        }
+        synchronized (this) {
+            if (finalizing || verified) {
+                throw new IllegalStateException("Upload has already been finalized");
+            }
+            activeWrites++;
+            lastActivity = Instant.now();
+        }
+
+        long position = offset;
+        try {
+            byte[] bytes = new byte[BUFFER_BYTES];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int n;
+            while ((n = chunk.read(bytes)) > 0) {
+                if (position + n > size) {
+                    throw new IllegalArgumentException("Chunk at offset " + offset + " extends past the upload size");
+                }
+                buffer.clear().limit(n);
+                while (buffer.hasRemaining()) {
+                    // Positional writes leave the channel position alone, so chunks can be written concurrently
+                    position += channel.write(buffer, position);
+                }
+            }
+            return position - offset;
+        } finally {
+            synchronized (this) {
+                markReceived(offset, position);
+                activeWrites--;
+                lastActivity = Instant.now();
+            }
+        }
+    }
+
+    private void markReceived(long start, long end) {
+        if (end <= start) {
+            return;
+        }
+        // Absorb every range that overlaps or touches [start, end)
+        Map.Entry<Long, Long> before = received.floorEntry(start);
+        if (before != null && before.getValue() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+        }
+        Map.Entry<Long, Long> next;
+        while ((next = received.ceilingEntry(start)) != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            received.remove(next.getKey());
+        }
+        received.put(start, end);
+
+        receivedBytes = 0;
+        for (Map.Entry<Long, Long> range : received.entrySet()) {
+            receivedBytes += range.getValue() - range.getKey();
+        }
+    }
+
+    /**
+     * Check that every byte has arrived and that the spool file matches the announced digest,
+     * then hand the complete archive over. The spool file is hashed once, without holding up
+     * status requests, and handed over once; later calls return the same id.
+     *
+     * @param handover Takes over the complete archive and with it the spool file
+     * @return Id returned by the handover
+     * @throws IllegalStateException if bytes are missing, chunks are still being written,
+     *         or the upload is being finalized by another request
+     * @throws DigestMismatchException if the assembled file does not match the digest
+     */
+    public String complete(Handover handover) throws IOException {
+        boolean verify;
+        synchronized (this) {
+            lastActivity = Instant.now();
+            if (handedOverTo != null) {
+                return handedOverTo;
+            }
+            if (finalizing) {
+                throw new IllegalStateException("Upload is already being finalized");
+            }
+            if (activeWrites > 0) {
+                throw new IllegalStateException("Chunks are still being written");
+            }
+            if (receivedBytes < size) {
+                throw new IllegalStateException("Missing " + (size - receivedBytes) + " of " + size + " bytes");
+            }
+            finalizing = true;
+            verify = !verified;
+        }
+
+        try {
+            if (verify) {
+                channel.force(false);
+                String digest = digestOf(spool);
+                if (!digest.equals(expectedDigest)) {
+                    throw new DigestMismatchException(expectedDigest, digest);
+                }
+                channel.close();
+                synchronized (this) {
+                    verified = true;
+                }
+            }
+            String id = handover.accept(new ArchiveUpload(spool, size, expectedDigest));
+            synchronized (this) {
+                handedOverTo = id;
+                lastActivity = Instant.now();
+            }
+            return id;
+        } finally {
+            synchronized (this) {
+                finalizing = false;
+            }
+        }
+    }
+
+    private static String digestOf(Path file) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_BYTES];
+            int n;
+            while ((n = input.read(buffer)) > 0) {
+                sha256.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    /**
+     * Close the spool file and delete it, unless it was handed over.
+     */
+    void discard() {
+        try {
+            channel.close();
+            if (!isHandedOver()) {
+                Files.deleteIfExists(spool);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete upload spool {}: {}", spool, e.getMessage());
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return Whether the upload was handed over, and with it its spool file
+     */
+    public synchronized boolean isHandedOver() {
+        return handedOverTo != null;
+    }
+
+    public synchronized Instant getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * @return Status fields suitable for a JSON response, including the ranges still missing
+     */
+    public synchronized Map<String, Object> statusSnapshot() {
+        List<Map<String, Long>> missing = new ArrayList<>();
+        long next = 0;
+        for (Map.Entry<Long, Long> range : received.entrySet()) {
+            if (range.getKey() > next) {
+                missing.add(range(next, range.getKey()));
+            }
+            next = range.getValue();
+        }
+        if (next < size) {
+            missing.add(range(next, size));
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("uploadId", id);
+        snapshot.put("size", size);
+        snapshot.put("sha256", expectedDigest);
+        snapshot.put("receivedBytes", receivedBytes);
+        snapshot.put("missingRanges", missing);
+        snapshot.put("createdAt", createdAt.toString());
+        return snapshot;
+    }
+
+    private static Map<String, Long> range(long start, long end) {
+        Map<String, Long> range = new LinkedHashMap<>();
+        range.put("offset", start);
+        range.put("length", end - start);
+        return range;
+    }
+}
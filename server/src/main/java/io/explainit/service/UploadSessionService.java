@@ -0,0 +1,146 @@
+package io.explainit.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps track of resumable uploads while their chunks arrive.
+ * Each upload is spooled to its own file, so archives far larger than the
+ * multipart limit or the heap can be sent. Spool files still being assembled
+ * share a disk budget, and uploads left idle past the expiry are swept away
+ * together with their spool file.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path spoolDir;
+    private final long maxUploadBytes;
+    private final long maxSpooledBytes;
+    private final long expiryMillis;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "explainit-upload-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UploadSessionService(
+        @Value("${explainit.uploads.dir:${java.io.tmpdir}/explainit-uploads}") String spoolDir,
+        @Value("${explainit.uploads.max-mb:8192}") long maxUploadMb,
+        @Value("${explainit.uploads.max-spooled-mb:32768}") long maxSpooledMb,
+        @Value("${explainit.uploads.expiry-minutes:60}") long expiryMinutes,
+        @Value("${explainit.uploads.sweep-seconds:60}") long sweepSeconds
+    ) {
+        this.spoolDir = Path.of(spoolDir);
+        this.maxUploadBytes = maxUploadMb * 1024 * 1024;
+        this.maxSpooledBytes = maxSpooledMb * 1024 * 1024;
+        this.expiryMillis = TimeUnit.MINUTES.toMillis(expiryMinutes);
+        sweeper.scheduleWithFixedDelay(this::evictExpiredSessions, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Start an upload of an archive whose size and digest the client already knows.
+     *
+     * @param size Size of the archive in bytes
+     * @param sha256 Hex SHA-256 of the archive, checked once every chunk has arrived
+     * @throws IllegalArgumentException if the size or digest is invalid
+     * @throws RejectedExecutionException if the uploads in progress leave no room for this one
+     * @throws IOException if the spool file cannot be created
+     */
+    public UploadSession initiate(long size, String sha256) throws IOException {
+        long maxBytes = Math.min(maxUploadBytes, maxSpooledBytes);
+        if (size <= 0 || size > maxBytes) {
+            throw new IllegalArgumentException("Upload size must be between 1 and " + maxBytes + " bytes");
+        }
+        String digest = sha256 == null ? "" : sha256.toLowerCase();
+        if (!SHA256.matcher(digest).matches()) {
+            throw new IllegalArgumentException("sha256 must be 64 hex characters");
+        }
+
+        // Spool files are created at their announced size eventually, so the budget is reserved up front.
+        // Creating sessions one at a time keeps two uploads from both taking the last of it
+        synchronized (this) {
+            long spooled = spooledBytes();
+            if (spooled + size > maxSpooledBytes) {
+                throw new RejectedExecutionException("Uploads in progress already hold " + spooled + " of "
+                    + maxSpooledBytes + " bytes");
+            }
+            Files.createDirectories(spoolDir);
+            String id = UUID.randomUUID().toString();
+            Path spool = spoolDir.resolve(id + ".zip");
+            Files.createFile(spool);
+            UploadSession session = new UploadSession(id, size, digest, spool);
+            sessions.put(id, session);
+            return session;
+        }
+    }
+
+    /**
+     * @return Bytes announced by the uploads whose spool file is still theirs
+     */
+    private long spooledBytes() {
+        long spooled = 0;
+        for (UploadSession session : sessions.values()) {
+            if (!session.isHandedOver()) {
+                spooled += session.getSize();
+            }
+        }
+        return spooled;
+    }
+
+    public Optional<UploadSession> getSession(String uploadId) {
+        return Optional.ofNullable(sessions.get(uploadId));
+    }
+
+    /**
+     * Abandon an upload and delete what was received.
+     *
+     * @return false if the upload is unknown
+     */
+    public boolean discard(String uploadId) {
+        UploadSession session = sessions.remove(uploadId);
+        if (session == null) {
+            return false;
+        }
+        session.discard();
+        return true;
+    }
+
+    /**
+     * Discard the uploads left idle past the expiry. Uploads already handed over are
+     * kept until then as well, so finalizing them again returns the same job.
+     */
+    void evictExpiredSessions() {
+        Instant cutoff = Instant.now().minusMillis(expiryMillis);
+        sessions.values().removeIf(session -> {
+            if (session.getLastActivity().isBefore(cutoff)) {
+                session.discard();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        sessions.values().forEach(UploadSession::discard);
+        sessions.clear();
+    }
+}
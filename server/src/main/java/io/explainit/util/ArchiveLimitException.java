@@ -0,0 +1,14 @@
+package io.explainit.util;
+
+import java.io.IOException;
+
+/**
+ * An upload or archive is larger than the server accepts: too many bytes, too many entries,
+ * or entries that inflate to more than allowed.
+ */
+public class ArchiveLimitException extends IOException {
+
+    public ArchiveLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,90 @@
+package io.explainit.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation signal for one analysis.
+ * Long-running loops call throwIfCancelled at natural checkpoints; code that blocks
+ * registers a callback to be woken up, e.g. by interrupting the waiting thread.
+ */
+public class Cancellation {
+
+    /**
+     * A signal that is never cancelled, for callers that cannot be abandoned.
+     */
+    public static final Cancellation NONE = new Cancellation() {
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public Registration onCancel(Runnable callback) {
+            return () -> { };
+        }
+    };
+
+    /**
+     * Unregisters a callback once the code it protects has finished.
+     */
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private volatile boolean cancelled;
+    private final List<Runnable> callbacks = new ArrayList<>();
+
+    /**
+     * Signal cancellation and run every registered callback. Later calls do nothing.
+     */
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toRun = new ArrayList<>(callbacks);
+            callbacks.clear();
+        }
+        for (Runnable callback : toRun) {
+            callback.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException if cancellation has been signalled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Analysis cancelled");
+        }
+    }
+
+    /**
+     * Run the callback on cancellation, or right away if already cancelled.
+     *
+     * @return Registration to close when the callback is no longer wanted
+     */
+    public Registration onCancel(Runnable callback) {
+        synchronized (this) {
+            if (!cancelled) {
+                callbacks.add(callback);
+                return () -> {
+                    synchronized (this) {
+                        callbacks.remove(callback);
+                    }
+                };
+            }
+        }
+        callback.run();
+        return () -> { };
+    }
+}
@@ -0,0 +1,13 @@
+package io.explainit.util;
+
+import java.io.IOException;
+
+/**
+ * Uploaded content does not match the SHA-256 it was announced with.
+ */
+public class DigestMismatchException extends IOException {
+
+    public DigestMismatchException(String expected, String actual) {
+        super("Expected SHA-256 " + expected + " but received " + actual);
+    }
+}
@@ -0,0 +1,71 @@
+package io.explainit.util;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Selects the archive entries worth writing to disk: files some analyzer reads,
+ * by exact name or extension, outside the directories ProjectSizeCalculator excludes.
+ * Every entry is still indexed from the central directory, so sizes and counts are
+ * unaffected; only the content of files that are filtered out stays in the archive.
+ */
+public class ExtractionFilter {
+
+    /**
+     * Accepts every entry, for callers that need the complete tree on disk.
+     */
+    public static final ExtractionFilter ALL = new ExtractionFilter(Set.of(), Set.of()) {
+        @Override
+        public boolean accepts(Path relativePath) {
+            return true;
+        }
+    };
+
+    /**
+     * Accepts nothing; the whole project stays in the archive.
+     */
+    public static final ExtractionFilter NONE = new ExtractionFilter(Set.of(), Set.of());
+
+    private final Set<String> fileNames;
+    private final Set<String> extensions;
+
+    /**
+     * @param fileNames Exact file names, e.g. "pom.xml"
+     * @param extensions Extensions without the leading dot, e.g. "java" or "gradle.kts"
+     */
+    public ExtractionFilter(Collection<String> fileNames, Collection<String> extensions) {
+        this.fileNames = Set.copyOf(fileNames);
+        this.extensions = Set.copyOf(extensions);
+    }
+
+    /**
+     * @param relativePath Entry path relative to the project root
+     * @return true if the entry should be extracted
+     */
+    public boolean accepts(Path relativePath) {
+        if (ProjectSizeCalculator.isInExcludedDirectory(relativePath)) {
+            return false;
+        }
+
+        String filename = relativePath.getFileName().toString();
+        if (fileNames.contains(filename)) {
+            return true;
+        }
+        // Same notion of extension as ProjectIndex, including compound ones such as "gradle.kts"
+        for (int dot = filename.indexOf('.', 1); dot > 0; dot = filename.indexOf('.', dot + 1)) {
+            if (extensions.contains(filename.substring(dot + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<String> getFileNames() {
+        return fileNames;
+    }
+
+    public Set<String> getExtensions() {
+        return extensions;
+    }
+}
@@ -0,0 +1,117 @@
+package io.explainit.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-analysis cache of file contents shared by all analyzers.
+ * Contents are immutable Strings, so the same instance is handed to every caller.
+ * Entries are evicted in least-recently-used order once the memory budget is exceeded
+ * and are transparently reloaded from their source on the next request.
+ */
+public class FileContentCache {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Loads the content of a file when it is not cached.
+     */
+    @FunctionalInterface
+    public interface ContentLoader {
+        String load(Path file) throws IOException;
+    }
+
+    private final long maxBytes;
+    private final ContentLoader loader;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Path, String> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong filesRead = new AtomicLong();
+    private final AtomicLong charsRead = new AtomicLong();
+
+    public FileContentCache(long maxBytes) {
+        this(maxBytes, FileScanner::readFileAsString);
+    }
+
+    public FileContentCache(long maxBytes, ContentLoader loader) {
+        this.maxBytes = maxBytes;
+        this.loader = loader;
+    }
+
+    /**
+     * Return the content of a file, reading it from its source only on a cache miss.
+     */
+    public String get(Path file) throws IOException {
+        synchronized (this) {
+            String cached = entries.get(file);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        // Load outside the lock so concurrent analyzers do not serialize on I/O
+        String content = loader.load(file);
+        filesRead.incrementAndGet();
+        charsRead.addAndGet(content.length());
+
+        put(file, content);
+        return content;
+    }
+
+    /**
+     * Cache content obtained elsewhere, e.g. decoded while an upload was arriving.
+     * It does not count as a read.
+     */
+    public void prime(Path file, String content) {
+        put(file, content);
+    }
+
+    private synchronized void put(Path file, String content) {
+        long weight = content.length();
+        if (weight > maxBytes) {
+            // Larger than the whole budget, hand it out without caching
+            return;
+        }
+
+        String previous = entries.put(file, content);
+        if (previous != null) {
+            currentBytes -= previous.length();
+        }
+        currentBytes += weight;
+
+        Iterator<Map.Entry<Path, String>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Path, String> eldest = it.next();
+            currentBytes -= eldest.getValue().length();
+            it.remove();
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getFilesRead() {
+        return filesRead.get();
+    }
+
+    public long getCharsRead() {
+        return charsRead.get();
+    }
+}
@@ -5,6 +5,8 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import org.xml.sax.InputSource;
+import java.io.StringReader;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -23,11 +25,24 @@ public class PomParser {
     }
     
     public static Map<String, String> parsePomProperties(Path pomPath) {
+        try {
+            return parsePomProperties(dbFactory.newDocumentBuilder().parse(pomPath.toFile()));
+        } catch (Exception e) {
+            return new HashMap<>();
+        }
+    }
+    
+    public static Map<String, String> parsePomProperties(String pomContent) {
+        try {
+            return parsePomProperties(parse(pomContent));
+        } catch (Exception e) {
+            return new HashMap<>();
+        }
+    }
+    
+    private static Map<String, String> parsePomProperties(Document doc) {
         Map<String, String> properties = new HashMap<>();
         try {
-            DocumentBuilder db = dbFactory.newDocumentBuilder();
-            Document doc = db.parse(pomPath.toFile());
-            
             Element root = doc.getDocumentElement();
             
             // Extract java.version
@@ -49,11 +64,24 @@ public class PomParser {
     }
     
     public static List<Dependency> parsePomDependencies(Path pomPath) {
+        try {
+            return parsePomDependencies(dbFactory.newDocumentBuilder().parse(pomPath.toFile()));
+        } catch (Exception e) {
+            return new ArrayList<>();
+        }
+    }
+    
+    public static List<Dependency> parsePomDependencies(String pomContent) {
+        try {
+            return parsePomDependencies(parse(pomContent));
+        } catch (Exception e) {
+            return new ArrayList<>();
+        }
+    }
+    
+    private static List<Dependency> parsePomDependencies(Document doc) {
         List<Dependency> dependencies = new ArrayList<>();
         try {
-            DocumentBuilder db = dbFactory.newDocumentBuilder();
-            Document doc = db.parse(pomPath.toFile());
-            
             NodeList depNodes = doc.getElementsByTagName("dependency");
             for (int i = 0; i < depNodes.getLength(); i++) {
                 Element depElement = (Element) depNodes.item(i);
@@ -73,9 +101,22 @@ public class PomParser {
     
     public static String getSpringBootVersion(Path pomPath) {
         try {
-            DocumentBuilder db = dbFactory.newDocumentBuilder();
-            Document doc = db.parse(pomPath.toFile());
-            
+            return getSpringBootVersion(dbFactory.newDocumentBuilder().parse(pomPath.toFile()));
+        } catch (Exception e) {
+            return "";
+        }
+    }
+    
+    public static String getSpringBootVersion(String pomContent) {
+        try {
+            return getSpringBootVersion(parse(pomContent));
+        } catch (Exception e) {
+            return "";
+        }
+    }
+    
+    private static String getSpringBootVersion(Document doc) {
+        try {
             NodeList parentNodes = doc.getElementsByTagName("parent");
             if (parentNodes.getLength() > 0) {
                 Element parentElement = (Element) parentNodes.item(0);
@@ -90,6 +131,11 @@ public class PomParser {
         return "";
     }
     
+    private static Document parse(String pomContent) throws Exception {
+        DocumentBuilder db = dbFactory.newDocumentBuilder();
+        return db.parse(new InputSource(new StringReader(pomContent)));
+    }
+    
     private static String getElementText(Element element, String tagName) {
         NodeList nodes = element.getElementsByTagName(tagName);
         if (nodes.getLength() > 0) {
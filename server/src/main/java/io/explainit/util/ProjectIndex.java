@@ -0,0 +1,539 @@
+package io.explainit.util;
+
+import io.explainit.jfr.FileReadEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass index of a project tree.
+ * Built once per analysis so analyzers can look files up by name or extension
+ * with a hash probe instead of walking the directory tree for every query.
+ * Lookups preserve the order in which files were encountered during the walk,
+ * so findFile returns the same match as FileScanner.findFile would.
+ * Whatever the index reads from, such as an open archive, can be handed to it to be
+ * closed once neither its owner nor any analyzer still reading it needs it.
+ */
+public class ProjectIndex implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectIndex.class);
+
+    /**
+     * Reads a file's raw content from wherever the index serves it.
+     */
+    @FunctionalInterface
+    private interface ContentReader {
+        byte[] read(Path file) throws IOException;
+    }
+
+    private final Path root;
+    private final ContentReader reader;
+    private final List<Path> files = new ArrayList<>();
+    private final Map<String, List<Path>> filesByName = new HashMap<>();
+    private final Map<String, List<Path>> filesByExtension = new HashMap<>();
+    private final Map<Path, Long> fileSizes = new HashMap<>();
+    private final Set<Path> directories = new LinkedHashSet<>();
+    private final FileContentCache contentCache;
+    private final Map<SignatureEngine, Map<Path, SignatureEngine.Hits>> signatureHits = new ConcurrentHashMap<>();
+    private long totalSize;
+    private int directoryWalks;
+    private final AtomicLong regexMatchCalls = new AtomicLong();
+    private final Map<Path, String> contentHashes = new ConcurrentHashMap<>();
+    private final AtomicLong factCacheHits = new AtomicLong();
+    private final AtomicLong factCacheMisses = new AtomicLong();
+    private volatile String digest;
+    private volatile Cancellation cancellation = Cancellation.NONE;
+    // The owner's reference plus one per analyzer reading the index; resources close when it reaches zero
+    private final AtomicInteger holders = new AtomicInteger(1);
+    private final List<AutoCloseable> resources = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private ProjectIndex(Path root, long contentCacheBytes, ContentReader reader) {
+        this.root = root;
+        this.reader = reader;
+        this.contentCache = new FileContentCache(contentCacheBytes, this::load);
+    }
+
+    /**
+     * Walk the project tree once and index every regular file and directory,
+     * using the default content cache budget.
+     *
+     * @param root The root path of the project
+     * @return The populated index
+     * @throws IOException if the tree cannot be walked
+     */
+    public static ProjectIndex build(Path root) throws IOException {
+        return build(root, FileContentCache.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Walk the project tree once and index every regular file and directory.
+     *
+     * @param root The root path of the project
+     * @param contentCacheBytes Memory budget for file contents shared by the analyzers
+     * @return The populated index
+     * @throws IOException if the tree cannot be walked
+     */
+    public static ProjectIndex build(Path root, long contentCacheBytes) throws IOException {
+        ProjectIndex index = new ProjectIndex(root, contentCacheBytes, Files::readAllBytes);
+        index.directoryWalks++;
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                index.directories.add(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    index.addFile(file, attrs.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                // Skip unreadable entries, same as the stream-based scans did
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return index;
+    }
+
+    /**
+     * Index a ZIP archive from its central directory without extracting it.
+     * Entries are exposed as paths under the given root, which does not need to exist;
+     * their contents are decompressed on demand through the content cache.
+     *
+     * @param zipFile The open archive; must stay open while the index is in use
+     * @param root Virtual root the entry names are resolved against
+     * @param contentCacheBytes Memory budget for file contents shared by the analyzers
+     * @return The populated index
+     */
+    public static ProjectIndex build(ZipFile zipFile, Path root, long contentCacheBytes) {
+        return build(zipFile, root, contentCacheBytes, ExtractionFilter.NONE);
+    }
+
+    /**
+     * Index a ZIP archive from its central directory, after ZipExtractor wrote the files
+     * accepted by the filter under root. Those files are read from disk; the content of
+     * any other file is decompressed from the archive on demand.
+     *
+     * @param zipFile The open archive; must stay open while the index is in use
+     * @param root Directory the archive was extracted to
+     * @param contentCacheBytes Memory budget for file contents shared by the analyzers
+     * @param extracted The filter the archive was extracted with
+     * @return The populated index
+     */
+    public static ProjectIndex build(ZipFile zipFile, Path root, long contentCacheBytes, ExtractionFilter extracted) {
+        Map<Path, ZipArchiveEntry> entries = new HashMap<>();
+        ProjectIndex index = new ProjectIndex(root, contentCacheBytes,
+            file -> extracted.accepts(root.relativize(file))
+                ? Files.readAllBytes(file)
+                : readEntry(zipFile, entries.get(file), file));
+        index.directories.add(root);
+
+        for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+            Path path = root.resolve(entry.getName()).normalize();
+            if (!path.startsWith(root) || path.equals(root)) {
+                // Never expose entries that would escape the project root
+                continue;
+            }
+
+            if (entry.isDirectory()) {
+                index.addDirectory(path);
+            } else if (!entries.containsKey(path)) {
+                index.addDirectory(path.getParent());
+                entries.put(path, entry);
+                index.addFile(path, Math.max(0, entry.getSize()));
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Index a project whose files live in a content-addressed store rather than a tree.
+     * Paths are exposed under the given root, which does not need to exist; each file's
+     * content is read from its blob on demand through the content cache.
+     *
+     * @param blobs Blob holding each file's content, keyed by path relative to the project root
+     * @param root Virtual root the paths are resolved against
+     * @param contentCacheBytes Memory budget for file contents shared by the analyzers
+     * @return The populated index
+     * @throws IOException if a blob is missing
+     */
+    public static ProjectIndex build(Map<String, Path> blobs, Path root, long contentCacheBytes) throws IOException {
+        Map<Path, Path> blobsByFile = new HashMap<>();
+        ProjectIndex index = new ProjectIndex(root, contentCacheBytes,
+            file -> Files.readAllBytes(blobsByFile.get(file)));
+        index.directories.add(root);
+
+        for (Map.Entry<String, Path> blob : blobs.entrySet()) {
+            Path path = root.resolve(blob.getKey()).normalize();
+            if (!path.startsWith(root) || path.equals(root) || blobsByFile.containsKey(path)) {
+                // Never expose paths that would escape the project root
+                continue;
+            }
+            index.addDirectory(path.getParent());
+            blobsByFile.put(path, blob.getValue());
+            // Blobs are named by the SHA-256 of their content, so it never has to be read to be hashed
+            index.contentHashes.put(path, blob.getValue().getFileName().toString());
+            index.addFile(path, Files.size(blob.getValue()));
+        }
+
+        return index;
+    }
+
+    private static byte[] readEntry(ZipFile zipFile, ZipArchiveEntry entry, Path file) throws IOException {
+        if (entry == null) {
+            throw new NoSuchFileException(file.toString());
+        }
+        try (InputStream input = ZipExtractor.openEntry(zipFile, entry)) {
+            return input.readAllBytes();
+        }
+    }
+
+    private String load(Path file) throws IOException {
+        FileReadEvent event = new FileReadEvent();
+        event.begin();
+        byte[] bytes = reader.read(file);
+        // The raw bytes are at hand only now, so the content hash is taken from the same read
+        contentHashes.putIfAbsent(file, sha256(bytes));
+        String content = new String(bytes);
+        if (event.shouldCommit()) {
+            event.digest = digest;
+            event.path = root.relativize(file).toString();
+            event.chars = content.length();
+            event.commit();
+        }
+        return content;
+    }
+
+    private void addDirectory(Path dir) {
+        // Archives may omit directory entries, so parents are added first as a walk would
+        if (dir == null || !dir.startsWith(root) || directories.contains(dir)) {
+            return;
+        }
+        addDirectory(dir.getParent());
+        directories.add(dir);
+    }
+
+    private void addFile(Path file, long size) {
+        String filename = file.getFileName().toString();
+
+        files.add(file);
+        fileSizes.put(file, size);
+        totalSize += size;
+        filesByName.computeIfAbsent(filename, k -> new ArrayList<>()).add(file);
+
+        int dotIndex = filename.lastIndexOf('.');
+        if (dotIndex > 0) {
+            filesByExtension.computeIfAbsent(filename.substring(dotIndex + 1), k -> new ArrayList<>()).add(file);
+        }
+    }
+
+    /**
+     * Read a file through the shared content cache, so each file is read
+     * from disk at most once per analysis while it fits in the budget.
+     */
+    public String readFileAsString(Path file) throws IOException {
+        // Every analyzer loop reads through here, so it doubles as the cancellation checkpoint
+        checkpoint();
+        return contentCache.get(file);
+    }
+
+    /**
+     * Scan a file with the given signature engine, at most once per analysis.
+     * Every analyzer asking about the same file shares the memoized hits.
+     */
+    public SignatureEngine.Hits scan(Path file, SignatureEngine engine) throws IOException {
+        Map<Path, SignatureEngine.Hits> hitsByFile =
+            signatureHits.computeIfAbsent(engine, e -> new ConcurrentHashMap<>());
+
+        SignatureEngine.Hits hits = hitsByFile.get(file);
+        checkpoint();
+        if (hits == null) {
+            hits = engine.scan(readFileAsString(file));
+            hitsByFile.putIfAbsent(file, hits);
+        }
+        return hits;
+    }
+
+    /**
+     * Seed the caches with a file's content and signature hits computed before the index existed.
+     *
+     * @param hash {@link #sha256} of the file's raw bytes, taken when they were decoded
+     * @return false if the file is not part of the index, in which case nothing is cached
+     */
+    public boolean prime(Path file, String content, String hash, SignatureEngine engine,
+                         SignatureEngine.Hits hits) {
+        if (!fileSizes.containsKey(file)) {
+            return false;
+        }
+        contentHashes.putIfAbsent(file, hash);
+        contentCache.prime(file, content);
+        signatureHits.computeIfAbsent(engine, e -> new ConcurrentHashMap<>()).putIfAbsent(file, hits);
+        return true;
+    }
+
+    /**
+     * Hex SHA-256 identifying a file's content, for caches that outlive the analysis.
+     * Known up front for files served from the blob store; otherwise taken from the file's
+     * raw bytes when they are read into the content cache or decoded during the upload, so
+     * it is the hash the blob store would file it under whatever the file's encoding, and
+     * looking it up costs no read the analyzers would not make anyway.
+     */
+    public String contentHash(Path file) throws IOException {
+        String hash = contentHashes.get(file);
+        if (hash == null) {
+            // Loading the content records its hash
+            readFileAsString(file);
+            hash = contentHashes.get(file);
+        }
+        if (hash == null) {
+            // Cached before the index knew its hash
+            hash = sha256(reader.read(file));
+            contentHashes.putIfAbsent(file, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * @return Hex SHA-256 of a file's raw bytes, as {@link #contentHash} reports it
+     */
+    public static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Count a lookup in a cache of per-file facts towards the analysis profile.
+     *
+     * @param hit true if the facts were reused rather than extracted from the file
+     */
+    public void countFactLookup(boolean hit) {
+        (hit ? factCacheHits : factCacheMisses).incrementAndGet();
+    }
+
+    public long getFactCacheHits() {
+        return factCacheHits.get();
+    }
+
+    public long getFactCacheMisses() {
+        return factCacheMisses.get();
+    }
+
+    /**
+     * @return Digest of the archive this index was built from, or null for a local directory
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Tag the index with the archive digest, so events recorded during the analysis
+     * can be attributed to the upload.
+     */
+    public void setDigest(String digest) {
+        this.digest = digest;
+    }
+
+    /**
+     * Create a matcher for file content, counting it towards the analysis profile.
+     * Analyzers use this instead of Pattern.matcher for content they read through the index.
+     */
+    public Matcher matcher(Pattern pattern, CharSequence content) {
+        checkpoint();
+        regexMatchCalls.incrementAndGet();
+        return pattern.matcher(content);
+    }
+
+    /**
+     * Stop when the analysis is cancelled, or when this analyzer's thread is interrupted
+     * because it timed out, so it lets go of the archive soon after.
+     */
+    private void checkpoint() {
+        cancellation.throwIfCancelled();
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Analyzer interrupted");
+        }
+    }
+
+    public long getRegexMatchCalls() {
+        return regexMatchCalls.get();
+    }
+
+    /**
+     * @return Directory tree walks done to build this index: one for a directory, none for an archive
+     */
+    public int getDirectoryWalks() {
+        return directoryWalks;
+    }
+
+    public Cancellation getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Close a resource the index reads from once the index is released, after resources registered later.
+     */
+    public void closeWhenReleased(AutoCloseable resource) {
+        resources.add(resource);
+    }
+
+    /**
+     * Hold the index open for an analyzer about to read it.
+     *
+     * @return false if the index has already been released, in which case it must not be read
+     */
+    public boolean acquire() {
+        int current;
+        do {
+            current = holders.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!holders.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Let go of the index; the last holder closes its resources.
+     */
+    public void release() {
+        if (holders.decrementAndGet() != 0) {
+            return;
+        }
+        List<AutoCloseable> closing = new ArrayList<>(resources);
+        Collections.reverse(closing);
+        for (AutoCloseable resource : closing) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("Failed to close a resource of the project index", e);
+            }
+        }
+    }
+
+    /**
+     * Release the owner's reference. Analyzers still reading the index keep it open until they return.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    /**
+     * Attach the analysis' cancellation signal; reads and matches fail fast once it is cancelled.
+     */
+    public void setCancellation(Cancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    public FileContentCache getContentCache() {
+        return contentCache;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public List<Path> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    public Optional<Path> findFile(String filename) {
+        List<Path> matches = filesByName.get(filename);
+        if (matches == null || matches.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(matches.get(0));
+    }
+
+    public List<Path> findFiles(String filename) {
+        return Collections.unmodifiableList(filesByName.getOrDefault(filename, Collections.emptyList()));
+    }
+
+    public boolean fileExists(String filename) {
+        return filesByName.containsKey(filename);
+    }
+
+    public List<Path> findFilesByExtension(String extension) {
+        if (extension.indexOf('.') >= 0) {
+            // Compound extensions such as "gradle.kts" are not keyed, fall back to a suffix filter
+            List<Path> matches = new ArrayList<>();
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith("." + extension)) {
+                    matches.add(file);
+                }
+            }
+            return matches;
+        }
+        return Collections.unmodifiableList(filesByExtension.getOrDefault(extension, Collections.emptyList()));
+    }
+
+    public long countFilesByExtension(String extension) {
+        return findFilesByExtension(extension).size();
+    }
+
+    public Set<String> getAllFileExtensions() {
+        return Collections.unmodifiableSet(filesByExtension.keySet());
+    }
+
+    public long getFileSize(Path file) {
+        return fileSizes.getOrDefault(file, 0L);
+    }
+
+    /**
+     * @param relativePath Directory path relative to the project root, e.g. "src/main/java"
+     * @return true if the directory was seen during the walk
+     */
+    public boolean isDirectory(String relativePath) {
+        return directories.contains(root.resolve(relativePath));
+    }
+
+    public Set<Path> getDirectories() {
+        return Collections.unmodifiableSet(directories);
+    }
+
+    public long calculateTotalSize() {
+        return totalSize;
+    }
+
+    public long countAllFiles() {
+        return files.size();
+    }
+
+    public long countDirectories() {
+        return directories.size();
+    }
+}
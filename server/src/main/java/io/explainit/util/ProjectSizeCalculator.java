@@ -59,7 +59,30 @@ public class ProjectSizeCalculator {
         }
     }
 
-    private static boolean isInExcludedDirectory(Path path) {
+    /**
+     * Same as {@link #calculateProjectSize(Path)} but served from a pre-built index,
+     * so no additional directory walk is needed.
+     *
+     * @return [totalSizeBytes, totalFileCount]
+     */
+    public static long[] calculateProjectSize(ProjectIndex index) {
+        long totalSize = 0;
+        long fileCount = 0;
+
+        for (Path file : index.getFiles()) {
+            if (!isInExcludedDirectory(file)) {
+                totalSize += index.getFileSize(file);
+                fileCount++;
+            }
+        }
+
+        return new long[]{totalSize, fileCount};
+    }
+
+    /**
+     * @return true if any element of the path is an excluded directory, such as node_modules or .git
+     */
+    static boolean isInExcludedDirectory(Path path) {
         Path current = path;
         while (current != null) {
             Path fileName = current.getFileName();
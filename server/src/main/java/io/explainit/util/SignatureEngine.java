@@ -0,0 +1,221 @@
+package io.explainit.util;
+
+import java.util.*;
+
+/**
+ * Multi-pattern keyword matcher built on an Aho-Corasick automaton.
+ * All signatures registered by the analyzers are compiled into one automaton,
+ * so a file is scanned once in linear time no matter how many signatures exist.
+ * A hit for a keyword means exactly the same as {@code content.contains(keyword)}.
+ */
+public class SignatureEngine {
+
+    // Characters outside this range are looked up in extendedAlphabet
+    private static final int ASCII_LIMIT = 128;
+
+    private final Map<String, Integer> keywordIds;
+    private final int[] asciiAlphabet;
+    private final Map<Character, Integer> extendedAlphabet;
+    private final int[][] transitions;
+    private final int[][] outputs;
+
+    private SignatureEngine(Map<String, Integer> keywordIds, int[] asciiAlphabet,
+                            Map<Character, Integer> extendedAlphabet, int[][] transitions, int[][] outputs) {
+        this.keywordIds = keywordIds;
+        this.asciiAlphabet = asciiAlphabet;
+        this.extendedAlphabet = extendedAlphabet;
+        this.transitions = transitions;
+        this.outputs = outputs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Scan text once and report every registered keyword it contains.
+     */
+    public Hits scan(CharSequence text) {
+        return scan(text, false);
+    }
+
+    /**
+     * Scan text with each character lower-cased first.
+     * Only keywords registered in lower case can match in this mode.
+     */
+    public Hits scanIgnoreCase(CharSequence text) {
+        return scan(text, true);
+    }
+
+    private Hits scan(CharSequence text, boolean ignoreCase) {
+        BitSet matched = new BitSet(keywordIds.size());
+        int state = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (ignoreCase) {
+                c = Character.toLowerCase(c);
+            }
+
+            int symbol = symbolOf(c);
+            state = symbol < 0 ? 0 : transitions[state][symbol];
+
+            for (int keywordId : outputs[state]) {
+                matched.set(keywordId);
+            }
+        }
+
+        return new Hits(matched);
+    }
+
+    private int symbolOf(char c) {
+        if (c < ASCII_LIMIT) {
+            return asciiAlphabet[c];
+        }
+        return extendedAlphabet.getOrDefault(c, -1);
+    }
+
+    public int getKeywordCount() {
+        return keywordIds.size();
+    }
+
+    public int getStateCount() {
+        return transitions.length;
+    }
+
+    /**
+     * Keywords found by a single scan.
+     */
+    public class Hits {
+        private final BitSet matched;
+
+        private Hits(BitSet matched) {
+            this.matched = matched;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the keyword was never registered
+         */
+        public boolean contains(String keyword) {
+            Integer id = keywordIds.get(keyword);
+            if (id == null) {
+                throw new IllegalArgumentException("Signature not registered: " + keyword);
+            }
+            return matched.get(id);
+        }
+
+        public boolean containsAny(String... keywords) {
+            for (String keyword : keywords) {
+                if (contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean isEmpty() {
+            return matched.isEmpty();
+        }
+    }
+
+    /**
+     * Collects keywords from every analyzer and compiles them into one automaton.
+     */
+    public static class Builder {
+        private final Map<String, Integer> keywordIds = new LinkedHashMap<>();
+
+        public Builder register(Collection<String> keywords) {
+            for (String keyword : keywords) {
+                if (keyword.isEmpty()) {
+                    throw new IllegalArgumentException("Empty signature");
+                }
+                keywordIds.putIfAbsent(keyword, keywordIds.size());
+            }
+            return this;
+        }
+
+        public SignatureEngine build() {
+            // Map every character used by a keyword to a dense symbol index
+            int[] asciiAlphabet = new int[ASCII_LIMIT];
+            Arrays.fill(asciiAlphabet, -1);
+            Map<Character, Integer> extendedAlphabet = new HashMap<>();
+            int alphabetSize = 0;
+            for (String keyword : keywordIds.keySet()) {
+                for (char c : keyword.toCharArray()) {
+                    if (c < ASCII_LIMIT) {
+                        if (asciiAlphabet[c] < 0) {
+                            asciiAlphabet[c] = alphabetSize++;
+                        }
+                    } else if (!extendedAlphabet.containsKey(c)) {
+                        extendedAlphabet.put(c, alphabetSize++);
+                    }
+                }
+            }
+
+            // Build the keyword trie
+            List<int[]> trie = new ArrayList<>();
+            List<List<Integer>> trieOutputs = new ArrayList<>();
+            trie.add(newRow(alphabetSize));
+            trieOutputs.add(new ArrayList<>());
+
+            for (Map.Entry<String, Integer> entry : keywordIds.entrySet()) {
+                int state = 0;
+                for (char c : entry.getKey().toCharArray()) {
+                    int symbol = c < ASCII_LIMIT ? asciiAlphabet[c] : extendedAlphabet.get(c);
+                    if (trie.get(state)[symbol] < 0) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(newRow(alphabetSize));
+                        trieOutputs.add(new ArrayList<>());
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                trieOutputs.get(state).add(entry.getValue());
+            }
+
+            // Breadth-first pass turns the trie into a complete DFA using failure links
+            int[][] transitions = trie.toArray(new int[0][]);
+            int[] failure = new int[transitions.length];
+            Deque<Integer> queue = new ArrayDeque<>();
+
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int next = transitions[0][symbol];
+                if (next < 0) {
+                    transitions[0][symbol] = 0;
+                } else {
+                    failure[next] = 0;
+                    queue.add(next);
+                }
+            }
+
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                trieOutputs.get(state).addAll(trieOutputs.get(failure[state]));
+
+                for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                    int next = transitions[state][symbol];
+                    if (next < 0) {
+                        transitions[state][symbol] = transitions[failure[state]][symbol];
+                    } else {
+                        failure[next] = transitions[failure[state]][symbol];
+                        queue.add(next);
+                    }
+                }
+            }
+
+            int[][] outputs = new int[transitions.length][];
+            for (int state = 0; state < outputs.length; state++) {
+                outputs[state] = trieOutputs.get(state).stream().mapToInt(Integer::intValue).distinct().toArray();
+            }
+
+            return new SignatureEngine(
+                Collections.unmodifiableMap(new HashMap<>(keywordIds)),
+                asciiAlphabet, extendedAlphabet, transitions, outputs);
+        }
+
+        private static int[] newRow(int alphabetSize) {
+            int[] row = new int[alphabetSize];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
@@ -2,20 +2,120 @@ package io.explainit.util;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ZipExtractor {
     
+    private static final int EOCD_MIN_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+    
+    /**
+     * Wrap a stream so reading more than the given number of bytes from it fails.
+     * Used for uploads and for inflated entries, whose declared sizes an archive may misstate.
+     *
+     * @param what Describes the content in the exception message, e.g. "Upload" or an entry name
+     * @throws ArchiveLimitException from read, once more than maxBytes have been read
+     */
+    public static InputStream limit(InputStream input, long maxBytes, String what) {
+        return new FilterInputStream(input) {
+            private long remaining = maxBytes;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    consume(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    consume(n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                consume(skipped);
+                return skipped;
+            }
+
+            private void consume(long n) throws ArchiveLimitException {
+                remaining -= n;
+                if (remaining < 0) {
+                    throw new ArchiveLimitException(what + " exceeds " + maxBytes + " bytes");
+                }
+            }
+        };
+    }
+
+    /**
+     * Check an archive's central directory against the limits before anything is inflated.
+     * Sizes are as declared; reads through {@link #openEntry} hold entries to them.
+     *
+     * @throws ArchiveLimitException if the archive has too many entries or declares too many inflated bytes
+     */
+    public static void checkLimits(ZipFile zipFile, long maxEntries, long maxInflatedBytes)
+            throws ArchiveLimitException {
+        long entries = 0;
+        long inflated = 0;
+        for (Enumeration<ZipArchiveEntry> it = zipFile.getEntries(); it.hasMoreElements(); ) {
+            ZipArchiveEntry entry = it.nextElement();
+            if (++entries > maxEntries) {
+                throw new ArchiveLimitException("Archive has more than " + maxEntries + " entries");
+            }
+            inflated += Math.max(0, entry.getSize());
+            if (inflated > maxInflatedBytes) {
+                throw new ArchiveLimitException("Archive inflates to more than " + maxInflatedBytes + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Open an entry for reading, failing if it inflates to more than its declared size.
+     */
+    public static InputStream openEntry(ZipFile zipFile, ZipArchiveEntry entry) throws IOException {
+        long declared = entry.getSize() >= 0 ? entry.getSize() : Long.MAX_VALUE;
+        return limit(zipFile.getInputStream(entry), declared, entry.getName());
+    }
+    
     public static Path extractZip(InputStream inputStream) throws IOException {
+        return extractZip(inputStream, Cancellation.NONE);
+    }
+    
+    /**
+     * Extract an archive to a new temporary directory, checking for cancellation between entries.
+     * Entries that would escape the directory are skipped.
+     * If extraction fails or is cancelled, the partially extracted directory is removed.
+     *
+     * @throws java.util.concurrent.CancellationException if cancelled before extraction finished
+     */
+    public static Path extractZip(InputStream inputStream, Cancellation cancellation) throws IOException {
         Path tempDir = Files.createTempDirectory("explainit-analysis-");
         
         try (ZipArchiveInputStream zipInput = new ZipArchiveInputStream(inputStream)) {
             ZipArchiveEntry entry;
             while ((entry = zipInput.getNextEntry()) != null) {
-                Path filePath = tempDir.resolve(entry.getName());
+                cancellation.throwIfCancelled();
+                Path filePath = tempDir.resolve(entry.getName()).normalize();
+                if (!filePath.startsWith(tempDir) || filePath.equals(tempDir)) {
+                    continue;
+                }
                 
                 if (entry.isDirectory()) {
                     Files.createDirectories(filePath);
@@ -24,11 +124,158 @@ public class ZipExtractor {
                     Files.copy(zipInput, filePath);
                 }
             }
+        } catch (IOException | RuntimeException e) {
+            deleteDirectory(tempDir);
+            throw e;
+        }
+        
+        return tempDir;
+    }
+    
+    /**
+     * Extract every entry of an open archive to a new temporary directory, inflating entries in parallel.
+     *
+     * @see #extractZip(ZipFile, ExtractionFilter, ExecutorService, Cancellation)
+     */
+    public static Path extractZip(ZipFile zipFile, ExecutorService executor, Cancellation cancellation)
+            throws IOException, InterruptedException {
+        return extractZip(zipFile, ExtractionFilter.ALL, executor, cancellation);
+    }
+    
+    /**
+     * Extract the entries of an open archive accepted by the filter to a new temporary directory,
+     * inflating entries in parallel.
+     * Every directory is created up front in a single pass, parents first, so the workers
+     * only write files. Entries that would escape the directory are skipped, and when an
+     * entry name repeats the first one wins, as in ProjectIndex. Empty directories are only
+     * created when extracting everything.
+     * If an entry fails, entries not yet started are skipped; once the ones in progress
+     * have stopped, the partially extracted directory is removed. The same goes for cancellation.
+     *
+     * @param zipFile The archive; its entries are read concurrently, so it must support that
+     * @param filter Decides, by path relative to the directory, which files are written
+     * @param executor Pool the entries are inflated on, ideally work-stealing
+     * @throws java.util.concurrent.CancellationException if cancelled before extraction finished
+     */
+    public static Path extractZip(ZipFile zipFile, ExtractionFilter filter, ExecutorService executor,
+                                  Cancellation cancellation) throws IOException, InterruptedException {
+        Path tempDir = Files.createTempDirectory("explainit-analysis-");
+        
+        try {
+            Map<Path, ZipArchiveEntry> files = new LinkedHashMap<>();
+            SortedSet<Path> directories = new TreeSet<>(Comparator.comparingInt(Path::getNameCount).thenComparing(p -> p));
+            for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+                Path path = tempDir.resolve(entry.getName()).normalize();
+                if (!path.startsWith(tempDir) || path.equals(tempDir)) {
+                    continue;
+                }
+                if (entry.isDirectory()) {
+                    if (filter == ExtractionFilter.ALL) {
+                        directories.add(path);
+                    }
+                } else if (!files.containsKey(path)) {
+                    // Record skipped files too, so a later duplicate of a skipped entry is not written
+                    files.put(path, filter.accepts(tempDir.relativize(path)) ? entry : null);
+                }
+            }
+            
+            files.values().removeIf(Objects::isNull);
+            for (Path file : files.keySet()) {
+                directories.add(file.getParent());
+            }
+            
+            for (Path directory : directories) {
+                Files.createDirectories(directory);
+            }
+            
+            // Set by the first entry that fails; every entry after it is skipped
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            CountDownLatch done = new CountDownLatch(files.size());
+            for (Map.Entry<Path, ZipArchiveEntry> file : files.entrySet()) {
+                Runnable task = () -> {
+                    try {
+                        if (failure.get() == null) {
+                            cancellation.throwIfCancelled();
+                            writeEntry(zipFile, file.getValue(), file.getKey());
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                };
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // The task still counts down, skipping its entry
+                    failure.compareAndSet(null, e);
+                    task.run();
+                }
+            }
+            
+            // Waits for entries in progress even after a failure, so none writes into the directory once it is removed
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            }
+            Throwable cause = failure.get();
+            if (cause instanceof IOException e) {
+                throw e;
+            }
+            if (cause instanceof RuntimeException e) {
+                throw e;
+            }
+            if (cause instanceof Error e) {
+                throw e;
+            }
+        } catch (IOException | InterruptedException | RuntimeException | Error e) {
+            deleteDirectory(tempDir);
+            throw e;
         }
         
         return tempDir;
     }
     
+    private static void writeEntry(ZipFile zipFile, ZipArchiveEntry entry, Path path) throws IOException {
+        try (InputStream input = openEntry(zipFile, entry)) {
+            Files.copy(input, path);
+        }
+    }
+    
+    /**
+     * Open an in-memory archive for random access through its central directory,
+     * without writing anything to disk.
+     */
+    public static ZipFile openArchive(byte[] data) throws IOException {
+        return ZipFile.builder()
+            .setSeekableByteChannel(new SeekableInMemoryByteChannel(data))
+            .get();
+    }
+    
+    /**
+     * Read the entry count from an archive's end of central directory record,
+     * which sits in the last 64 KB of the file, without reading the entries.
+     *
+     * @param input Stream over the whole archive, positioned at the start
+     * @param size Size of the archive in bytes
+     * @return The number of entries, or -1 if the record is missing or uses ZIP64
+     */
+    public static long readEntryCount(InputStream input, long size) throws IOException {
+        int tailLength = (int) Math.min(size, EOCD_MIN_LENGTH + MAX_COMMENT_LENGTH);
+        input.skipNBytes(size - tailLength);
+        byte[] tail = input.readNBytes(tailLength);
+
+        for (int i = tail.length - EOCD_MIN_LENGTH; i >= 0; i--) {
+            if (tail[i] == 0x50 && tail[i + 1] == 0x4b && tail[i + 2] == 0x05 && tail[i + 3] == 0x06) {
+                int entries = (tail[i + 10] & 0xff) | (tail[i + 11] & 0xff) << 8;
+                return entries == 0xffff ? -1 : entries;
+            }
+        }
+        return -1;
+    }
+    
     public static void deleteDirectory(Path directory) throws IOException {
         if (!Files.exists(directory)) {
             return;
@@ -0,0 +1,70 @@
+package io.explainit.analyzer;
+
+import io.explainit.corpus.ProjectCorpusGenerator;
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.util.Cancellation;
+import io.explainit.util.ProjectIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaFactCacheTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void cancelledExtractionIsNotSharedWithOtherAnalyses() throws Exception {
+		ProjectCorpusGenerator generator = ProjectCorpusGenerator.springBoot().files(100).controllers(5).entities(5);
+		Path cancelledProject = generator.writeTo(tempDir.resolve("cancelled"));
+		Path otherProject = generator.writeTo(tempDir.resolve("other"));
+		JavaFactCache cache = new JavaFactCache();
+
+		ProjectIndex other = ProjectIndex.build(otherProject);
+		AtomicReference<ProjectMetadata> otherResult = new AtomicReference<>();
+		AtomicReference<Throwable> otherFailure = new AtomicReference<>();
+		Thread otherAnalysis = new Thread(() -> {
+			try {
+				otherResult.set(new ProjectAnalysisOrchestrator(null, 0, cache).analyzeProject(other));
+			} catch (Throwable e) {
+				otherFailure.set(e);
+			}
+		});
+
+		// Cancelled once it is extracting the file and the other analysis is waiting for those facts
+		ProjectIndex cancelled = ProjectIndex.build(cancelledProject);
+		cancelled.setCancellation(new Cancellation() {
+			private int checkpoints;
+
+			@Override
+			public void throwIfCancelled() {
+				// The first checkpoint reads the file for its hash, the second is inside the extraction
+				if (++checkpoints != 2) {
+					return;
+				}
+				otherAnalysis.start();
+				long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+				while (otherAnalysis.getState() != Thread.State.WAITING && otherAnalysis.isAlive()) {
+					assertTrue(System.nanoTime() < deadline, "Other analysis never waited for the shared file");
+					Thread.onSpinWait();
+				}
+				throw new CancellationException("Analysis cancelled");
+			}
+		});
+		Path controller = cancelled.findFilesByExtension("java").stream()
+			.filter(file -> file.getFileName().toString().startsWith("Controller"))
+			.findFirst().get();
+		assertThrows(CancellationException.class, () -> cache.get(cancelled, controller));
+
+		otherAnalysis.join(TimeUnit.SECONDS.toMillis(60));
+		assertNull(otherFailure.get());
+		ProjectMetadata cold = new ProjectAnalysisOrchestrator().analyzeProject(ProjectIndex.build(otherProject));
+		assertFalse(otherResult.get().isPartial());
+		assertEquals(cold.getApiRoutes().size(), otherResult.get().getApiRoutes().size());
+	}
+}
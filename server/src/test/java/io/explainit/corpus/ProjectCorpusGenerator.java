@@ -0,0 +1,430 @@
+package io.explainit.corpus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates reproducible Spring Boot, Node and Python projects of configurable size,
+ * as a directory tree or a ZIP archive. Output depends only on the settings, so the
+ * same settings always produce byte-identical projects.
+ *
+ * <pre>
+ * byte[] zip = ProjectCorpusGenerator.springBoot()
+ *     .files(10_000)
+ *     .controllers(200).mappingsPerController(5)
+ *     .entities(100)
+ *     .dependencies(40)
+ *     .toZipBytes();
+ * </pre>
+ *
+ * Used by the server tests and published in the test jar for the benchmarks module.
+ */
+public class ProjectCorpusGenerator {
+
+    public enum Kind {
+        SPRING_BOOT, NODE, PYTHON
+    }
+
+    private static final int FILES_PER_PACKAGE = 50;
+    // Fixed entry timestamp so archives are byte-identical between runs
+    private static final long ZIP_ENTRY_TIME = 1577836800000L;
+    private static final String[] HTTP_VERBS = {"Get", "Post", "Put", "Delete", "Patch"};
+
+    private final Kind kind;
+    private int files = 100;
+    private int packageDepth = 1;
+    private int controllers = 10;
+    private int mappingsPerController = 4;
+    private int entities = 10;
+    private int dependencies = 20;
+    private int lockfileEntries = 0;
+
+    private ProjectCorpusGenerator(Kind kind) {
+        this.kind = kind;
+    }
+
+    public static ProjectCorpusGenerator of(Kind kind) {
+        return new ProjectCorpusGenerator(kind);
+    }
+
+    public static ProjectCorpusGenerator springBoot() {
+        return of(Kind.SPRING_BOOT);
+    }
+
+    public static ProjectCorpusGenerator node() {
+        return of(Kind.NODE);
+    }
+
+    public static ProjectCorpusGenerator python() {
+        return of(Kind.PYTHON);
+    }
+
+    /**
+     * Total number of files in the project, including build and config files.
+     */
+    public ProjectCorpusGenerator files(int files) {
+        this.files = files;
+        return this;
+    }
+
+    /**
+     * Number of nested directories between the source root and each module package.
+     */
+    public ProjectCorpusGenerator packageDepth(int packageDepth) {
+        this.packageDepth = packageDepth;
+        return this;
+    }
+
+    /**
+     * Number of controllers (Spring), routers (Node) or view modules (Python).
+     */
+    public ProjectCorpusGenerator controllers(int controllers) {
+        this.controllers = controllers;
+        return this;
+    }
+
+    public ProjectCorpusGenerator mappingsPerController(int mappingsPerController) {
+        this.mappingsPerController = mappingsPerController;
+        return this;
+    }
+
+    /**
+     * Number of @Entity classes (Spring) or model modules (Node, Python).
+     */
+    public ProjectCorpusGenerator entities(int entities) {
+        this.entities = entities;
+        return this;
+    }
+
+    /**
+     * Number of dependencies in pom.xml, package.json or requirements.txt.
+     */
+    public ProjectCorpusGenerator dependencies(int dependencies) {
+        this.dependencies = dependencies;
+        return this;
+    }
+
+    /**
+     * Number of packages in the lockfile (package-lock.json, poetry.lock or a Maven
+     * dependency report); 0 writes no lockfile.
+     */
+    public ProjectCorpusGenerator lockfileEntries(int lockfileEntries) {
+        this.lockfileEntries = lockfileEntries;
+        return this;
+    }
+
+    /**
+     * Write the project under the given directory, creating it if needed.
+     *
+     * @return The project root
+     */
+    public Path writeTo(Path root) throws IOException {
+        Files.createDirectories(root);
+        generate((relativePath, content) -> {
+            Path file = root.resolve(relativePath);
+            Files.createDirectories(file.getParent());
+            Files.write(file, content);
+        });
+        return root;
+    }
+
+    /**
+     * Write the project as a ZIP archive with entry names relative to the project root.
+     */
+    public void writeZip(OutputStream output) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(output);
+        generate((relativePath, content) -> {
+            ZipEntry entry = new ZipEntry(relativePath);
+            entry.setTime(ZIP_ENTRY_TIME);
+            zip.putNextEntry(entry);
+            zip.write(content);
+            zip.closeEntry();
+        });
+        zip.finish();
+    }
+
+    public Path writeZip(Path zipFile) throws IOException {
+        try (OutputStream output = Files.newOutputStream(zipFile)) {
+            writeZip(output);
+        }
+        return zipFile;
+    }
+
+    public byte[] toZipBytes() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writeZip(output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Number of HTTP mappings the generated controllers declare.
+     */
+    public int expectedEndpointCount() {
+        return Math.min(controllers, sourceFileBudget()) * mappingsPerController;
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void write(String relativePath, byte[] content) throws IOException;
+
+        default void write(String relativePath, String content) throws IOException {
+            write(relativePath, content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void generate(Sink out) throws IOException {
+        switch (kind) {
+            case SPRING_BOOT -> generateSpringBoot(out);
+            case NODE -> generateNode(out);
+            case PYTHON -> generatePython(out);
+        }
+    }
+
+    private int fixedFileCount() {
+        int fixed = switch (kind) {
+            case SPRING_BOOT, PYTHON -> 3;
+            case NODE -> 2;
+        };
+        return lockfileEntries > 0 ? fixed + 1 : fixed;
+    }
+
+    private int sourceFileBudget() {
+        return Math.max(0, files - fixedFileCount());
+    }
+
+    /**
+     * Relative directory of the package holding the given source file.
+     */
+    private String modulePath(int fileIndex) {
+        StringBuilder path = new StringBuilder();
+        for (int level = 1; level < packageDepth; level++) {
+            path.append("level").append(level).append('/');
+        }
+        return path.append("module").append(fileIndex / FILES_PER_PACKAGE).toString();
+    }
+
+    // Spring Boot
+
+    private void generateSpringBoot(Sink out) throws IOException {
+        out.write("pom.xml", pomXml());
+        out.write("src/main/resources/application.properties",
+            "spring.datasource.url=jdbc:postgresql://localhost:5432/app\n"
+                + "spring.jpa.hibernate.ddl-auto=none\nserver.port=8080\n");
+        out.write("src/main/java/com/example/app/Application.java",
+            "package com.example.app;\n\n"
+                + "import org.springframework.boot.SpringApplication;\n"
+                + "import org.springframework.boot.autoconfigure.SpringBootApplication;\n\n"
+                + "@SpringBootApplication\npublic class Application {\n"
+                + "    public static void main(String[] args) {\n"
+                + "        SpringApplication.run(Application.class, args);\n    }\n}\n");
+        if (lockfileEntries > 0) {
+            out.write("dependency-list.txt", mavenDependencyList());
+        }
+
+        int budget = sourceFileBudget();
+        for (int i = 0; i < budget; i++) {
+            String module = modulePath(i);
+            String packageName = "com.example.app." + module.replace('/', '.');
+            String className;
+            String source;
+            if (i < controllers) {
+                className = "Controller" + i;
+                source = springController(packageName, className, i);
+            } else if (i < controllers + entities) {
+                className = "Entity" + i;
+                source = springEntity(packageName, className);
+            } else {
+                className = "Service" + i;
+                source = springService(packageName, className);
+            }
+            out.write("src/main/java/com/example/app/" + module + "/" + className + ".java", source);
+        }
+    }
+
+    /**
+     * @return The pom.xml written for Spring Boot projects with the configured dependency count
+     */
+    public String pomXml() {
+        StringBuilder pom = new StringBuilder()
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+            .append("<project>\n  <modelVersion>4.0.0</modelVersion>\n")
+            .append("  <parent>\n    <groupId>org.springframework.boot</groupId>\n")
+            .append("    <artifactId>spring-boot-starter-parent</artifactId>\n    <version>3.2.0</version>\n  </parent>\n")
+            .append("  <groupId>com.example</groupId>\n  <artifactId>app</artifactId>\n  <version>1.0.0</version>\n")
+            .append("  <properties>\n    <java.version>17</java.version>\n  </properties>\n")
+            .append("  <dependencies>\n");
+        String[][] wellKnown = {
+            {"org.springframework.boot", "spring-boot-starter-web"},
+            {"org.springframework.boot", "spring-boot-starter-data-jpa"},
+            {"org.postgresql", "postgresql"},
+            {"org.flywaydb", "flyway-core"},
+        };
+        for (int i = 0; i < dependencies; i++) {
+            String groupId = i < wellKnown.length ? wellKnown[i][0] : "com.example.lib";
+            String artifactId = i < wellKnown.length ? wellKnown[i][1] : "library-" + i;
+            pom.append("    <dependency>\n      <groupId>").append(groupId).append("</groupId>\n")
+                .append("      <artifactId>").append(artifactId).append("</artifactId>\n    </dependency>\n");
+        }
+        return pom.append("  </dependencies>\n</project>\n").toString();
+    }
+
+    private String mavenDependencyList() {
+        StringBuilder list = new StringBuilder("The following files have been resolved:\n");
+        for (int i = 0; i < lockfileEntries; i++) {
+            list.append("   com.example.lib:library-").append(i).append(":jar:1.").append(i % 10).append(".0:compile\n");
+        }
+        return list.toString();
+    }
+
+    private String springController(String packageName, String className, int index) {
+        StringBuilder source = new StringBuilder("package ").append(packageName).append(";\n\n")
+            .append("import org.springframework.web.bind.annotation.*;\n\n")
+            .append("@RestController\n")
+            .append("public class ").append(className).append(" {\n\n");
+        for (int m = 0; m < mappingsPerController; m++) {
+            source.append("    @").append(HTTP_VERBS[m % HTTP_VERBS.length]).append("Mapping(\"/api/resource")
+                .append(index).append("/item").append(m).append("\")\n")
+                .append("    public String handle").append(m).append("() {\n        return \"ok\";\n    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    private String springEntity(String packageName, String className) {
+        return "package " + packageName + ";\n\n"
+            + "import jakarta.persistence.*;\n\n"
+            + "@Entity\npublic class " + className + " {\n"
+            + "    @Id\n    @GeneratedValue\n    private Long id;\n\n    private String name;\n}\n";
+    }
+
+    private String springService(String packageName, String className) {
+        return "package " + packageName + ";\n\n"
+            + "public class " + className + " {\n\n"
+            + "    public int compute(int value) {\n        return value * 31 + " + className.length() + ";\n    }\n}\n";
+    }
+
+    // Node
+
+    private void generateNode(Sink out) throws IOException {
+        out.write("package.json", packageJson());
+        out.write("src/index.js",
+            "const express = require('express');\nconst app = express();\n\n"
+                + "app.listen(3000, () => console.log('listening'));\n");
+        if (lockfileEntries > 0) {
+            out.write("package-lock.json", packageLock());
+        }
+
+        int budget = sourceFileBudget();
+        for (int i = 0; i < budget; i++) {
+            String module = "src/" + modulePath(i);
+            if (i < controllers) {
+                out.write(module + "/routes" + i + ".js", nodeRouter(i));
+            } else if (i < controllers + entities) {
+                out.write(module + "/model" + i + ".js",
+                    "const mongoose = require('mongoose');\n\n"
+                        + "module.exports = mongoose.model('Model" + i + "', new mongoose.Schema({ name: String }));\n");
+            } else {
+                out.write(module + "/util" + i + ".js",
+                    "module.exports = function compute" + i + "(value) {\n  return value * 31;\n};\n");
+            }
+        }
+    }
+
+    private String packageJson() {
+        StringBuilder json = new StringBuilder("{\n  \"name\": \"generated-app\",\n  \"version\": \"1.0.0\",\n")
+            .append("  \"dependencies\": {\n");
+        String[] wellKnown = {"express", "mongoose", "jsonwebtoken", "cors"};
+        for (int i = 0; i < dependencies; i++) {
+            String name = i < wellKnown.length ? wellKnown[i] : "library-" + i;
+            json.append("    \"").append(name).append("\": \"^1.").append(i % 10).append(".0\"")
+                .append(i + 1 < dependencies ? ",\n" : "\n");
+        }
+        return json.append("  }\n}\n").toString();
+    }
+
+    private String packageLock() {
+        StringBuilder json = new StringBuilder("{\n  \"name\": \"generated-app\",\n  \"lockfileVersion\": 3,\n")
+            .append("  \"packages\": {\n");
+        for (int i = 0; i < lockfileEntries; i++) {
+            json.append("    \"node_modules/library-").append(i).append("\": {\n")
+                .append("      \"version\": \"1.").append(i % 10).append(".0\",\n")
+                .append("      \"resolved\": \"https://registry.npmjs.org/library-").append(i)
+                .append("/-/library-").append(i).append("-1.").append(i % 10).append(".0.tgz\",\n")
+                .append("      \"integrity\": \"sha512-").append(String.format("%040x", i))
+                .append("\"\n    }").append(i + 1 < lockfileEntries ? ",\n" : "\n");
+        }
+        return json.append("  }\n}\n").toString();
+    }
+
+    private String nodeRouter(int index) {
+        StringBuilder source = new StringBuilder("const express = require('express');\n")
+            .append("const router = express.Router();\n\n");
+        for (int m = 0; m < mappingsPerController; m++) {
+            source.append("router.").append(HTTP_VERBS[m % HTTP_VERBS.length].toLowerCase())
+                .append("('/resource").append(index).append("/item").append(m).append("', (req, res) => res.send('ok'));\n");
+        }
+        return source.append("\nmodule.exports = router;\n").toString();
+    }
+
+    // Python
+
+    private void generatePython(Sink out) throws IOException {
+        out.write("requirements.txt", requirements());
+        out.write("app.py", "from flask import Flask\n\napp = Flask(__name__)\n\n"
+            + "if __name__ == '__main__':\n    app.run()\n");
+        out.write("config.py", "DEBUG = False\nSQLALCHEMY_DATABASE_URI = 'postgresql://localhost/app'\n");
+        if (lockfileEntries > 0) {
+            out.write("poetry.lock", poetryLock());
+        }
+
+        int budget = sourceFileBudget();
+        for (int i = 0; i < budget; i++) {
+            String module = "app/" + modulePath(i);
+            if (i < controllers) {
+                out.write(module + "/views" + i + ".py", pythonViews(i));
+            } else if (i < controllers + entities) {
+                out.write(module + "/model" + i + ".py",
+                    "from sqlalchemy import Column, Integer, String\n\n\n"
+                        + "class Model" + i + ":\n    id = Column(Integer, primary_key=True)\n    name = Column(String)\n");
+            } else {
+                out.write(module + "/util" + i + ".py", "def compute" + i + "(value):\n    return value * 31\n");
+            }
+        }
+    }
+
+    private String requirements() {
+        StringBuilder requirements = new StringBuilder();
+        String[] wellKnown = {"flask", "sqlalchemy", "pyjwt", "python-dotenv"};
+        for (int i = 0; i < dependencies; i++) {
+            String name = i < wellKnown.length ? wellKnown[i] : "library-" + i;
+            requirements.append(name).append("==1.").append(i % 10).append(".0\n");
+        }
+        return requirements.toString();
+    }
+
+    private String poetryLock() {
+        StringBuilder lock = new StringBuilder();
+        for (int i = 0; i < lockfileEntries; i++) {
+            lock.append("[[package]]\nname = \"library-").append(i).append("\"\n")
+                .append("version = \"1.").append(i % 10).append(".0\"\n")
+                .append("description = \"Generated package ").append(i).append("\"\n")
+                .append("optional = false\npython-versions = \">=3.8\"\n\n");
+        }
+        return lock.toString();
+    }
+
+    private String pythonViews(int index) {
+        StringBuilder source = new StringBuilder("from app import app\n\n");
+        for (int m = 0; m < mappingsPerController; m++) {
+            source.append("\n@app.route('/resource").append(index).append("/item").append(m)
+                .append("', methods=['").append(HTTP_VERBS[m % HTTP_VERBS.length].toUpperCase()).append("'])\n")
+                .append("def handle_").append(index).append('_').append(m).append("():\n    return 'ok'\n\n");
+        }
+        return source.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package io.explainit.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisAdmissionTests {
+
+	private static AnalysisAdmission admission(int budgetMb) {
+		// 1 KB per entry, 5s queue timeout, so a wait would be noticed
+		return new AnalysisAdmission(new SimpleMeterRegistry(), budgetMb, 4, 1, 1, 5000, 8, 5);
+	}
+
+	@Test
+	void entryChargeIsRejectedRatherThanAwaited() throws Exception {
+		AnalysisAdmission admission = admission(1);
+		try (AnalysisAdmission.Permit first = admission.admit(512 * 1024);
+			 AnalysisAdmission.Permit second = admission.admit(512 * 1024)) {
+			// Each holds half the budget; waiting for the other's half would deadlock both
+			long start = System.nanoTime();
+			assertThrows(RejectedExecutionException.class, () -> first.chargeEntries(100));
+			assertTrue(System.nanoTime() - start < 1_000_000_000L);
+			assertEquals(512, first.getChargedKb());
+		}
+		assertEquals(1024, admission.getAvailableKb());
+	}
+
+	@Test
+	void entryChargeIsTakenWhenAvailable() throws Exception {
+		AnalysisAdmission admission = admission(1);
+		try (AnalysisAdmission.Permit permit = admission.admit(512 * 1024)) {
+			permit.chargeEntries(100);
+			assertEquals(612, permit.getChargedKb());
+			assertEquals(412, admission.getAvailableKb());
+		}
+		assertEquals(1024, admission.getAvailableKb());
+	}
+}
@@ -0,0 +1,77 @@
+package io.explainit.service;
+
+import io.explainit.dto.ProjectMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisResultCacheTests {
+
+	private static final String FIRST = "1".repeat(64);
+	private static final String SECOND = "2".repeat(64);
+	private static final String THIRD = "3".repeat(64);
+
+	@TempDir
+	Path tempDir;
+
+	private AnalysisResultCache diskOnly(long diskMb) {
+		// No memory tier, so every lookup goes to disk
+		return new AnalysisResultCache(true, 0, tempDir.toString(), diskMb);
+	}
+
+	private static ProjectMetadata metadata(String summary) {
+		ProjectMetadata metadata = new ProjectMetadata();
+		metadata.setSummary(summary);
+		return metadata;
+	}
+
+	private Path stored(String digest) throws Exception {
+		try (var files = Files.walk(tempDir)) {
+			return files.filter(file -> file.getFileName().toString().equals(digest + ".json")).findFirst().orElse(null);
+		}
+	}
+
+	@Test
+	void diskTierSurvivesRestart() {
+		diskOnly(16).put(FIRST, metadata("first"));
+
+		AnalysisResultCache restarted = diskOnly(16);
+		assertEquals("first", restarted.get(FIRST).orElseThrow().getSummary());
+		assertEquals(1, restarted.getDiskHits());
+		assertTrue(restarted.get(SECOND).isEmpty());
+		assertEquals(1, restarted.getMisses());
+	}
+
+	@Test
+	void diskTierEvictsLeastRecentlyUsedPastBudget() throws Exception {
+		AnalysisResultCache cache = diskOnly(1);
+		String large = "x".repeat(400 * 1024);
+		cache.put(FIRST, metadata(large));
+		cache.put(SECOND, metadata(large));
+		Files.setLastModifiedTime(stored(FIRST), FileTime.fromMillis(1000));
+		Files.setLastModifiedTime(stored(SECOND), FileTime.fromMillis(2000));
+		// Reading touches the entry, so the second one is now the least recently used
+		assertTrue(cache.get(FIRST).isPresent());
+
+		cache.put(THIRD, metadata(large));
+		assertNull(stored(SECOND));
+		assertTrue(cache.get(SECOND).isEmpty());
+		assertTrue(cache.get(FIRST).isPresent());
+		assertTrue(cache.get(THIRD).isPresent());
+	}
+
+	@Test
+	void corruptResultIsAMiss() throws Exception {
+		AnalysisResultCache cache = diskOnly(16);
+		cache.put(FIRST, metadata("first"));
+		Files.writeString(stored(FIRST), "{\"summary\": ");
+
+		assertTrue(cache.get(FIRST).isEmpty());
+		assertEquals(1, cache.getMisses());
+		assertNull(stored(FIRST));
+	}
+}
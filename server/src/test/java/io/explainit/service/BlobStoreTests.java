@@ -0,0 +1,122 @@
+package io.explainit.service;
+
+import io.explainit.analyzer.AnalysisListener;
+import io.explainit.corpus.ProjectCorpusGenerator;
+import io.explainit.dto.ProjectManifest;
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.util.ArchiveLimitException;
+import io.explainit.util.Cancellation;
+import io.explainit.util.DigestMismatchException;
+import io.explainit.util.ProjectIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobStoreTests {
+
+	@TempDir
+	Path tempDir;
+
+	private BlobStore blobs(long maxMb) {
+		return new BlobStore(tempDir.resolve("blobs").toString(), maxMb, 1, 60);
+	}
+
+	private static ProjectAnalysisService service() {
+		AnalysisResultCache cache = new AnalysisResultCache(false, 0, "", 0);
+		AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+		return new ProjectAnalysisService(cache, metrics, new ArchiveLimits(100, 100000, 2048), true, 4, 60, 64, true,
+			1, 2, 32, 2, "", 1000, 60);
+	}
+
+	private static String sha256(byte[] content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+	}
+
+	@Test
+	void manifestUploadOnlySendsChangedContent() throws Exception {
+		Path project = ProjectCorpusGenerator.springBoot().files(300).controllers(10).entities(10)
+			.writeTo(tempDir.resolve("project"));
+		BlobStore blobs = blobs(64);
+		List<ProjectManifest.Entry> entries = new ArrayList<>();
+		for (Path file : ProjectIndex.build(project).getFiles()) {
+			entries.add(new ProjectManifest.Entry(project.relativize(file).toString(), sha256(Files.readAllBytes(file))));
+		}
+		ProjectManifest manifest = new ProjectManifest(entries);
+
+		for (String hash : blobs.missing(manifest)) {
+			ProjectManifest.Entry entry = entries.stream().filter(e -> e.getSha256().equals(hash)).findFirst().get();
+			try (InputStream content = Files.newInputStream(project.resolve(entry.getPath()))) {
+				blobs.put(hash, content);
+			}
+		}
+		assertTrue(blobs.missing(manifest).isEmpty());
+
+		ProjectMetadata fromDirectory = service().analyzeProject(project);
+		ProjectMetadata fromBlobs = service().analyzeBlobs(BlobStore.digest(manifest), blobs.resolve(manifest),
+			AnalysisListener.NONE, new AnalysisProfile(), Cancellation.NONE);
+		assertEquals(fromDirectory.getApiRoutes().size(), fromBlobs.getApiRoutes().size());
+		assertEquals(fromDirectory.getEntryPoints().size(), fromBlobs.getEntryPoints().size());
+		assertEquals(fromDirectory.getFrameworks(), fromBlobs.getFrameworks());
+
+		entries.set(0, new ProjectManifest.Entry(entries.get(0).getPath(), "0".repeat(64)));
+		assertEquals(List.of("0".repeat(64)), blobs.missing(manifest));
+	}
+
+	@Test
+	void indexHashesContentAsTheStoreDoes() throws Exception {
+		Path project = Files.createDirectories(tempDir.resolve("project"));
+		// Latin-1, which decoding as UTF-8 would not round-trip
+		byte[] content = "class Caf\u00e9 {}".getBytes(StandardCharsets.ISO_8859_1);
+		Path file = Files.write(project.resolve("Cafe.java"), content);
+
+		assertEquals(sha256(content), ProjectIndex.build(project).contentHash(file));
+	}
+
+	@Test
+	void negotiatedBlobsAreNotEvicted() throws Exception {
+		BlobStore blobs = blobs(1);
+		byte[] first = new byte[600 * 1024];
+		byte[] second = new byte[600 * 1024];
+		second[0] = 1;
+		blobs.put(sha256(first), new ByteArrayInputStream(first));
+		ProjectManifest manifest = new ProjectManifest(List.of(new ProjectManifest.Entry("First.java", sha256(first))));
+		assertTrue(blobs.missing(manifest).isEmpty());
+
+		// The store is over its budget, and the older blob is pinned by the negotiation
+		blobs.put(sha256(second), new ByteArrayInputStream(second));
+		assertTrue(blobs.missing(manifest).isEmpty());
+	}
+
+	@Test
+	void manifestLargerThanTheStoreIsRefused() {
+		BlobStore blobs = blobs(1);
+		ProjectManifest manifest = new ProjectManifest(List.of(
+			new ProjectManifest.Entry("A.java", "a".repeat(64), 768 * 1024),
+			new ProjectManifest.Entry("B.java", "b".repeat(64), 768 * 1024)));
+
+		assertThrows(ArchiveLimitException.class, () -> blobs.missing(manifest));
+	}
+
+	@Test
+	void contentMustMatchItsHash() throws Exception {
+		BlobStore blobs = blobs(1);
+		byte[] content = "class A {}".getBytes();
+		blobs.put(sha256(content), new ByteArrayInputStream(content));
+		// Storing the same content again is a no-op
+		blobs.put(sha256(content), new ByteArrayInputStream(content));
+
+		assertThrows(DigestMismatchException.class,
+			() -> blobs.put(sha256(content), new ByteArrayInputStream("class B {}".getBytes())));
+	}
+}
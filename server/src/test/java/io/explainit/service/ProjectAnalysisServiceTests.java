@@ -0,0 +1,319 @@
+package io.explainit.service;
+
+import io.explainit.analyzer.AnalysisListener;
+import io.explainit.analyzer.JavaFactCache;
+import io.explainit.analyzer.ProjectAnalysisOrchestrator;
+import io.explainit.corpus.ProjectCorpusGenerator;
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.dto.ProjectMetadataDiff;
+import io.explainit.dto.QuickLookResult;
+import io.explainit.util.ArchiveLimitException;
+import io.explainit.util.Cancellation;
+import io.explainit.util.ProjectIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectAnalysisServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private ProjectAnalysisService service(boolean inArchive) {
+		return service(inArchive, new ArchiveLimits(100, 100000, 2048));
+	}
+
+	private ProjectAnalysisService service(boolean inArchive, ArchiveLimits limits) {
+		AnalysisResultCache cache = new AnalysisResultCache(false, 0, "", 0);
+		AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+		return new ProjectAnalysisService(cache, metrics, limits, true, 4, 60, 64, inArchive, 1, 2, 32, 2, "", 1000, 60);
+	}
+
+	@Test
+	void analyzesGeneratedSpringBootArchive() throws Exception {
+		ProjectCorpusGenerator generator = ProjectCorpusGenerator.springBoot()
+			.files(500)
+			.packageDepth(3)
+			.controllers(20)
+			.mappingsPerController(5)
+			.entities(30)
+			.dependencies(25);
+
+		ProjectMetadata metadata = service(true).analyzeArchive(new ByteArrayInputStream(generator.toZipBytes()));
+
+		assertFalse(metadata.isPartial());
+		assertEquals(500, metadata.getProjectSize().getTotalFileCount());
+		assertEquals(generator.expectedEndpointCount(), metadata.getApiRoutes().size());
+		assertEquals("Maven", metadata.getBuildInfo().getBuildTool());
+	}
+
+	@Test
+	void inArchiveModeMatchesExtraction() throws Exception {
+		for (ProjectCorpusGenerator.Kind kind : ProjectCorpusGenerator.Kind.values()) {
+			byte[] zip = ProjectCorpusGenerator.of(kind).files(300).lockfileEntries(100).toZipBytes();
+
+			ProjectMetadata inArchive = service(true).analyzeArchive(new ByteArrayInputStream(zip));
+			ProjectMetadata extracted = service(false).analyzeArchive(new ByteArrayInputStream(zip));
+
+			assertEquals(extracted.getLanguages(), inArchive.getLanguages(), kind.name());
+			assertEquals(extracted.getFrameworks(), inArchive.getFrameworks(), kind.name());
+			assertEquals(extracted.getProjectSize().getTotalFileCount(), inArchive.getProjectSize().getTotalFileCount(), kind.name());
+			assertEquals(extracted.getProjectSize().getTotalSizeBytes(), inArchive.getProjectSize().getTotalSizeBytes(), kind.name());
+			assertEquals(extracted.getApiRoutes().size(), inArchive.getApiRoutes().size(), kind.name());
+			assertEquals(extracted.getConfigFiles().size(), inArchive.getConfigFiles().size(), kind.name());
+		}
+	}
+
+	@Test
+	void quickLookMatchesFullAnalysis() throws Exception {
+		for (ProjectCorpusGenerator.Kind kind : ProjectCorpusGenerator.Kind.values()) {
+			byte[] zip = ProjectCorpusGenerator.of(kind).files(300).toZipBytes();
+
+			QuickLookResult quick = service(true).quickLook(new ByteArrayInputStream(zip));
+			ProjectMetadata full = service(true).analyzeArchive(new ByteArrayInputStream(zip));
+
+			assertEquals(full.getLanguages(), List.of(quick.getPrimaryLanguage()), kind.name());
+			assertEquals(full.getProjectSize().getTotalFileCount(), quick.getProjectStructure().getFileCount(), kind.name());
+			assertNotEquals("Unknown", quick.getBuildTool(), kind.name());
+		}
+	}
+
+	@Test
+	void pipelinedUploadMatchesBufferedUpload() throws Exception {
+		byte[] zip = ProjectCorpusGenerator.springBoot().files(300).controllers(10).entities(10).toZipBytes();
+
+		ProjectMetadata buffered = service(true).analyzeArchive(new ByteArrayInputStream(zip));
+		ProjectAnalysisService service = service(true);
+		ArchiveUpload upload = service.receive(new ByteArrayInputStream(zip), zip.length, new AnalysisProfile(),
+			Cancellation.NONE);
+		AnalysisProfile profile = new AnalysisProfile();
+		ProjectMetadata pipelined = service.analyzeUpload(upload, AnalysisListener.NONE, profile, Cancellation.NONE);
+
+		upload.close();
+		assertEquals(zip.length, upload.getSize());
+		assertEquals(buffered.getArchiveDigest(), pipelined.getArchiveDigest());
+		assertEquals(buffered.getApiRoutes().size(), pipelined.getApiRoutes().size());
+		assertEquals(buffered.getEntryPoints().size(), pipelined.getEntryPoints().size());
+		assertEquals(buffered.getFrameworks(), pipelined.getFrameworks());
+		assertTrue((long) profile.toMap().get("filesPrefetched") > 0);
+	}
+
+	@Test
+	void pipelinedUploadIsHeldToTheArchiveLimits() throws Exception {
+		byte[] zip = ProjectCorpusGenerator.springBoot().files(50).toZipBytes();
+
+		ProjectAnalysisService tooLarge = service(true, new ArchiveLimits(0, 100000, 2048));
+		assertThrows(ArchiveLimitException.class, () -> tooLarge.receive(new ByteArrayInputStream(zip), -1,
+			new AnalysisProfile(), Cancellation.NONE));
+		ProjectAnalysisService inflatesTooFar = service(true, new ArchiveLimits(100, 100000, 0));
+		assertThrows(ArchiveLimitException.class, () -> inflatesTooFar.receive(new ByteArrayInputStream(zip), -1,
+			new AnalysisProfile(), Cancellation.NONE));
+	}
+
+	@Test
+	void reanalysisOnlyParsesChangedJavaFiles() throws Exception {
+		Path project = ProjectCorpusGenerator.springBoot().files(300).controllers(10).entities(10)
+			.writeTo(tempDir.resolve("project"));
+		Path facts = tempDir.resolve("facts");
+		ProjectIndex first = ProjectIndex.build(project);
+		ProjectMetadata before = new ProjectAnalysisOrchestrator(null, 0, new JavaFactCache(facts, 1000))
+			.analyzeProject(first);
+
+		Path controller = first.findFilesByExtension("java").stream()
+			.filter(file -> file.getFileName().toString().startsWith("Controller"))
+			.findFirst().get();
+		String content = Files.readString(controller);
+		int lastBrace = content.lastIndexOf('}');
+		Files.writeString(controller, content.substring(0, lastBrace)
+			+ "    @GetMapping(\"/added\")\n    public String added() { return \"\"; }\n}\n");
+
+		// A new cache over the same directory stands in for a restarted server
+		ProjectIndex second = ProjectIndex.build(project);
+		ProjectMetadata after = new ProjectAnalysisOrchestrator(null, 0, new JavaFactCache(facts, 1000))
+			.analyzeProject(second);
+		ProjectMetadata cold = new ProjectAnalysisOrchestrator().analyzeProject(ProjectIndex.build(project));
+
+		assertEquals(1, second.getFactCacheMisses());
+		assertEquals(before.getApiRoutes().size() + 1, after.getApiRoutes().size());
+		assertEquals(cold.getApiRoutes().size(), after.getApiRoutes().size());
+		assertEquals(cold.getEntryPoints().size(), after.getEntryPoints().size());
+	}
+
+	@Test
+	void compactedFactLogKeepsServingFacts() throws Exception {
+		Path project = ProjectCorpusGenerator.springBoot().files(300).controllers(10).entities(10)
+			.writeTo(tempDir.resolve("project"));
+		Path facts = tempDir.resolve("facts");
+		ProjectIndex first = ProjectIndex.build(project);
+		int javaFiles = first.findFilesByExtension("java").size();
+
+		// Far fewer entries than Java files, so the log is compacted while facts are stored
+		JavaFactCache cache = new JavaFactCache(facts, 20);
+		new ProjectAnalysisOrchestrator(null, 0, cache).analyzeProject(first);
+		cache.close();
+		long lines;
+		try (Stream<String> log = Files.lines(facts.resolve("java-facts-v1.jsonl"))) {
+			lines = log.count();
+		}
+		assertTrue(lines < javaFiles, lines + " lines for " + javaFiles + " files");
+
+		// Replayed into a cache large enough that a second pass does not evict what it is about to reuse
+		ProjectIndex second = ProjectIndex.build(project);
+		new ProjectAnalysisOrchestrator(null, 0, new JavaFactCache(facts, 1000)).analyzeProject(second);
+		assertTrue(second.getFactCacheMisses() < javaFiles);
+	}
+
+	@Test
+	void diffReportsAddedRoutes() throws Exception {
+		ProjectCorpusGenerator base = ProjectCorpusGenerator.springBoot().files(300).controllers(10).entities(10);
+		ProjectCorpusGenerator head = ProjectCorpusGenerator.springBoot().files(300).controllers(11).entities(10);
+		AnalysisDiffService diffs = new AnalysisDiffService(service(true), null, null);
+
+		ProjectMetadataDiff diff = diffs.diff(new ByteArrayInputStream(base.toZipBytes()),
+			new ByteArrayInputStream(head.toZipBytes()));
+		assertTrue(diff.isChanged());
+		assertEquals(head.expectedEndpointCount() - base.expectedEndpointCount(), diff.getApiRoutes().getAdded().size());
+		assertTrue(diff.getApiRoutes().getRemoved().isEmpty());
+		assertNull(diff.getDatabase());
+
+		ProjectMetadataDiff same = diffs.diff(new ByteArrayInputStream(base.toZipBytes()),
+			new ByteArrayInputStream(base.toZipBytes()));
+		assertFalse(same.isChanged());
+	}
+
+	@Test
+	void storedAnalysesAreFoundByJobIdOrDigestOnly() throws Exception {
+		ProjectCorpusGenerator base = ProjectCorpusGenerator.springBoot().files(300).controllers(10).entities(10);
+		ProjectCorpusGenerator head = ProjectCorpusGenerator.springBoot().files(300).controllers(11).entities(10);
+		Path results = tempDir.resolve("results");
+		AnalysisResultCache cache = new AnalysisResultCache(true, 16, results.toString(), 16);
+		AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+		ProjectAnalysisService service = new ProjectAnalysisService(cache, metrics, new ArchiveLimits(100, 100000, 2048),
+			true, 4, 60, 64, true, 1, 2, 32, 2, "", 1000, 60);
+		AnalysisJobService jobs = new AnalysisJobService(service, metrics, 1, 1, 1, 4, 5, 30);
+		AnalysisDiffService diffs = new AnalysisDiffService(service, jobs, cache);
+		try {
+			AnalysisJob job = jobs.submit(new ByteArrayInputStream(base.toZipBytes()));
+			String headDigest = service.analyzeArchive(new ByteArrayInputStream(head.toZipBytes())).getArchiveDigest();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+			while (!job.isFinished() && System.nanoTime() < deadline) {
+				Thread.sleep(20);
+			}
+			assertEquals(AnalysisJob.Status.COMPLETED, job.getStatus());
+
+			ProjectMetadata before = diffs.findAnalysis(job.getId()).orElseThrow();
+			ProjectMetadata after = diffs.findAnalysis(headDigest.toUpperCase()).orElseThrow();
+			ProjectMetadataDiff diff = AnalysisDiffService.compare(job.getId(), before, headDigest, after);
+			assertEquals(head.expectedEndpointCount() - base.expectedEndpointCount(), diff.getApiRoutes().getAdded().size());
+
+			// Anything but a digest or a job id never reaches the files of the result cache
+			Files.writeString(results.resolve("outside.json"), "{}");
+			assertTrue(diffs.findAnalysis("../outside").isEmpty());
+			assertTrue(diffs.findAnalysis("0".repeat(64)).isEmpty());
+			assertNull(cache.getJson("../outside"));
+		} finally {
+			jobs.shutdown();
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void archivesOverLimitsAreRejected() throws Exception {
+		byte[] zip = ProjectCorpusGenerator.springBoot().files(100).toZipBytes();
+
+		assertThrows(ArchiveLimitException.class,
+			() -> service(true, new ArchiveLimits(0, 100000, 2048)).analyzeArchive(new ByteArrayInputStream(zip)));
+		assertThrows(ArchiveLimitException.class,
+			() -> service(true, new ArchiveLimits(100, 10, 2048)).analyzeArchive(new ByteArrayInputStream(zip)));
+		assertThrows(ArchiveLimitException.class,
+			() -> service(false, new ArchiveLimits(100, 10, 2048)).analyzeArchive(new ByteArrayInputStream(zip)));
+		assertThrows(ArchiveLimitException.class,
+			() -> service(true, new ArchiveLimits(100, 10, 2048)).quickLook(new ByteArrayInputStream(zip)));
+	}
+
+	@Test
+	void queueWaitDoesNotCountAgainstAnalyzerTimeout() throws Exception {
+		Path project = ProjectCorpusGenerator.springBoot().files(100).controllers(5).writeTo(tempDir.resolve("project"));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// Every analyzer waits behind this task for longer than its own timeout
+			CountDownLatch blocking = new CountDownLatch(1);
+			executor.submit(() -> {
+				blocking.countDown();
+				Thread.sleep(3000);
+				return null;
+			});
+			blocking.await();
+			ProjectMetadata metadata = new ProjectAnalysisOrchestrator(executor, 2000).analyzeProject(project);
+			assertFalse(metadata.isPartial());
+			assertFalse(metadata.getApiRoutes().isEmpty());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void identicalConcurrentUploadsShareOneAnalysis() throws Exception {
+		byte[] zip = ProjectCorpusGenerator.springBoot().files(100).controllers(5).toZipBytes();
+		ProjectAnalysisService service = service(true);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger analyzerRuns = new AtomicInteger();
+		AnalysisListener blocking = (analyzerName, result) -> {
+			analyzerRuns.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+
+		ExecutorService requests = Executors.newFixedThreadPool(2);
+		try {
+			Future<ProjectMetadata> leader = requests.submit(() -> service.analyzeArchive(
+				new ByteArrayInputStream(zip), blocking, new AnalysisProfile(), Cancellation.NONE));
+			while (analyzerRuns.get() == 0) {
+				Thread.sleep(10);
+			}
+			AnalysisProfile waiterProfile = new AnalysisProfile();
+			Future<ProjectMetadata> waiter = requests.submit(() -> service.analyzeArchive(
+				new ByteArrayInputStream(zip), blocking, waiterProfile, Cancellation.NONE));
+			while (!"in_flight".equals(waiterProfile.toMap().get("source"))) {
+				Thread.sleep(10);
+			}
+			release.countDown();
+
+			ProjectMetadata first = leader.get(60, TimeUnit.SECONDS);
+			ProjectMetadata second = waiter.get(60, TimeUnit.SECONDS);
+			// Only the leader's analyzers ran, and each request got its own instance
+			assertEquals(6, analyzerRuns.get());
+			assertNotSame(first, second);
+			assertEquals(first.getArchiveDigest(), second.getArchiveDigest());
+			assertEquals(first.getApiRoutes().size(), second.getApiRoutes().size());
+			second.getApiRoutes().clear();
+			assertFalse(first.getApiRoutes().isEmpty());
+		} finally {
+			requests.shutdownNow();
+		}
+	}
+
+	@Test
+	void generatorIsReproducible() throws Exception {
+		ProjectCorpusGenerator generator = ProjectCorpusGenerator.node().files(200).lockfileEntries(1000);
+
+		assertArrayEquals(generator.toZipBytes(), generator.toZipBytes());
+		assertEquals(200, ProjectIndex.build(generator.writeTo(tempDir.resolve("node"))).countAllFiles());
+	}
+}
@@ -0,0 +1,99 @@
+package io.explainit.service;
+
+import io.explainit.analyzer.AnalysisListener;
+import io.explainit.corpus.ProjectCorpusGenerator;
+import io.explainit.dto.ProjectMetadata;
+import io.explainit.util.Cancellation;
+import io.explainit.util.DigestMismatchException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSessionTests {
+
+	@TempDir
+	Path tempDir;
+
+	private UploadSessionService uploads(long maxSpooledMb) {
+		return new UploadSessionService(tempDir.resolve("uploads").toString(), 64, maxSpooledMb, 60, 60);
+	}
+
+	private static ProjectAnalysisService service() {
+		AnalysisResultCache cache = new AnalysisResultCache(false, 0, "", 0);
+		AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+		return new ProjectAnalysisService(cache, metrics, new ArchiveLimits(100, 100000, 2048), true, 4, 60, 64, true,
+			1, 2, 32, 2, "", 1000, 60);
+	}
+
+	private static String sha256(byte[] content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+	}
+
+	@Test
+	void chunkedUploadAssemblesOutOfOrderChunks() throws Exception {
+		byte[] zip = ProjectCorpusGenerator.springBoot().files(300).controllers(10).entities(10).toZipBytes();
+		UploadSessionService uploads = uploads(64);
+
+		UploadSession session = uploads.initiate(zip.length, sha256(zip));
+		int half = zip.length / 2;
+		session.write(half, new ByteArrayInputStream(zip, half, zip.length - half));
+		assertThrows(IllegalStateException.class, () -> session.complete(upload -> "job"));
+		session.write(0, new ByteArrayInputStream(zip, 0, half));
+
+		ProjectMetadata buffered = service().analyzeArchive(new ByteArrayInputStream(zip));
+		AtomicReference<ArchiveUpload> handedOver = new AtomicReference<>();
+		session.complete(upload -> {
+			handedOver.set(upload);
+			return "job";
+		});
+		try (ArchiveUpload upload = handedOver.get()) {
+			ProjectMetadata chunked = service().analyzeUpload(upload, AnalysisListener.NONE, new AnalysisProfile(),
+				Cancellation.NONE);
+			assertEquals(buffered.getArchiveDigest(), chunked.getArchiveDigest());
+			assertEquals(buffered.getApiRoutes().size(), chunked.getApiRoutes().size());
+		}
+
+		UploadSession corrupted = uploads.initiate(zip.length, sha256(zip));
+		corrupted.write(0, new ByteArrayInputStream(new byte[zip.length]));
+		assertThrows(DigestMismatchException.class, () -> corrupted.complete(upload -> "job"));
+	}
+
+	@Test
+	void completingAgainReturnsTheFirstHandover() throws Exception {
+		byte[] content = "not really an archive".getBytes();
+		UploadSession session = uploads(64).initiate(content.length, sha256(content));
+		session.write(0, new ByteArrayInputStream(content));
+
+		AtomicInteger handovers = new AtomicInteger();
+		assertThrows(RejectedExecutionException.class, () -> session.complete(upload -> {
+			throw new RejectedExecutionException("Queue full");
+		}));
+		assertEquals("job-1", session.complete(upload -> "job-" + handovers.incrementAndGet()));
+		assertEquals("job-1", session.complete(upload -> "job-" + handovers.incrementAndGet()));
+		assertEquals(1, handovers.get());
+		assertThrows(IllegalStateException.class, () -> session.write(0, new ByteArrayInputStream(content)));
+	}
+
+	@Test
+	void uploadsInProgressShareTheSpoolBudget() throws Exception {
+		UploadSessionService uploads = uploads(1);
+		String digest = "0".repeat(64);
+
+		UploadSession first = uploads.initiate(768 * 1024, digest);
+		assertThrows(RejectedExecutionException.class, () -> uploads.initiate(512 * 1024, digest));
+		assertThrows(IllegalArgumentException.class, () -> uploads.initiate(2 * 1024 * 1024, digest));
+
+		uploads.discard(first.getId());
+		assertNotNull(uploads.initiate(512 * 1024, digest));
+		uploads.shutdown();
+	}
+}
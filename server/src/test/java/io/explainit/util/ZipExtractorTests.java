@@ -0,0 +1,38 @@
+package io.explainit.util;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipExtractorTests {
+
+	private static byte[] zip(String... names) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			for (String name : names) {
+				zip.putNextEntry(new ZipEntry(name));
+				zip.write(name.getBytes());
+				zip.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	@Test
+	void streamingExtractionSkipsEntriesEscapingTheDirectory() throws Exception {
+		String escaping = "../explainit-zip-slip-" + System.nanoTime() + ".txt";
+		Path extracted = ZipExtractor.extractZip(new ByteArrayInputStream(zip("src/A.java", escaping)));
+		try {
+			assertTrue(Files.exists(extracted.resolve("src/A.java")));
+			assertFalse(Files.exists(extracted.resolve(escaping).normalize()));
+		} finally {
+			ZipExtractor.deleteDirectory(extracted);
+		}
+	}
+}